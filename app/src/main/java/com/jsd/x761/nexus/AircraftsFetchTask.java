@@ -20,18 +20,15 @@ package com.jsd.x761.nexus;
 import android.location.Location;
 import android.util.Log;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
-import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
-import java.util.ArrayList;
 import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * An asynchronous task that fetches aircraft state vectors from a server.
@@ -39,14 +36,22 @@ import java.util.List;
 public class AircraftsFetchTask implements Runnable {
   private static final String TAG = "AIRCRAFTS_FETCH_TASK";
 
+  private final HttpClient mHttpClient;
   private final String mSourceURL;
   private final String mUser;
   private final String mPassword;
   private final AircraftsDatabase mAircraftsDatabase;
   private final Location mLocation;
-
-  public AircraftsFetchTask(String sourceURL, String user, String password, AircraftsDatabase aircraftsDatabase, Location location) {
+  private int mResponseCode;
+  private int mCreditTier;
+  private String mRateLimitRemaining;
+  private String mRateLimitRetryAfter;
+  private boolean mRequestFailed;
+
+  public AircraftsFetchTask(
+    HttpClient httpClient, String sourceURL, String user, String password, AircraftsDatabase aircraftsDatabase, Location location) {
     // The source URL is configured from the app preferences
+    mHttpClient = httpClient;
     mSourceURL = sourceURL;
     mUser = user;
     mPassword = password;
@@ -58,16 +63,20 @@ public class AircraftsFetchTask implements Runnable {
   public void run() {
     Log.i(TAG, String.format("run lat %f lng %f", (float)mLocation.getLatitude(), (float)mLocation.getLongitude()));
 
-    JSONObject json = null;
+    LatLng location = new LatLng(mLocation.getLatitude(), mLocation.getLongitude());
+    float bearing = mLocation.hasBearing() ? mLocation.getBearing() : 0.0f;
+    float speed = mLocation.hasSpeed() ? mLocation.getSpeed() : 0.0f;
+
+    List<Alert> aircrafts;
     if(Configuration.DEBUG_INJECT_TEST_AIRCRAFTS != 0) {
       // Support using test aircraft state vectors to help debugging without
       // having to connect to an actual server everytime
+      Log.i(TAG, "using test aircraft state vectors");
       try {
-        Log.i(TAG, "using test aircraft state vectors");
-        json = new JSONObject(Configuration.DEBUG_TEST_AIRCRAFTS);
+        aircrafts = AircraftsParser.parse(Configuration.DEBUG_TEST_AIRCRAFTS, location, bearing, mAircraftsDatabase);
       }
-      catch(JSONException e) {
-        Log.e(TAG, "JSONException reading JSON", e);
+      catch(Exception e) {
+        Log.e(TAG, "Exception processing aircraft state vectors", e);
         onDone(null);
         return;
       }
@@ -75,131 +84,96 @@ public class AircraftsFetchTask implements Runnable {
     else {
       // Connect to the configured server and fetch aircraft state vectors
       // within the configured max distance
-      HttpURLConnection connection = null;
-      BufferedReader reader = null;
       try {
+        // Query the smallest area covering the region of interest ahead of
+        // the vehicle, as the server charges credits by area
         float distance = Geospatial.toMeters(Configuration.AIRCRAFTS_MAX_DISTANCE);
-        Location bottom = Geospatial.getDestination(mLocation, distance, 180f);
-        Location left = Geospatial.getDestination(mLocation, distance, 270f);
-        Location top = Geospatial.getDestination(mLocation, distance, 0f);
-        Location right = Geospatial.getDestination(mLocation, distance, 90f);
+        BoundingBox box = AircraftsQueryPlanner.plan(location, bearing, speed, distance);
+        mCreditTier = AircraftsQueryPlanner.getCreditTier(box);
         URL url = new URL(String.format(
           "%s/api/states/all?lamin=%f&lomin=%f&lamax=%f&lomax=%f",
           mSourceURL,
-          (float)bottom.getLatitude(),
-          (float)left.getLongitude(),
-          (float)top.getLatitude(),
-          (float)right.getLongitude()));
-
-        if(Configuration.DEBUG) {
-          // Double check that the computed area uses the correct distance
-          float topDistance = Geospatial.toMiles(Geospatial.getDistance(mLocation, top));
-          float leftDistance = Geospatial.toMiles(Geospatial.getDistance(mLocation, left));
-          Log.i(TAG, String.format("aircraft area distance top %f left %f", topDistance, leftDistance));
-        }
-
-        // Connect to the server and fetch the aircraft state vectors in
-        // JSON form
-        Log.i(TAG, String.format("URL.openConnection %s", url.toExternalForm()));
-        connection = (HttpURLConnection)url.openConnection();
-        connection.setRequestMethod("GET");
-        connection.setRequestProperty("Connection", "close");
-        connection.setConnectTimeout(Configuration.AIRCRAFTS_CONNECT_TIMEOUT);
+          (float)box.getMinLatitude(),
+          (float)box.getMinLongitude(),
+          (float)box.getMaxLatitude(),
+          (float)box.getMaxLongitude()));
+        Log.i(TAG, String.format("aircraft area %f square degrees credit tier %d", (float)box.getArea(), mCreditTier));
 
+        Map<String, String> headers = new HashMap<>();
         if(mUser.length() != 0 && mPassword.length() != 0) {
           String userPass = mUser + ":" + mPassword;
           String basicAuth = "Basic " + new String(Base64.getEncoder().encode(userPass.getBytes()));
-          connection.setRequestProperty("Authorization", basicAuth);
+          headers.put("Authorization", basicAuth);
         }
-        connection.connect();
 
-        InputStream inputStream = connection.getInputStream();
-        StringBuilder buffer = new StringBuilder();
-        if(inputStream == null) {
-          onDone(null);
-          return;
-        }
+        // Fetch the aircraft state vectors in JSON form over a kept alive
+        // connection to the server
+        Log.i(TAG, String.format("HttpClient.get %s", url.toExternalForm()));
+        try(HttpResponse response = mHttpClient.get(url, headers, Configuration.AIRCRAFTS_CONNECT_TIMEOUT)) {
+          // Keep the rate limit headers to schedule the next polls
+          mResponseCode = response.getResponseCode();
+          mRateLimitRemaining = response.getHeaderField("X-Rate-Limit-Remaining");
+          mRateLimitRetryAfter = response.getHeaderField("X-Rate-Limit-Retry-After-Seconds");
+          Log.i(
+            TAG, String.format(
+              "HttpClient.get response code %d remaining rate limit %s retry after %s", mResponseCode, mRateLimitRemaining,
+              mRateLimitRetryAfter));
+          if(mResponseCode != HttpURLConnection.HTTP_OK) {
+            onDone(null);
+            return;
+          }
 
-        reader = new BufferedReader(new InputStreamReader(inputStream));
-        String line;
-        while((line = reader.readLine()) != null) {
-          buffer.append(line).append("\n");
-        }
+          InputStream inputStream = response.getInputStream();
+          if(inputStream == null) {
+            onDone(null);
+            return;
+          }
 
-        if(buffer.length() == 0) {
-          onDone(null);
-          return;
+          // Parse the aircraft state vectors as they're read from the
+          // connection instead of buffering the whole response
+          aircrafts = AircraftsParser.parse(new InputStreamReader(inputStream), location, bearing, mAircraftsDatabase);
         }
-
-        String rateLimit = connection.getHeaderField("X-Rate-Limit-Remaining");
-        Log.i(TAG, String.format("URL.openConnection remaining rate limit %s", rateLimit));
-
-        String jsonString = buffer.toString();
-        json = new JSONObject(jsonString);
       }
       catch(Exception e) {
         Log.e(TAG, "Exception reading JSON from URL", e);
+        mRequestFailed = e instanceof IOException && mResponseCode == 0;
         onDone(null);
         return;
       }
-      finally {
-        if(connection != null) {
-          connection.disconnect();
-        }
-        if(reader != null) {
-          try {
-            reader.close();
-          }
-          catch(Exception e) {
-            Log.e(TAG, "IOException closing reader", e);
-          }
-        }
-      }
-    }
-
-    List<Alert> aircrafts = new ArrayList<>();
-    try {
-      JSONArray jsonAircrafts = json.optJSONArray("states");
-      if(jsonAircrafts != null) {
-        int n = 0;
-        for(int i = 0; i < jsonAircrafts.length(); i++) {
-          JSONArray jsonAircraft = jsonAircrafts.getJSONArray(i);
-          try {
-            // Only keep aicraft state vectors of relevant types, not on the
-            // ground and within the configured distance
-            String transponder = jsonAircraft.getString(0);
-            Log.i(TAG, String.format("aircraft transponder icao24 address %s", transponder));
-
-            String[] aircraftInfo = mAircraftsDatabase.getInterestingAircrafts().get(transponder);
-            if(aircraftInfo != null) {
-              Alert aircraft = Alert.fromAircraft(mLocation, jsonAircraft, aircraftInfo);
-              if(Configuration.DEBUG_INJECT_TEST_AIRCRAFTS != 0) {
-                if(n < Configuration.DEBUG_INJECT_TEST_AIRCRAFTS) {
-                  aircrafts.add(aircraft);
-                  n++;
-                }
-              }
-              else {
-                if(!aircraft.onGround && aircraft.distance <= Configuration.AIRCRAFTS_MAX_DISTANCE) {
-                  aircrafts.add(aircraft);
-                }
-              }
-            }
-          }
-          catch(Exception e) {
-            Log.e(TAG, "Exception processing aircraft state vector", e);
-          }
-        }
-      }
-    }
-    catch(Exception e) {
-      Log.e(TAG, "Exception processing aircraft state vectors", e);
-      onDone(null);
-      return;
     }
     onDone(aircrafts);
   }
 
+  /**
+   * Return the HTTP response code of the server, 0 if it wasn't reached.
+   */
+  public int getResponseCode() {
+    return mResponseCode;
+  }
+
+  /**
+   * Return the credits charged by the server for the query, 0 if no query
+   * was issued.
+   */
+  public int getCreditTier() {
+    return mCreditTier;
+  }
+
+  /**
+   * Return true if the server couldn't be reached.
+   */
+  public boolean isRequestFailed() {
+    return mRequestFailed;
+  }
+
+  public String getRateLimitRemaining() {
+    return mRateLimitRemaining;
+  }
+
+  public String getRateLimitRetryAfter() {
+    return mRateLimitRetryAfter;
+  }
+
   protected void onDone(List<Alert> aircrafts) {
     if(aircrafts != null) {
       Log.i(TAG, String.format("onDone %d aircrafts", aircrafts.size()));
@@ -27,10 +27,15 @@ import android.content.DialogInterface;
 import android.content.Intent;
 import android.content.ServiceConnection;
 import android.content.SharedPreferences;
+import android.content.res.AssetFileDescriptor;
 import android.graphics.Color;
 import android.location.Location;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.IBinder;
 import android.os.Looper;
 import android.util.Log;
@@ -51,11 +56,15 @@ import com.google.android.gms.location.Priority;
 import com.jsd.x761.nexus.Nexus.R;
 import com.nolimits.ds1library.DS1Service;
 
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
@@ -68,6 +77,9 @@ public class AlertsActivity extends DS1ServiceActivity {
   public static final String MESSAGE_TOKEN = "ALERTS_ACTIVITY_MESSAGES";
 
   private final Handler mHandler = new Handler(Looper.getMainLooper());
+  private HandlerThread mAlertsPipelineThread;
+  private Handler mAlertsPipelineHandler;
+  private final LiveAlerts mLiveAlerts = new LiveAlerts();
   private AlertsAdapter mAlertsAdapter;
   private ServiceConnection mSpeechServiceConnection;
   private SpeechService mSpeechService;
@@ -88,8 +100,12 @@ public class AlertsActivity extends DS1ServiceActivity {
   private Runnable mLocationNotAvailableTask;
   private ImageView mNetworkConnectedImage;
   private boolean mNetworkConnected = true;
-  private Runnable mNetworkCheckTask;
   private Executor mNetworkCheckTaskExecutor;
+  private ConnectivityManager mConnectivityManager;
+  private ConnectivityManager.NetworkCallback mNetworkCallback;
+  private NetworkReachability mNetworkReachability;
+  private boolean mNetworkProbing;
+  private HttpClient mHttpClient;
   private boolean mDS1AlertsActive;
   private boolean mReportsEnabled;
   private ImageView mReportsActiveImage;
@@ -97,6 +113,10 @@ public class AlertsActivity extends DS1ServiceActivity {
   private String mReportsSourceName;
   private int mReportsActive;
   private Executor mReportsFetchTaskExecutor;
+  private ReportsTileCache mReportsTileCache;
+  private ResponseValidator<List<Alert>> mReportsResponseValidator;
+  private int mReportsFetchCount;
+  private int mReportsUnchangedCount;
   private Runnable mCheckForReportsTask;
   private boolean mAircraftsEnabled;
   private ImageView mAircraftsActiveImage;
@@ -105,6 +125,7 @@ public class AlertsActivity extends DS1ServiceActivity {
   private String mAircraftsSourceURL;
   private int mAircraftsActive;
   private Executor mAircraftsFetchTaskExecutor;
+  private AircraftsPollScheduler mAircraftsPollScheduler;
   private String mAircraftsUser;
   private String mAircraftsPassword;
 
@@ -114,6 +135,9 @@ public class AlertsActivity extends DS1ServiceActivity {
     Log.i(TAG, "onCreate");
     super.onCreate(b);
 
+    // Forward the logs of the alert pipeline to the Android log
+    AndroidLogSink.install();
+
     setTitle("Alerts");
 
     setContentView(R.layout.alerts_activity);
@@ -150,8 +174,19 @@ public class AlertsActivity extends DS1ServiceActivity {
 
     mLocationClient = LocationServices.getFusedLocationProviderClient(this);
 
+    // Share kept alive connections between the network checks and fetches
+    mHttpClient = new HttpClient(Configuration.HTTP_READ_TIMEOUT, Configuration.HTTP_MAX_CONNECTIONS_PER_HOST);
     mNetworkCheckTaskExecutor = Executors.newSingleThreadExecutor();
+
+    // Filter, reconcile and sort the alerts on a dedicated thread that owns
+    // the live alerts, the main thread only displays the snapshots of the
+    // alerts it publishes
+    mAlertsPipelineThread = new HandlerThread("AlertsPipeline");
+    mAlertsPipelineThread.start();
+    mAlertsPipelineHandler = new Handler(mAlertsPipelineThread.getLooper());
     mReportsFetchTaskExecutor = Executors.newSingleThreadExecutor();
+    mReportsTileCache = new ReportsTileCache(Configuration.REPORTS_TILE_ZOOM, Configuration.REPORTS_TILE_TIME_TO_LIVE);
+    mReportsResponseValidator = new ResponseValidator<>(Configuration.REPORTS_RESPONSE_VALIDATOR_SIZE);
     mAircraftsFetchTaskExecutor = Executors.newSingleThreadExecutor();
 
     // Bind to the speech service
@@ -177,8 +212,8 @@ public class AlertsActivity extends DS1ServiceActivity {
       if(Configuration.ENABLE_AIRCRAFTS) {
         if(mAircraftsEnabled) {
           // Load aircrafts database
-          mAircraftsDatabase = new AircraftsDatabase(AlertsActivity.this);
-          if(mAircraftsDatabase.getInterestingAircrafts().size() != 0) {
+          mAircraftsDatabase = loadAircraftsDatabase();
+          if(mAircraftsDatabase.size() != 0) {
             mAircraftsActive = 1;
           }
         }
@@ -242,13 +277,8 @@ public class AlertsActivity extends DS1ServiceActivity {
       if(mReportsActive != 0 || mAircraftsActive != 0) {
         mLocationActive = true;
 
-        // Regularly check network connectivity
-        mNetworkCheckTask = () -> {
-          isNetworkConnected(() -> {
-            mHandler.postDelayed(mNetworkCheckTask, MESSAGE_TOKEN, Configuration.NETWORK_CONNECT_CHECK_TIMER);
-          }, 0);
-        };
-        mHandler.postDelayed(mNetworkCheckTask, MESSAGE_TOKEN, 1);
+        // Follow network connectivity changes
+        mHandler.postDelayed(this::startNetworkMonitor, MESSAGE_TOKEN, 1);
 
         mOnGetInitialLocationTask = () -> {
           if(mReportsActive != 0) {
@@ -265,19 +295,12 @@ public class AlertsActivity extends DS1ServiceActivity {
           }
 
           if(mAircraftsActive != 0) {
-            // Regularly fetch aircrafts
+            // Regularly fetch aircrafts, each check schedules the next one
+            // once done within the credit budget of the server
+            mAircraftsPollScheduler = new AircraftsPollScheduler(
+              Configuration.DEBUG_INJECT_TEST_AIRCRAFTS != 0 || (mAircraftsUser.length() != 0 && mAircraftsPassword.length() != 0));
             mCheckForAircraftsTask = () -> {
-              try {
-                checkForAircrafts(0);
-              }
-              finally {
-                if(Configuration.DEBUG_INJECT_TEST_AIRCRAFTS != 0 || (mAircraftsUser.length() != 0 && mAircraftsPassword.length() != 0)) {
-                  mHandler.postDelayed(mCheckForAircraftsTask, MESSAGE_TOKEN, Configuration.AIRCRAFTS_AUTHENTICATED_CHECK_TIMER);
-                }
-                else {
-                  mHandler.postDelayed(mCheckForAircraftsTask, MESSAGE_TOKEN, Configuration.AIRCRAFTS_ANONYMOUS_CHECK_TIMER);
-                }
-              }
+              checkForAircrafts(0);
             };
             mHandler.postDelayed(mCheckForAircraftsTask, MESSAGE_TOKEN, 1);
           }
@@ -341,6 +364,23 @@ public class AlertsActivity extends DS1ServiceActivity {
     });
   }
 
+  private AircraftsDatabase loadAircraftsDatabase() {
+    // Memory map the binary database from assets/interesting_aircrafts.bin,
+    // it's stored uncompressed in the app so it can be used in place
+    try(AssetFileDescriptor fd = getAssets().openFd("interesting_aircrafts.bin");
+        FileInputStream inputStream = new FileInputStream(fd.getFileDescriptor())) {
+      MappedByteBuffer buffer = inputStream.getChannel().map(FileChannel.MapMode.READ_ONLY, fd.getStartOffset(), fd.getLength());
+      return new AircraftsDatabase(buffer);
+    }
+    catch(FileNotFoundException e) {
+      Log.i(TAG, "aircrafts database not included");
+    }
+    catch(IOException e) {
+      Log.e(TAG, "IOException mapping aircrafts database", e);
+    }
+    return new AircraftsDatabase();
+  }
+
   private void bindSpeechService(Runnable onDone) {
     Log.i(TAG, "bindSpeechService");
     // Bind to the speech service
@@ -353,6 +393,10 @@ public class AlertsActivity extends DS1ServiceActivity {
           mBoundSpeechService = true;
           mAlertsAdapter = new AlertsAdapter(AlertsActivity.this, mSpeechService, mReportsSourceName);
           mAlertsRecyclerView.setAdapter(mAlertsAdapter);
+
+          // Synthesize the radar alerts and events ahead of time
+          mSpeechService.preparePhrases(AlertText.getRadarPhrases());
+          mSpeechService.preparePhrases(getEventPhrases());
           mHandler.postDelayed(onDone, MESSAGE_TOKEN, 1);
         }
       }
@@ -368,6 +412,26 @@ public class AlertsActivity extends DS1ServiceActivity {
     bindService(speechServiceIntent, mSpeechServiceConnection, BIND_AUTO_CREATE);
   }
 
+  private List<String> getEventPhrases() {
+    List<String> phrases = new ArrayList<>();
+    phrases.add("Radar detector is on");
+    phrases.add("Radar detector is back on");
+    phrases.add("Radar detector is off");
+    phrases.add("Location is off");
+    phrases.add("Location is back on");
+    phrases.add("Network is offline");
+    phrases.add("Network is back online");
+    phrases.add(String.format("%s alerts are on", mReportsSourceName));
+    phrases.add(String.format("%s alerts are back on", mReportsSourceName));
+    phrases.add(String.format("%s alerts are off", mReportsSourceName));
+    phrases.add(String.format("%s alerts are all clear now", mReportsSourceName));
+    phrases.add("Aircraft alerts are on");
+    phrases.add("Aircraft alerts are back on");
+    phrases.add("Aircraft alerts are off");
+    phrases.add("Aircraft alerts are all clear now");
+    return phrases;
+  }
+
   public SpeechService getSpeechService() {
     return mSpeechService;
   }
@@ -418,6 +482,8 @@ public class AlertsActivity extends DS1ServiceActivity {
     mAlertsAdapter.onDestroy();
 
     mHandler.removeCallbacksAndMessages(MESSAGE_TOKEN);
+    mAlertsPipelineHandler.removeCallbacksAndMessages(null);
+    mAlertsPipelineThread.quitSafely();
 
     if(mSpeechServiceConnection != null) {
       Log.i(TAG, "unbindService() mSpeechServiceConnection");
@@ -427,6 +493,10 @@ public class AlertsActivity extends DS1ServiceActivity {
       Log.i(TAG, "locationclient.removeLocationUpdates()");
       mLocationClient.removeLocationUpdates(mLocationCallback);
     }
+    if(mConnectivityManager != null && mNetworkCallback != null) {
+      Log.i(TAG, "connectivityManager.unregisterNetworkCallback()");
+      mConnectivityManager.unregisterNetworkCallback(mNetworkCallback);
+    }
   }
 
   @Override
@@ -439,7 +509,7 @@ public class AlertsActivity extends DS1ServiceActivity {
       if(ds1Alerts != null) {
         for(DS1Service.RD_Alert ds1Alert : ds1Alerts) {
           if(ds1Alert.detected && !ds1Alert.muted) {
-            alerts.add(Alert.fromDS1Alert(ds1Alert));
+            alerts.add(fromDS1Alert(ds1Alert));
           }
         }
       }
@@ -452,33 +522,12 @@ public class AlertsActivity extends DS1ServiceActivity {
       int n = 0;
       for(String alert : Configuration.DEBUG_TEST_DS1_ALERTS) {
         if(n < Configuration.DEBUG_INJECT_TEST_DS1_ALERTS) {
-          alerts.add(Alert.fromDS1Alert(ds1Service.new RD_Alert(alert)));
+          alerts.add(fromDS1Alert(ds1Service.new RD_Alert(alert)));
           n++;
         }
       }
     }
 
-    List<Alert> newAlerts = new ArrayList<>();
-    List<Alert> mAlerts = mAlertsAdapter.getRadarAlerts();
-    for(Alert alert : alerts) {
-      for(Alert mAlert : mAlerts) {
-        // Detect repeating alerts, reuse the existing alert instead of
-        // adding the repeated alert to avoid announcing the same alert
-        // over and over
-        if(alert.alertClass == mAlert.alertClass && alert.band == mAlert.band && alert.frequency == mAlert.frequency) {
-          mAlert.direction = alert.direction;
-          mAlert.intensity = alert.intensity;
-          Log.i(TAG, "repeating alert");
-          alert = mAlert;
-          break;
-        }
-      }
-      newAlerts.add(alert);
-    }
-
-    // Sort alerts by priority
-    newAlerts.sort((o1, o2) -> o1.priority - o2.priority);
-
     // Clear alerts after a few seconds
     if(mClearDS1AlertsTask != null) {
       Log.i(TAG, "removeCallbacks() mClearDS1AlertsTask");
@@ -486,7 +535,25 @@ public class AlertsActivity extends DS1ServiceActivity {
       mClearDS1AlertsTask = null;
     }
 
-    mAlertsAdapter.setRadarAlerts(newAlerts, () -> startClearAlertsTask());
+    mAlertsPipelineHandler.post(() -> {
+      AlertsSnapshot snapshot = mLiveAlerts.setRadarAlerts(alerts);
+      mHandler.postDelayed(() -> {
+        mAlertsAdapter.setRadarAlerts(snapshot, () -> startClearAlertsTask());
+      }, MESSAGE_TOKEN, 1);
+    });
+  }
+
+  private static Alert fromDS1Alert(DS1Service.RD_Alert ds1Alert) {
+    Log.i(TAG, String.format(
+      "fromDS1Alert id %s type %s freq %f muted %b intensity %d raw_value %d",
+      ds1Alert.alert_id, ds1Alert.type, ds1Alert.freq, ds1Alert.muted, ds1Alert.rssi, ds1Alert.raw_value));
+
+    int direction = switch(ds1Alert.alert_dir) {
+      case ALERT_DIR_FRONT -> Alert.ALERT_DIRECTION_FRONT;
+      case ALERT_DIR_SIDE -> Alert.ALERT_DIRECTION_SIDE;
+      default -> Alert.ALERT_DIRECTION_BACK;
+    };
+    return Alert.fromDS1Alert(ds1Alert.type, direction, ds1Alert.rssi, ds1Alert.freq, ds1Alert.muted);
   }
 
   private void startClearAlertsTask() {
@@ -497,7 +564,12 @@ public class AlertsActivity extends DS1ServiceActivity {
     }
     mClearDS1AlertsTask = () -> {
       Log.i(TAG, "setRadarAlerts(())");
-      mAlertsAdapter.setRadarAlerts(new ArrayList<>(), () -> {
+      mAlertsPipelineHandler.post(() -> {
+        AlertsSnapshot snapshot = mLiveAlerts.setRadarAlerts(new ArrayList<>());
+        mHandler.postDelayed(() -> {
+          mAlertsAdapter.setRadarAlerts(snapshot, () -> {
+          });
+        }, MESSAGE_TOKEN, 1);
       });
     };
 
@@ -532,8 +604,12 @@ public class AlertsActivity extends DS1ServiceActivity {
         }
         else {
           if(mLastLocation != null) {
-            if(Geospatial.getDistance(mLastLocation, mLocation) > Configuration.COMPUTED_BEARING_DISTANCE_THRESHOLD) {
-              mBearing = Geospatial.getBearing(mLastLocation, mLocation);
+            float distance = Geospatial.getDistance(
+              Configuration.FILTER_DISTANCE_MODE, mLastLocation.getLatitude(), mLastLocation.getLongitude(), mLocation.getLatitude(),
+              mLocation.getLongitude());
+            if(distance > Configuration.COMPUTED_BEARING_DISTANCE_THRESHOLD) {
+              mBearing = Geospatial.getBearing(
+                new LatLng(mLastLocation.getLatitude(), mLastLocation.getLongitude()), new LatLng(mLocation.getLatitude(), mLocation.getLongitude()));
               hasBearing = true;
             }
             else {
@@ -564,17 +640,22 @@ public class AlertsActivity extends DS1ServiceActivity {
 
         // Refresh reports and aircrafts with the new location
         if(mReportsActive != 0) {
-          List<Alert> updatedReports = new ArrayList<>();
-          for(Alert alert : mAlertsAdapter.getReportAlerts()) {
-            updatedReports.add(Alert.fromReport(mLocation, alert));
-          }
-          onReportsData(updatedReports);
-
-          List<Alert> updatedAircrafts = new ArrayList<>();
-          for(Alert alert : mAlertsAdapter.getAircraftAlerts()) {
-            updatedAircrafts.add(Alert.fromAircraft(mLocation, alert));
-          }
-          onAircraftsData(updatedAircrafts);
+          LatLng vehicleLocation = new LatLng(mLocation.getLatitude(), mLocation.getLongitude());
+          float vehicleBearing = mLocation.getBearing();
+          long time = System.currentTimeMillis();
+          onReportsActive(true);
+          onAircraftsActive(true);
+          mAlertsPipelineHandler.post(() -> {
+            // Relocate all the fetched reports so the reports fetched ahead
+            // come in range between fetches
+            List<Alert> updatedReports = Alert.fromReports(vehicleLocation, vehicleBearing, mLiveAlerts.getReports());
+            publishReports(mLiveAlerts.setReports(updatedReports));
+
+            // Project the aircrafts along their last reported track between
+            // state vector updates
+            List<Alert> updatedAircrafts = Alert.fromAircrafts(vehicleLocation, vehicleBearing, mLiveAlerts.getAircraftAlerts(), time);
+            publishAircrafts(mLiveAlerts.setAircrafts(updatedAircrafts));
+          });
         }
       }
       else {
@@ -603,57 +684,120 @@ public class AlertsActivity extends DS1ServiceActivity {
     }, MESSAGE_TOKEN, 1);
   }
 
-  private void isNetworkConnected(Runnable onDone, int retryCount) {
-    Log.i(TAG, "isNetworkConnected");
+  private void startNetworkMonitor() {
+    Log.i(TAG, "startNetworkMonitor");
+    mNetworkReachability = new NetworkReachability(Configuration.NETWORK_FETCH_FAILURE_COUNT, Configuration.NETWORK_PROBE_TIMER);
+    mConnectivityManager = getSystemService(ConnectivityManager.class);
+    mNetworkCallback = new ConnectivityManager.NetworkCallback() {
+      @Override
+      public void onCapabilitiesChanged(@NonNull Network network, @NonNull NetworkCapabilities networkCapabilities) {
+        onNetworkChanged(true, isNetworkValidated(networkCapabilities));
+      }
+
+      @Override
+      public void onLost(@NonNull Network network) {
+        onNetworkChanged(false, false);
+      }
+    };
+
+    // Start from the current default network then follow its changes on
+    // the main thread
+    Network network = mConnectivityManager.getActiveNetwork();
+    NetworkCapabilities networkCapabilities = network != null ? mConnectivityManager.getNetworkCapabilities(network) : null;
+    onNetworkChanged(networkCapabilities != null, networkCapabilities != null && isNetworkValidated(networkCapabilities));
+    mConnectivityManager.registerDefaultNetworkCallback(mNetworkCallback, mHandler);
+  }
+
+  private static boolean isNetworkValidated(NetworkCapabilities networkCapabilities) {
+    return networkCapabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET) &&
+      networkCapabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_VALIDATED);
+  }
+
+  private void onNetworkChanged(boolean available, boolean validated) {
+    Log.i(TAG, String.format("onNetworkChanged available %b validated %b", available, validated));
+    mNetworkReachability.onNetworkChanged(available, validated, System.currentTimeMillis());
+    updateNetworkConnected();
+  }
+
+  /**
+   * Use the outcome of a fetch as a passive signal of the network health, a
+   * fetch that didn't issue a request doesn't tell anything.
+   */
+  private void onFetchDone(int responseCode, boolean requestFailed) {
+    if(responseCode == 0 && !requestFailed) {
+      return;
+    }
+    mHandler.postDelayed(() -> {
+      if(mNetworkReachability == null) {
+        return;
+      }
+      if(responseCode != 0) {
+        mNetworkReachability.onFetchSucceeded(System.currentTimeMillis());
+      }
+      else {
+        mNetworkReachability.onFetchFailed(System.currentTimeMillis());
+      }
+      updateNetworkConnected();
+    }, MESSAGE_TOKEN, 1);
+  }
+
+  private void updateNetworkConnected() {
+    if(!mNetworkProbing && mNetworkReachability.shouldProbe(System.currentTimeMillis())) {
+      probeNetwork();
+    }
+
+    boolean networkConnected = mNetworkReachability.isConnected();
+    Log.i(TAG, String.format("updateNetworkConnected %b", networkConnected));
+    if(networkConnected) {
+      mNetworkConnectedImage.setColorFilter(Color.LTGRAY);
+    }
+    else {
+      mNetworkConnectedImage.setColorFilter(Color.DKGRAY);
+    }
+    // Announce network connectivity changes
+    if(!networkConnected && mNetworkConnected) {
+      mNetworkConnected = networkConnected;
+      mSpeechService.announceEvent("Network is offline", () -> {
+      });
+    }
+    else if(networkConnected && !mNetworkConnected) {
+      mNetworkConnected = networkConnected;
+      mSpeechService.announceEvent("Network is back online", () -> {
+      });
+    }
+  }
+
+  /**
+   * Actively check that the network is reachable, only when the fetches
+   * disagree with the state of the network reported by the platform.
+   */
+  private void probeNetwork() {
+    Log.i(TAG, "probeNetwork");
+    mNetworkProbing = true;
     Runnable networkCheckTask = () -> {
-      boolean connected;
+      boolean reachable;
       try {
-        // Doing this is actually more reliable than checking for an active
-        // network on the Android connectivity manager
         URL url = new URL("https://www.google.com");
-        Log.i(TAG, String.format("openConnection() %s", url));
-        HttpURLConnection connection = (HttpURLConnection)url.openConnection();
-        connection.setRequestMethod("HEAD");
-        connection.setRequestProperty("Connection", "close");
-        connection.setConnectTimeout(Configuration.NETWORK_CONNECT_TIMEOUT);
-        connection.connect();
-        Log.i(TAG, String.format("connection responseCode %d", connection.getResponseCode()));
-        connected = connection.getResponseCode() == 200;
+        Log.i(TAG, String.format("HttpClient.head %s", url));
+        try(HttpResponse response = mHttpClient.head(url, Configuration.NETWORK_CONNECT_TIMEOUT)) {
+          Log.i(TAG, String.format("response code %d", response.getResponseCode()));
+          reachable = response.getResponseCode() == HttpURLConnection.HTTP_OK;
+        }
       }
       catch(Exception e) {
         Log.e(TAG, String.format("Exception %s", e));
-        connected = false;
-      }
-      final boolean networkConnected = connected;
-      Log.i(TAG, String.format("isNetworkConnected %b", networkConnected));
-
-      if(!networkConnected && retryCount < Configuration.NETWORK_CONNECT_RETRY_COUNT) {
-        // Retry a few times to work around short lived connectivity issues
-        Log.i(TAG, "post retry isNetworkConnected()");
-        mHandler.postDelayed(() -> {
-          isNetworkConnected(onDone, retryCount + 1);
-        }, MESSAGE_TOKEN, Configuration.NETWORK_CONNECT_RETRY_TIMER);
-        return;
+        reachable = false;
       }
+      final boolean networkReachable = reachable;
+      Log.i(TAG, String.format("probeNetwork %b", networkReachable));
 
       mHandler.postDelayed(() -> {
-        if(networkConnected) {
-          mNetworkConnectedImage.setColorFilter(Color.LTGRAY);
-        }
-        else {
-          mNetworkConnectedImage.setColorFilter(Color.DKGRAY);
-        }
-        // Announce network connectivity changes
-        if(!networkConnected && mNetworkConnected) {
-          mNetworkConnected = networkConnected;
-          mSpeechService.announceEvent("Network is offline", () -> mHandler.postDelayed(onDone, MESSAGE_TOKEN, 1));
-        }
-        else if(networkConnected && !mNetworkConnected) {
-          mNetworkConnected = networkConnected;
-          mSpeechService.announceEvent("Network is back online", () -> mHandler.postDelayed(onDone, MESSAGE_TOKEN, 1));
-        }
-        else {
-          onDone.run();
+        mNetworkProbing = false;
+        mNetworkReachability.onProbe(networkReachable, System.currentTimeMillis());
+        updateNetworkConnected();
+        if(mNetworkReachability.isDisagreeing()) {
+          // Probe again at a slow pace while the fetches keep disagreeing
+          mHandler.postDelayed(this::updateNetworkConnected, MESSAGE_TOKEN, Configuration.NETWORK_PROBE_TIMER);
         }
       }, MESSAGE_TOKEN, 1);
     };
@@ -666,9 +810,11 @@ public class AlertsActivity extends DS1ServiceActivity {
     // Fetch crowd-sourced reports in a radius around the current location
     if(mNetworkConnected) {
       if(mLocation != null) {
-        ReportsFetchTask reportsFetchTask = new ReportsFetchTask(mReportsSourceURL, mLocation) {
+        ReportsFetchTask reportsFetchTask = new ReportsFetchTask(mHttpClient, mReportsSourceURL, mLocation, mReportsTileCache,
+          mReportsResponseValidator) {
           @Override
           protected void onDone(List<Alert> reports) {
+            onFetchDone(getResponseCode(), isRequestFailed());
             if(reports == null) {
               Log.i(TAG, "reportsFetchTask.onDone null reports");
               if(retryCount < Configuration.REPORTS_CHECK_RETRY_COUNT) {
@@ -685,7 +831,7 @@ public class AlertsActivity extends DS1ServiceActivity {
             }
             else {
               Log.i(TAG, String.format("reportsFetchTask.onDone %d reports", reports.size()));
-              onReportsData(reports);
+              onReportsFetched(reports);
             }
           }
         };
@@ -702,74 +848,67 @@ public class AlertsActivity extends DS1ServiceActivity {
     }
   }
 
+  private void onReportsFetched(List<Alert> reports) {
+    mHandler.postDelayed(() -> {
+      boolean reportsActive = mReportsActive == 2;
+      onReportsActive(true);
+      mAlertsPipelineHandler.post(() -> {
+        // Skip reconciling the alerts with the same reports fetched again,
+        // as they often are when the vehicle is parked or slow, the location
+        // updates keep relocating the last reports
+        mReportsFetchCount++;
+        if(reportsActive && AlertsFilter.isSameReports(reports, mLiveAlerts.getReports())) {
+          mReportsUnchangedCount++;
+          Log.i(
+            TAG, String.format(
+              "same %d reports fetched, %d of %d fetches skipped", reports.size(), mReportsUnchangedCount, mReportsFetchCount));
+          return;
+        }
+        publishReports(mLiveAlerts.setReports(reports));
+      });
+    }, MESSAGE_TOKEN, 1);
+  }
+
   protected void onReportsData(List<Alert> reports) {
-    if(reports == null) {
+    if(!onReportsActive(reports != null)) {
+      return;
+    }
+    mAlertsPipelineHandler.post(() -> {
+      publishReports(mLiveAlerts.setReports(reports));
+    });
+  }
+
+  /**
+   * Announce reports availability changes, return true if reports are
+   * available.
+   */
+  private boolean onReportsActive(boolean active) {
+    if(!active) {
       mReportsActiveImage.setColorFilter(Color.DKGRAY);
       if(mReportsActive != 0) {
         mReportsActive = 0;
         mSpeechService.announceEvent(String.format("%s alerts are off", mReportsSourceName), () -> {
         });
       }
-      return;
+      return false;
     }
-    else {
-      mReportsActiveImage.setColorFilter(Color.LTGRAY);
-      if(mReportsActive == 0) {
-        mReportsActive = 2;
-        mSpeechService.announceEvent(String.format("%s alerts are back on", mReportsSourceName), () -> {
-        });
-      }
-      else if(mReportsActive == 1) {
-        mReportsActive = 2;
-        mSpeechService.announceEvent(String.format("%s alerts are on", mReportsSourceName), () -> {
-        });
-      }
+    mReportsActiveImage.setColorFilter(Color.LTGRAY);
+    if(mReportsActive == 0) {
+      mReportsActive = 2;
+      mSpeechService.announceEvent(String.format("%s alerts are back on", mReportsSourceName), () -> {
+      });
+    }
+    else if(mReportsActive == 1) {
+      mReportsActive = 2;
+      mSpeechService.announceEvent(String.format("%s alerts are on", mReportsSourceName), () -> {
+      });
     }
+    return true;
+  }
 
+  private void publishReports(AlertsSnapshot snapshot) {
     mHandler.postDelayed(() -> {
-      // Filter out reports beyond configured distance
-      List<Alert> inRangeReports = new ArrayList<>();
-      for(Alert report : reports) {
-        if(report.distance <= Configuration.REPORTS_MAX_DISTANCE) {
-          inRangeReports.add(report);
-        }
-      }
-
-      // Filter out duplicate reports
-      List<Alert> uniqueReports = new ArrayList<>();
-      for(Alert report : inRangeReports) {
-        boolean duplicate = false;
-        for(Alert uniqueReport : uniqueReports) {
-          if(report.isDuplicateReport(uniqueReport)) {
-            duplicate = true;
-            break;
-          }
-        }
-        if(!duplicate) {
-          uniqueReports.add(report);
-        }
-      }
-
-      // Update existing reports with their new position
-      List<Alert> newReports = new ArrayList<>();
-      List<Alert> mReports = mAlertsAdapter.getReportAlerts();
-      for(Alert report : uniqueReports) {
-        for(Alert mReport : mReports) {
-          if(report.isSameReport(mReport)) {
-            Log.i(TAG, String.format("existing report with new distance %f", report.distance));
-            mReport.distance = report.distance;
-            mReport.bearing = report.bearing;
-            report = mReport;
-            break;
-          }
-        }
-        newReports.add(report);
-      }
-
-      // Sort final list of reports by priority
-      newReports.sort(Comparator.comparingInt(o -> o.priority));
-
-      mAlertsAdapter.setReportAlerts(newReports, () -> {
+      mAlertsAdapter.setReportAlerts(snapshot, () -> {
       });
     }, MESSAGE_TOKEN, 1);
   }
@@ -780,27 +919,39 @@ public class AlertsActivity extends DS1ServiceActivity {
     // Fetch aircraft state vectors in a radius around the current location
     if(mNetworkConnected) {
       if(mLocation != null) {
-        AircraftsFetchTask aircraftsFetchTask = new AircraftsFetchTask(mAircraftsSourceURL, mAircraftsUser, mAircraftsPassword, mAircraftsDatabase,
-          mLocation) {
+        AircraftsFetchTask aircraftsFetchTask = new AircraftsFetchTask(mHttpClient, mAircraftsSourceURL, mAircraftsUser, mAircraftsPassword,
+          mAircraftsDatabase, mLocation) {
           @Override
           protected void onDone(List<Alert> aircrafts) {
+            int responseCode = getResponseCode();
+            onFetchDone(responseCode, isRequestFailed());
+            int creditTier = getCreditTier();
+            String rateLimitRemaining = getRateLimitRemaining();
+            String rateLimitRetryAfter = getRateLimitRetryAfter();
+            mHandler.postDelayed(() -> {
+              mAircraftsPollScheduler.onResponse(
+                responseCode, creditTier, rateLimitRemaining, rateLimitRetryAfter, aircrafts != null ? aircrafts.size() : 0);
+            }, MESSAGE_TOKEN, 1);
+
             if(aircrafts == null) {
               Log.i(TAG, "aircraftsFetchTask.onDone null aircraft state vectors");
-              if(retryCount < Configuration.AIRCRAFTS_CHECK_RETRY_COUNT) {
+              if(responseCode != AircraftsPollScheduler.HTTP_TOO_MANY_REQUESTS && retryCount < Configuration.AIRCRAFTS_CHECK_RETRY_COUNT) {
                 // Retry a few times before giving up, to work around short
-                // lived connectivity issues
+                // lived connectivity issues, but back off when rate limited
                 Log.i(TAG, "post retry checkForAircrafts()");
                 mHandler.postDelayed(() -> {
-                  checkForReports(retryCount + 1);
+                  checkForAircrafts(retryCount + 1);
                 }, MESSAGE_TOKEN, Configuration.AIRCRAFTS_CHECK_RETRY_TIMER);
               }
               else {
                 onAircraftsData(null);
+                scheduleCheckForAircrafts();
               }
             }
             else {
               Log.i(TAG, String.format("aircraftsFetchTask.onDone %d aircraft state vectors", aircrafts.size()));
               onAircraftsData(aircrafts);
+              scheduleCheckForAircrafts();
             }
           }
         };
@@ -810,68 +961,68 @@ public class AlertsActivity extends DS1ServiceActivity {
       }
       else {
         onAircraftsData(null);
+        scheduleCheckForAircrafts();
       }
     }
     else {
       onAircraftsData(null);
+      scheduleCheckForAircrafts();
     }
   }
 
+  private void scheduleCheckForAircrafts() {
+    mHandler.postDelayed(() -> {
+      // Poll sooner when the vehicle is fast as it covers more ground
+      // between polls
+      float speed = mLocation != null && mLocation.hasSpeed() ? mLocation.getSpeed() : 0.0f;
+      long interval = mAircraftsPollScheduler.getNextInterval(speed, System.currentTimeMillis());
+      Log.i(
+        TAG, String.format(
+          "post checkForAircrafts() in %d ms, remaining credits %d", interval, mAircraftsPollScheduler.getRemainingCredits()));
+      mHandler.postDelayed(mCheckForAircraftsTask, MESSAGE_TOKEN, interval);
+    }, MESSAGE_TOKEN, 1);
+  }
+
   protected void onAircraftsData(List<Alert> aircrafts) {
-    if(aircrafts == null) {
+    if(!onAircraftsActive(aircrafts != null)) {
+      return;
+    }
+    mAlertsPipelineHandler.post(() -> {
+      publishAircrafts(mLiveAlerts.setAircrafts(aircrafts));
+    });
+  }
+
+  /**
+   * Announce aircrafts availability changes, return true if aircrafts are
+   * available.
+   */
+  private boolean onAircraftsActive(boolean active) {
+    if(!active) {
       mAircraftsActiveImage.setColorFilter(Color.DKGRAY);
       if(mAircraftsActive != 0) {
         mAircraftsActive = 0;
         mSpeechService.announceEvent("Aircraft alerts are off", () -> {
         });
       }
-      return;
+      return false;
     }
-    else {
-      mAircraftsActiveImage.setColorFilter(Color.LTGRAY);
-      if(mAircraftsActive == 0) {
-        mAircraftsActive = 2;
-        mSpeechService.announceEvent("Aircraft alerts are back on", () -> {
-        });
-      }
-      else if(mAircraftsActive == 1) {
-        mAircraftsActive = 2;
-        mSpeechService.announceEvent("Aircraft alerts are on", () -> {
-        });
-      }
+    mAircraftsActiveImage.setColorFilter(Color.LTGRAY);
+    if(mAircraftsActive == 0) {
+      mAircraftsActive = 2;
+      mSpeechService.announceEvent("Aircraft alerts are back on", () -> {
+      });
+    }
+    else if(mAircraftsActive == 1) {
+      mAircraftsActive = 2;
+      mSpeechService.announceEvent("Aircraft alerts are on", () -> {
+      });
     }
+    return true;
+  }
 
+  private void publishAircrafts(AlertsSnapshot snapshot) {
     mHandler.postDelayed(() -> {
-      // Filter out reports beyond configured distance
-      List<Alert> inRangeAircrafts = new ArrayList<>();
-      for(Alert aircraft : aircrafts) {
-        if(aircraft.distance <= Configuration.AIRCRAFTS_MAX_DISTANCE) {
-          inRangeAircrafts.add(aircraft);
-        }
-      }
-
-      // Update existing aircraft state vectors with their new position
-      List<Alert> newAircrafts = new ArrayList<>();
-      List<Alert> mAircrafts = mAlertsAdapter.getAircraftAlerts();
-      for(Alert aircraft : inRangeAircrafts) {
-        for(Alert mAircraft : mAircrafts) {
-          if(aircraft.isSameAircraft(mAircraft)) {
-            Log.i(TAG, String.format("existing aircraft state vector with new distance %f", aircraft.distance));
-            mAircraft.distance = aircraft.distance;
-            mAircraft.latitude = aircraft.latitude;
-            mAircraft.longitude = aircraft.longitude;
-            mAircraft.bearing = aircraft.bearing;
-            aircraft = mAircraft;
-            break;
-          }
-        }
-        newAircrafts.add(aircraft);
-      }
-
-      // Sort aircraft state vectors by priority
-      newAircrafts.sort(Comparator.comparingInt(o -> o.priority));
-
-      mAlertsAdapter.setAircraftAlerts(newAircrafts, () -> {
+      mAlertsAdapter.setAircraftAlerts(snapshot, () -> {
       });
     }, MESSAGE_TOKEN, 1);
   }
@@ -21,6 +21,7 @@ package com.jsd.x761.nexus;
 
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -29,17 +30,23 @@ import android.widget.ProgressBar;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.jsd.x761.nexus.Nexus.R;
 
-import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 
 /**
- * A view adapter that displays and announce a list of alerts.
+ * A view adapter that displays and announce a list of alerts, from the
+ * snapshots of the live alerts published by the alerts pipeline. It's only
+ * used from the main thread. The snapshots are diffed on a background
+ * thread to only bind the alerts that changed, and only the parts of them
+ * that changed. The announcements of the radar alerts, reports and
+ * aircrafts are played one at a time by priority, see
+ * AnnouncementScheduler.
  */
 public class AlertsAdapter extends RecyclerView.Adapter<AlertsAdapter.ViewHolder> {
   private static final String TAG = "ALERTS_ADAPTER";
@@ -48,77 +55,80 @@ public class AlertsAdapter extends RecyclerView.Adapter<AlertsAdapter.ViewHolder
   private final AlertsActivity mActivity;
   private final SpeechService mSpeechService;
   private final Handler mHandler = new Handler(Looper.getMainLooper());
-  private final List<Alert> mRadarAlerts = new ArrayList<>();
-  private final List<Alert> mReportAlerts = new ArrayList<>();
-  private final List<Alert> mAircraftAlerts = new ArrayList<>();
-  private final List<Alert> mItems = new ArrayList<>();
+  private AlertsSnapshot mSnapshot = AlertsSnapshot.EMPTY;
+  private final AsyncListDiffer<Alert> mDiffer = new AsyncListDiffer<>(this, new DiffUtil.ItemCallback<Alert>() {
+    @Override
+    public boolean areItemsTheSame(@NonNull Alert alert, @NonNull Alert newAlert) {
+      return AlertsDiff.isSameAlert(alert, newAlert);
+    }
+
+    @Override
+    public boolean areContentsTheSame(@NonNull Alert alert, @NonNull Alert newAlert) {
+      return AlertsDiff.getChanges(alert, newAlert) == 0;
+    }
+
+    @Override
+    public Object getChangePayload(@NonNull Alert alert, @NonNull Alert newAlert) {
+      // Bind the whole alert again when more than its strength, distance or
+      // bearing changed
+      int changes = AlertsDiff.getChanges(alert, newAlert);
+      return (changes & AlertsDiff.CHANGE_ALL) == 0 ? changes : null;
+    }
+  });
   private Runnable mReportsReminderTask;
   private Runnable mAircraftsReminderTask;
   private final String mReportsSourceName;
   private boolean mReportsAllClear = true;
   private boolean mAircraftsAllClear = true;
   private Runnable mAllClearTask;
+  private final AnnouncementScheduler mAnnouncementScheduler = new AnnouncementScheduler();
+  private long mAudioFocusLease;
 
   public AlertsAdapter(AlertsActivity activity, SpeechService speechService, String reportsSourceName) {
     mActivity = activity;
     mSpeechService = speechService;
     mReportsSourceName = reportsSourceName;
+    setHasStableIds(true);
 
     // Play reminders regularly while there are active reports and aircraft
     // state vectors
     mReportsReminderTask = () -> {
-      if(mReportAlerts.size() > 0) {
+      List<Alert> reportAlerts = mSnapshot.getReportAlerts();
+      if(reportAlerts.size() > 0) {
         List<Alert> announces = new ArrayList<>();
-        announces.add(mReportAlerts.get(0));
-
-        // Announce the reports
-        Log.i(TAG, "playAlertAnnounce() report pos 0");
-        AlertsAdapter.this.playAlertAnnounce(
-          announces, "report", 0, false, 0, 1, (audioFocus) -> {
-
-            // Abandon audio focus once done
-            if(audioFocus) {
-              Log.i(TAG, "abandonAudioFocus()");
-              mSpeechService.abandonAudioFocus(() -> {
-                Log.i(TAG, "setReportAlerts.onDone.run()");
-              });
-            }
-          });
+        announces.add(reportAlerts.get(0));
+
+        // Remind of the first report
+        Log.i(TAG, "announceAlerts() report reminder");
+        AlertsAdapter.this.announceAlerts(announces, 0, 1, () -> {
+        });
       }
       mHandler.postDelayed(mReportsReminderTask, MESSAGE_TOKEN, Configuration.REPORTS_REMINDER_TIMER);
     };
     mHandler.postDelayed(mReportsReminderTask, MESSAGE_TOKEN, Configuration.REPORTS_REMINDER_TIMER);
 
     mAircraftsReminderTask = () -> {
-      if(mAircraftAlerts.size() > 0) {
+      List<Alert> aircraftAlerts = mSnapshot.getAircraftAlerts();
+      if(aircraftAlerts.size() > 0) {
         List<Alert> announces = new ArrayList<>();
-        announces.add(mAircraftAlerts.get(0));
-
-        // Announce the aircraft state vectors
-        Log.i(TAG, "playAlertAnnounce() report pos 0");
-        AlertsAdapter.this.playAlertAnnounce(
-          announces, "aircraft", 0, false, 0, 1, (audioFocus) -> {
-
-            // Abandon audio focus once done
-            if(audioFocus) {
-              Log.i(TAG, "abandonAudioFocus()");
-              mSpeechService.abandonAudioFocus(() -> {
-                Log.i(TAG, "setReportAlerts.onDone.run()");
-              });
-            }
-          });
+        announces.add(aircraftAlerts.get(0));
+
+        // Remind of the first aircraft state vector
+        Log.i(TAG, "announceAlerts() aircraft reminder");
+        AlertsAdapter.this.announceAlerts(announces, 0, 1, () -> {
+        });
       }
       mHandler.postDelayed(mAircraftsReminderTask, MESSAGE_TOKEN, Configuration.AIRCRAFTS_REMINDER_TIMER);
     };
     mHandler.postDelayed(mAircraftsReminderTask, MESSAGE_TOKEN, Configuration.AIRCRAFTS_REMINDER_TIMER);
 
     mAllClearTask = () -> {
-      if(mReportAlerts.size() == 0 && !mReportsAllClear) {
+      if(mSnapshot.getReportAlerts().size() == 0 && !mReportsAllClear) {
         mReportsAllClear = true;
         mSpeechService.announceEvent(String.format("%s alerts are all clear now", mReportsSourceName), () -> {
         });
       }
-      if(mAircraftAlerts.size() == 0 && !mAircraftsAllClear) {
+      if(mSnapshot.getAircraftAlerts().size() == 0 && !mAircraftsAllClear) {
         mAircraftsAllClear = true;
         mSpeechService.announceEvent("Aircraft alerts are all clear now", () -> {
         });
@@ -137,516 +147,209 @@ public class AlertsAdapter extends RecyclerView.Adapter<AlertsAdapter.ViewHolder
   }
 
   @Override
-  public void onBindViewHolder(@NonNull ViewHolder vh, int pos) {
-    Log.i(TAG, String.format("onCreateViewHolder pos %d", pos));
-
-    Alert alert = mItems.get(pos);
-
-    // Show the class of alert
-    String alertClass = "";
-    switch(alert.alertClass) {
-      case Alert.ALERT_CLASS_RADAR:
-        alertClass = "Radar";
-        break;
-      case Alert.ALERT_CLASS_LASER:
-        alertClass = "Laser";
-        break;
-      case Alert.ALERT_CLASS_SPEED_CAM:
-        alertClass = "Speed Cam";
-        break;
-      case Alert.ALERT_CLASS_RED_LIGHT_CAM:
-        alertClass = "Red Light Cam";
-        break;
-      case Alert.ALERT_CLASS_USER_MARK:
-        alertClass = "User Mark";
-        break;
-      case Alert.ALERT_CLASS_LOCKOUT:
-        alertClass = "Lockout";
-        break;
-      case Alert.ALERT_CLASS_REPORT:
-        if("POLICE".equals(alert.type)) {
-          alertClass = "Speed Trap";
-        }
-        else if("ACCIDENT".equals(alert.type)) {
-          alertClass = "Accident";
-        }
-        else {
-          alertClass = "Hazard";
-        }
-        break;
-      case Alert.ALERT_CLASS_AIRCRAFT:
-        alertClass = alert.type;
-        break;
+  public void onBindViewHolder(@NonNull ViewHolder vh, int pos, @NonNull List<Object> payloads) {
+    if(payloads.isEmpty()) {
+      onBindViewHolder(vh, pos);
+      return;
     }
 
-    if(alert.alertClass == Alert.ALERT_CLASS_RADAR) {
-      // For radar alerts, show the alert intensity, band, frequency and a
-      // default 12 o'clock direction as the DS1 isn't directional
-      vh.typeText.setText(alertClass);
-      vh.strengthProgressBar.setProgress((int)alert.intensity);
-
-      String band = switch(alert.band) {
-        case 0 -> "X band";
-        case 1 -> "K band";
-        case 2 -> "Ka band";
-        case 3 -> "Pop K band";
-        case 4 -> "MRCD";
-        case 5 -> "MRCT";
-        case 6 -> "GT3";
-        case 7 -> "GT4";
-        default -> "";
-      };
-      vh.banddOrLocationText.setText(band);
-
-      if(alert.frequency < 1) {
-        vh.frequencyOrDistanceText.setText("");
-      }
-      else {
-        DecimalFormat df = new DecimalFormat("0.#");
-        vh.frequencyOrDistanceText.setText(String.format("%s GHz", df.format(alert.frequency)));
-      }
-      vh.bearingText.setText("12 o'clock");
+    // Only bind the parts of the alert that changed
+    Alert alert = mDiffer.getCurrentList().get(pos);
+    int changes = 0;
+    for(Object payload : payloads) {
+      changes |= (Integer)payload;
     }
-    else if(alert.alertClass == Alert.ALERT_CLASS_LASER) {
-      // For laser alerts, show a max intensity and a default 12 o'clock
-      // direction
-      vh.typeText.setText(alertClass);
-      vh.strengthProgressBar.setProgress(100);
-      vh.bearingText.setText("12 o'clock");
-      vh.frequencyOrDistanceText.setText("Lidar");
-      vh.banddOrLocationText.setText("");
+    Log.i(TAG, String.format("onBindViewHolder pos %d changes %d", pos, changes));
+    AlertText text = AlertText.get(alert);
+    if((changes & AlertsDiff.CHANGE_STRENGTH) != 0) {
+      vh.strengthProgressBar.setProgress(AlertsDiff.getStrength(alert));
     }
-    else if(alert.alertClass == Alert.ALERT_CLASS_REPORT) {
-      // For crow-sourced reports, show the report direction in clock bearing
-      // format, the distance and the reported street or city
-      vh.typeText.setText(alertClass);
-      vh.frequencyOrDistanceText.setText("");
-      vh.bearingText.setText(String.format("%d o'clock", alert.bearing));
-      vh.strengthProgressBar.setProgress(Math.round(Geospatial.getStrength(alert.distance, Configuration.REPORTS_MAX_DISTANCE) * 100.0f));
-      String locationText;
-      if(alert.street.length() != 0) {
-        if("POLICE_HIDING".equals(alert.subType)) {
-          locationText = String.format("hidden on %s", alert.street);
-        }
-        else {
-          locationText = String.format("on %s", alert.street);
-        }
-      }
-      else if(alert.city.length() != 0) {
-        if("POLICE_HIDING".equals(alert.subType)) {
-          locationText = String.format("hidden in %s", alert.city);
-        }
-        else {
-          locationText = String.format("in %s", alert.city);
-        }
-      }
-      else {
-        if("POLICE_HIDING".equals(alert.subType)) {
-          locationText = "hidden at unknown location";
-        }
-        else {
-          locationText = "at unknown location";
-        }
-      }
-      vh.banddOrLocationText.setText(locationText);
-      if(alert.distance != 0) {
-        DecimalFormat df = new DecimalFormat("0.#");
-        float distance = alert.distance;
-        if(Configuration.DEMO) {
-          distance = Math.min(alert.distance, Configuration.DEMO_REPORTS_MAX_ANNOUNCED_DISTANCE);
-        }
-        vh.frequencyOrDistanceText.setText(String.format("%s %s", df.format(distance), distance >= 2.0f ? "miles" : "mile"));
-      }
-      else {
-        vh.frequencyOrDistanceText.setText("");
-      }
+    if((changes & AlertsDiff.CHANGE_DISTANCE) != 0) {
+      vh.frequencyOrDistanceText.setText(text.frequencyOrDistanceText);
     }
-    else if(alert.alertClass == Alert.ALERT_CLASS_AIRCRAFT) {
-      // For aircraft vector states, show the report direction in clock bearing
-      // format, the distance and the reported street or city
-      if(alert.manufacturer.length() != 0) {
-        String manufacturer = alert.manufacturer.substring(0, 1).toUpperCase() + alert.manufacturer.substring(1).toLowerCase();
-        vh.typeText.setText(String.format("%s %s", manufacturer, alertClass));
-      }
-      else {
-        vh.typeText.setText(alertClass);
-      }
-      vh.frequencyOrDistanceText.setText("");
-      vh.bearingText.setText(String.format("%d o'clock", alert.bearing));
-      vh.strengthProgressBar.setProgress(Math.round(Geospatial.getStrength(alert.distance, Configuration.AIRCRAFTS_MAX_DISTANCE) * 100.0f));
-      vh.banddOrLocationText.setText(alert.owner.length() != 0 ? alert.owner : "unidentified");
-      if(alert.distance != 0) {
-        DecimalFormat df = new DecimalFormat("0.#");
-        float distance = alert.distance;
-        if(Configuration.DEMO) {
-          distance = Math.min(alert.distance, Configuration.DEMO_AIRCRAFTS_MAX_ANNOUNCED_DISTANCE);
-        }
-        vh.frequencyOrDistanceText.setText(String.format("%s %s", df.format(distance), distance >= 2.0f ? "miles" : "mile"));
-      }
-      else {
-        vh.frequencyOrDistanceText.setText("");
-      }
-    }
-    else {
-      // For other types of alerts, just show a max intensity and a default
-      // 12 o'clock direction
-      vh.typeText.setText(alertClass);
-      vh.strengthProgressBar.setProgress(100);
-      vh.bearingText.setText("12 o'clock");
-      vh.frequencyOrDistanceText.setText("");
-      vh.banddOrLocationText.setText("");
+    if((changes & AlertsDiff.CHANGE_BEARING) != 0) {
+      vh.bearingText.setText(text.bearingText);
     }
   }
 
   @Override
-  public int getItemCount() {
-    return mItems.size();
-  }
+  public void onBindViewHolder(@NonNull ViewHolder vh, int pos) {
+    Log.i(TAG, String.format("onCreateViewHolder pos %d", pos));
 
-  public List<Alert> getRadarAlerts() {
-    return mRadarAlerts;
+    // Show the class of alert, its strength, band or location, frequency or
+    // distance and direction, from the text rendered by the alerts pipeline
+    Alert alert = mDiffer.getCurrentList().get(pos);
+    AlertText text = AlertText.get(alert);
+    vh.typeText.setText(text.typeText);
+    vh.strengthProgressBar.setProgress(AlertsDiff.getStrength(alert));
+    vh.banddOrLocationText.setText(text.bandOrLocationText);
+    vh.frequencyOrDistanceText.setText(text.frequencyOrDistanceText);
+    vh.bearingText.setText(text.bearingText);
   }
 
-  public List<Alert> getReportAlerts() {
-    return mReportAlerts;
+  @Override
+  public int getItemCount() {
+    return mDiffer.getCurrentList().size();
   }
 
-  public List<Alert> getAircraftAlerts() {
-    return mAircraftAlerts;
+  @Override
+  public long getItemId(int pos) {
+    return mDiffer.getCurrentList().get(pos).id;
   }
 
-  private void playEarconAnnounce(List<Alert> alerts, int pos, boolean audioFocus, int maxEarcons, PlayAlertAnnounceOnDone onDone) {
-    Log.i(TAG, String.format("playEarconAnnounce %d", pos));
-    if(pos >= maxEarcons) {
-      mHandler.postDelayed(() -> {
-        Log.i(TAG, String.format("playEarconAnnounce.onDone.run() %b", audioFocus));
-        onDone.run(audioFocus);
-      }, MESSAGE_TOKEN, 1);
-      return;
-    }
-
-    Alert alert = alerts.get(pos);
-
-    if(alert.alertClass == Alert.ALERT_CLASS_REPORT) {
-      if(!Configuration.REPORTS_EARCON_REMINDER) {
-        if(alert.announced > 0) {
-          Log.i(TAG, String.format("report alert earcon played %d", alert.announced));
-          mHandler.postDelayed(() -> {
-            Log.i(TAG, "playEarconAnnounce.onDone.run()");
-            onDone.run(audioFocus);
-          }, MESSAGE_TOKEN, 1);
-          return;
-        }
-      }
-    }
-
-    if(alert.alertClass == Alert.ALERT_CLASS_AIRCRAFT) {
-      if(!Configuration.AIRCRAFTS_EARCON_REMINDER) {
-        if(alert.announced > 0) {
-          Log.i(TAG, String.format("aircraft alert earcon played %d", alert.announced));
-          mHandler.postDelayed(() -> {
-            Log.i(TAG, "playEarconAnnounce.onDone.run()");
-            onDone.run(audioFocus);
-          }, MESSAGE_TOKEN, 1);
-          return;
-        }
-      }
-    }
+  private void setSnapshot(AlertsSnapshot snapshot) {
+    mSnapshot = snapshot;
+    mDiffer.submitList(snapshot.getItems());
+  }
 
-    String earcon;
-    if(alert.alertClass == Alert.ALERT_CLASS_RADAR) {
-      earcon = switch(alert.band) {
-        case Alert.ALERT_BAND_X -> "[s2]";
-        case Alert.ALERT_BAND_K, Alert.ALERT_BAND_POP_K -> "[s4]";
-        case Alert.ALERT_BAND_KA -> "[s3]";
-        case Alert.ALERT_BAND_MRCD, Alert.ALERT_BAND_MRCT -> "[s10]";
-        case Alert.ALERT_BAND_GT3, Alert.ALERT_BAND_GT4 -> "[s6]";
-        default -> "[s6]";
-      };
-    }
-    else {
-      earcon = switch(alert.alertClass) {
-        case Alert.ALERT_CLASS_LASER -> "[s5]";
-        case Alert.ALERT_CLASS_SPEED_CAM, Alert.ALERT_CLASS_RED_LIGHT_CAM -> "s10";
-        case Alert.ALERT_CLASS_REPORT -> "[s8]";
-        case Alert.ALERT_CLASS_USER_MARK, Alert.ALERT_CLASS_LOCKOUT -> "[s9]";
-        case Alert.ALERT_CLASS_AIRCRAFT -> "[s7]";
-        default -> "[s6]";
-      };
+  private static boolean shouldPlayEarcon(Alert alert) {
+    if(alert.alertClass == Alert.ALERT_CLASS_REPORT && !Configuration.REPORTS_EARCON_REMINDER && alert.announced > 0) {
+      Log.i(TAG, String.format("report alert earcon played %d", alert.announced));
+      return false;
     }
-
-
-    // Play the sound indicating the class of alert on the voice call stream
-    Runnable playTask = () -> {
-      mSpeechService.playEarcon(earcon);
-      mHandler.postDelayed(() -> {
-        Log.i(TAG, String.format("playEarconAnnounce.onDone.run() %b", true));
-        onDone.run(true);
-      }, MESSAGE_TOKEN, Configuration.AUDIO_EARCON_TIMER);
-    };
-    if(!audioFocus) {
-      mSpeechService.requestAudioFocus(() -> {
-        playTask.run();
-      });
-    }
-    else {
-      playTask.run();
+    if(alert.alertClass == Alert.ALERT_CLASS_AIRCRAFT && !Configuration.AIRCRAFTS_EARCON_REMINDER && alert.announced > 0) {
+      Log.i(TAG, String.format("aircraft alert earcon played %d", alert.announced));
+      return false;
     }
+    return true;
   }
 
-  protected void playSpeechAnnounce(List<Alert> alerts, int pos, boolean audioFocus, int maxSpeech, PlayAlertAnnounceOnDone onDone) {
-    Log.i(TAG, String.format("playSpeechAnnounce %d", pos));
-    if(pos >= maxSpeech) {
-      mHandler.postDelayed(() -> {
-        Log.i(TAG, "playSpeechAnnounce.onDone.run()");
-        onDone.run(audioFocus);
-      }, MESSAGE_TOKEN, 1);
-      return;
-    }
-
-    Alert alert = alerts.get(pos);
+  private static boolean shouldPlaySpeech(Alert alert) {
     if(alert.announced > 1) {
       Log.i(TAG, String.format("alert announced %d", alert.announced));
-      mHandler.postDelayed(() -> {
-        Log.i(TAG, "playSpeechAnnounce.onDone.run()");
-        onDone.run(audioFocus);
-      }, MESSAGE_TOKEN, 1);
-      return;
-    }
-
-    String alertClass = "";
-    switch(alert.alertClass) {
-      case Alert.ALERT_CLASS_RADAR:
-        alertClass = "Radar";
-        break;
-      case Alert.ALERT_CLASS_LASER:
-        alertClass = "Laser";
-        break;
-      case Alert.ALERT_CLASS_SPEED_CAM:
-        alertClass = "Speed Cam";
-        break;
-      case Alert.ALERT_CLASS_RED_LIGHT_CAM:
-        alertClass = "Red Light Cam";
-        break;
-      case Alert.ALERT_CLASS_USER_MARK:
-        alertClass = "User Mark";
-        break;
-      case Alert.ALERT_CLASS_LOCKOUT:
-        alertClass = "Lockout";
-        break;
-      case Alert.ALERT_CLASS_REPORT:
-        if("POLICE".equals(alert.type)) {
-          alertClass = "Speed Trap";
-        }
-        else if("ACCIDENT".equals(alert.type)) {
-          alertClass = "Accident";
-        }
-        else {
-          alertClass = "Hazard";
-        }
-        break;
-      case Alert.ALERT_CLASS_AIRCRAFT:
-        alertClass = alert.type;
-        break;
+      return false;
     }
+    return true;
+  }
 
-    String speech = "";
-    if(alert.alertClass == Alert.ALERT_CLASS_RADAR) {
-      // For radar alerts, the speech announce includes the class of
-      // alert, the band and frequency
-      String band = switch(alert.band) {
-        case Alert.ALERT_BAND_X -> "X band";
-        case Alert.ALERT_BAND_K -> "K band";
-        case Alert.ALERT_BAND_KA -> "K A band";
-        case Alert.ALERT_BAND_POP_K -> "Pop K band";
-        case Alert.ALERT_BAND_MRCD -> "M R C D";
-        case Alert.ALERT_BAND_MRCT -> "M R C T";
-        case Alert.ALERT_BAND_GT3 -> "G T 3";
-        case Alert.ALERT_BAND_GT4 -> "G T 4";
-        default -> "";
-      };
-
-      speech += band;
-      if(alert.frequency >= 1) {
-        DecimalFormat df = new DecimalFormat("0.#");
-        speech += String.format(" %s", df.format(alert.frequency));
+  /**
+   * Schedule the announcements of a list of alerts, with an earcon and a
+   * speech for the first alerts up to the given counts, and run onDone once
+   * they're all played or dropped.
+   */
+  private void announceAlerts(List<Alert> alerts, int maxSpeech, int maxEarcons, Runnable onDone) {
+    boolean[] earcons = new boolean[alerts.size()];
+    boolean[] speeches = new boolean[alerts.size()];
+    int count = 0;
+    for(int pos = 0; pos < alerts.size(); pos++) {
+      earcons[pos] = pos < maxEarcons && shouldPlayEarcon(alerts.get(pos));
+      speeches[pos] = pos < maxSpeech && shouldPlaySpeech(alerts.get(pos));
+      if(earcons[pos] || speeches[pos]) {
+        count++;
       }
-      speech += String.format(" %s", alertClass);
     }
-    else if(alert.alertClass == Alert.ALERT_CLASS_REPORT) {
-      // For crowd-sourced reports, the speech announce includes the class
-      // of alert, the direction in clock bearing form, the distance and the
-      // reported street or city
-      speech += alertClass;
-      if(alert.announced > 1) {
-        speech += " now";
-      }
-      if(alert.bearing != 0) {
-        speech += String.format(" at %d o'clock", alert.bearing);
-      }
-      if(alert.distance != 0) {
-        DecimalFormat df = new DecimalFormat("0.#");
-        float distance = alert.distance;
-        if(Configuration.DEMO) {
-          distance = Math.min(alert.distance, Configuration.DEMO_REPORTS_MAX_ANNOUNCED_DISTANCE);
-        }
-        speech += String.format(" %s %s away", df.format(distance), distance >= 2.0f ? "miles" : "mile");
-      }
-      String locationText;
-      if(alert.street.length() != 0) {
-        if("POLICE_HIDING".equals(alert.subType)) {
-          locationText = String.format("hidden on %s", alert.street);
-        }
-        else {
-          locationText = String.format("on %s", alert.street);
-        }
-      }
-      else if(alert.city.length() != 0) {
-        if("POLICE_HIDING".equals(alert.subType)) {
-          locationText = String.format("hidden in %s", alert.city);
-        }
-        else {
-          locationText = String.format("in %s", alert.city);
-        }
+    if(count == 0) {
+      onDone.run();
+      return;
+    }
+
+    int[] remaining = {count};
+    Runnable onAnnounceDone = () -> {
+      remaining[0]--;
+      if(remaining[0] == 0) {
+        onDone.run();
       }
-      else {
-        if("POLICE_HIDING".equals(alert.subType)) {
-          locationText = "hidden at unknown location";
-        }
-        else {
-          locationText = "at unknown location";
-        }
+    };
+    long time = SystemClock.elapsedRealtime();
+    boolean preempt = false;
+    for(int pos = 0; pos < alerts.size(); pos++) {
+      if(earcons[pos] || speeches[pos]) {
+        preempt |= mAnnouncementScheduler.add(alerts.get(pos), earcons[pos], speeches[pos], onAnnounceDone, time);
       }
+    }
 
-      speech += String.format(" %s", locationText);
+    // Interrupt a less urgent announcement in progress, it completes right
+    // away and the urgent announcement is played next
+    if(preempt) {
+      Log.i(TAG, "stopSpeech()");
+      mSpeechService.stopSpeech();
     }
-    else if(alert.alertClass == Alert.ALERT_CLASS_AIRCRAFT) {
-      // For aircraft state vectors, the speech announce includes the
-      // class of alert, the direction in clock bearing form, the distance and
-      // the reported street or city
-      if(alert.owner.length() != 0) {
-        speech += alert.owner;
-      }
-      else {
-        speech += "Unidentified";
-      }
-      if(alert.manufacturer.length() != 0) {
-        String manufacturer = alert.manufacturer.substring(0, 1).toUpperCase() + alert.manufacturer.substring(1).toLowerCase();
-        speech += String.format(" %s", manufacturer);
-      }
-      speech += String.format(" %s", alertClass);
-      if(alert.announced > 1) {
-        speech += " now";
-      }
-      if(alert.bearing != 0) {
-        speech += String.format(" at %d o'clock", alert.bearing);
-      }
-      if(alert.distance != 0) {
-        DecimalFormat df = new DecimalFormat("0.#");
-        float distance = alert.distance;
-        if(Configuration.DEMO) {
-          distance = Math.min(alert.distance, Configuration.DEMO_AIRCRAFTS_MAX_ANNOUNCED_DISTANCE);
-        }
-        speech += String.format(" %s %s away", df.format(distance), distance >= 2.0f ? "miles" : "mile");
+    playNextAnnounce();
+  }
+
+  private void playNextAnnounce() {
+    AnnouncementScheduler.Announcement announcement = mAnnouncementScheduler.next(SystemClock.elapsedRealtime());
+    if(announcement == null) {
+      // Abandon audio focus once all the announcements are done
+      if(mAudioFocusLease != 0 && mAnnouncementScheduler.isIdle()) {
+        Log.i(TAG, "abandonAudioFocus()");
+        mSpeechService.abandonAudioFocus(mAudioFocusLease);
+        mAudioFocusLease = 0;
       }
+      return;
     }
-    else {
-      // For other classes of alerts, the speech announce just includes
-      // the alert class
-      speech += alertClass;
+    Log.i(TAG, String.format(
+      "playNextAnnounce alert %d priority %d, queue depth %d, average delay %d ms, max delay %d ms, coalesced %d, dropped %d, preempted %d",
+      announcement.getAlert().id, announcement.priority, mAnnouncementScheduler.getQueueDepth(), mAnnouncementScheduler.getAverageDelay(),
+      mAnnouncementScheduler.getMaxDelay(), mAnnouncementScheduler.getCoalescedCount(), mAnnouncementScheduler.getDroppedCount(),
+      mAnnouncementScheduler.getPreemptedCount()));
+
+    // Renew the audio focus lease for each announcement so a long series of
+    // announcements doesn't time it out, audio focus stays held meanwhile
+    Log.i(TAG, "requestAudioFocus()");
+    long lease = mSpeechService.requestAudioFocus();
+    if(mAudioFocusLease != 0) {
+      mSpeechService.abandonAudioFocus(mAudioFocusLease);
     }
-
-    // Play the speech announce on the voice call stream
-    String uuid = UUID.randomUUID().toString();
-    mSpeechService.addOnUtteranceProgressCallback(uuid, () -> {
-      Log.i(TAG, String.format("UtteranceProgressListener.onDone %s", uuid));
-      mSpeechService.removeOnUtteranceProgressCallback(uuid);
-      Log.i(TAG, "playSpeechAnnounce.onDone.run()");
-      onDone.run(true);
+    mAudioFocusLease = lease;
+
+    // Play a sound then a speech announce for the alert, then announce the
+    // next alert
+    playEarconAnnounce(announcement, () -> {
+      playSpeechAnnounce(announcement, () -> {
+        Log.i(TAG, String.format("playNextAnnounce.onDone.run() alert %d", announcement.getAlert().id));
+        mAnnouncementScheduler.onDone(announcement);
+        mHandler.postDelayed(this::playNextAnnounce, MESSAGE_TOKEN, 1);
+      });
     });
+  }
 
-    String playSpeech = speech;
-    Runnable playTask = () -> {
-      mSpeechService.playSpeech(playSpeech, uuid);
-    };
-    if(!audioFocus) {
-      mSpeechService.requestAudioFocus(() -> {
-        playTask.run();
-      });
-    }
-    else {
-      playTask.run();
+  private void playEarconAnnounce(AnnouncementScheduler.Announcement announcement, Runnable onDone) {
+    if(!announcement.hasEarcon() || announcement.isPreempted()) {
+      onDone.run();
+      return;
     }
-  }
 
-  protected interface PlayAlertAnnounceOnDone {
-    void run(boolean audioFocus);
+    // Play the sound indicating the class of alert
+    Alert alert = announcement.getAlert();
+    Log.i(TAG, String.format("playEarconAnnounce alert %d", alert.id));
+    mSpeechService.playEarcon(Earcons.getEarcon(alert), Earcons.isUrgent(alert), onDone);
   }
 
-  protected void playAlertAnnounce(
-    List<Alert> alerts, String type, int pos, boolean audioFocus, int maxSpeech, int maxEarcons, PlayAlertAnnounceOnDone onDone) {
-    Log.i(TAG, String.format("playAlertAnnounce %s pos %d %b", type, pos, audioFocus));
-    if(pos == alerts.size()) {
-      mHandler.postDelayed(() -> {
-        Log.i(TAG, String.format("playAlertAnnounce.onDone.run() %b", audioFocus));
-        onDone.run(audioFocus);
-      }, MESSAGE_TOKEN, 1);
+  private void playSpeechAnnounce(AnnouncementScheduler.Announcement announcement, Runnable onDone) {
+    if(!announcement.hasSpeech() || announcement.isPreempted()) {
+      onDone.run();
       return;
     }
 
-    // Play a sound for each alert
-    Log.i(TAG, String.format("playEarconAnnounce() %s %d", type, pos));
-    playEarconAnnounce(alerts, pos, audioFocus, maxEarcons, (audioFocus2) -> {
-      // Play a speech announce for the alert
-      mHandler.postDelayed(() -> {
-        Log.i(TAG, String.format("playSpeechAnnounce() %s %d", type, pos));
-        playSpeechAnnounce(alerts, pos, audioFocus2, maxSpeech, (audioFocus3) -> {
-          mHandler.postDelayed(() -> {
-            // Announce the next alert
-            Log.i(TAG, String.format("playAlertAnnounce() %s %d %b", type, pos + 1, audioFocus3));
-            playAlertAnnounce(alerts, type, pos + 1, audioFocus3, maxSpeech, maxEarcons, onDone);
-          }, MESSAGE_TOKEN, 1);
-        });
-      }, MESSAGE_TOKEN, 1);
-    });
+    // The speech announce includes the class of alert, and depending on
+    // the class the band and frequency, or the direction, distance and
+    // location of the alert, as rendered by the alerts pipeline
+    Alert alert = announcement.getAlert();
+    Log.i(TAG, String.format("playSpeechAnnounce alert %d", alert.id));
+    String speech = AlertText.get(alert).speech;
+
+    // Play the speech announce on the voice call stream, its end is
+    // signaled from a speech engine thread
+    mSpeechService.playSpeech(speech, () -> mHandler.postDelayed(onDone, MESSAGE_TOKEN, 1));
   }
 
-  public void setRadarAlerts(List<Alert> alerts, Runnable onDone) {
+  /**
+   * Display a snapshot of the alerts following an update of the radar
+   * alerts and announce the alerts of the update.
+   */
+  public void setRadarAlerts(AlertsSnapshot snapshot, Runnable onDone) {
     Log.i(TAG, "setRadarAlerts");
-    // Combine alerts, reports and aircrafts in a single list of alerts
-    mRadarAlerts.clear();
-    mRadarAlerts.addAll(alerts);
-    mItems.clear();
-    mItems.addAll(mRadarAlerts);
-    mItems.addAll(mReportAlerts);
-    mItems.addAll(mAircraftAlerts);
-    mActivity.runOnUiThread(() -> notifyDataSetChanged());
-
-    if(mRadarAlerts.size() > 0) {
-      // Announce the alerts unless they've been muted
-      List<Alert> announces = new ArrayList<>();
-      for(Alert alert : mRadarAlerts) {
-        if(!alert.muted) {
-          alert.announced += 1;
-          announces.add(alert);
-        }
-      }
-      if(announces.size() != 0) {
-        // Announce the alerts
-        Log.i(TAG, "playAlertAnnounce() alert pos 0");
-        playAlertAnnounce(
-          announces, "alert", 0, false, Configuration.DS1_ALERTS_MAX_SPEECH_ANNOUNCES, Configuration.DS1_ALERTS_MAX_EARCON_ANNOUNCES, (audioFocus) -> {
-
-            // Abandon audio focus once done
-            if(audioFocus) {
-              Log.i(TAG, "abandonAudioFocus()");
-              mSpeechService.abandonAudioFocus(() -> {
-                Log.i(TAG, "setRadarAlerts.onDone.run()");
-                onDone.run();
-              });
-            }
-          });
-      }
+    setSnapshot(snapshot);
+
+    if(snapshot.getRadarAlerts().size() > 0) {
+      // Announce the alerts, onDone runs right away when there's nothing
+      // to announce
+      Log.i(TAG, "announceAlerts() alerts");
+      announceAlerts(snapshot.getAnnounces(), Configuration.DS1_ALERTS_MAX_SPEECH_ANNOUNCES, Configuration.DS1_ALERTS_MAX_EARCON_ANNOUNCES, () -> {
+        Log.i(TAG, "setRadarAlerts.onDone.run()");
+        onDone.run();
+      });
     }
     else {
       Log.i(TAG, "setRadarAlerts.onDone.run()");
@@ -654,54 +357,32 @@ public class AlertsAdapter extends RecyclerView.Adapter<AlertsAdapter.ViewHolder
     }
   }
 
-  public void setReportAlerts(List<Alert> reports, Runnable onDone) {
+  /**
+   * Display a snapshot of the alerts following an update of the reports and
+   * announce the reports of the update.
+   */
+  public void setReportAlerts(AlertsSnapshot snapshot, Runnable onDone) {
     Log.i(TAG, "setReportAlerts");
-    // Combine alerts, reports and aircrafts in a single list of alerts
-    mReportAlerts.clear();
-    mReportAlerts.addAll(reports);
-    mItems.clear();
-    mItems.addAll(mRadarAlerts);
-    mItems.addAll(mReportAlerts);
-    mItems.addAll(mAircraftAlerts);
-    mActivity.runOnUiThread(() -> notifyDataSetChanged());
-
-    if(mReportAlerts.size() > 0) {
-      mReportsAllClear = false;
+    setSnapshot(snapshot);
 
-      // Announce the reports if they've not been announced yet or if their
-      // distance or bearing has changed significantly since then
-      List<Alert> announces = new ArrayList<>();
-      for(Alert report : mReportAlerts) {
-        if(report.shouldAnnounceReport()) {
-          report.announced += 1;
-          report.announceDistance = report.distance;
-          report.announceBearing = report.bearing;
-          announces.add(report);
-        }
-      }
+    if(snapshot.getReportAlerts().size() > 0) {
+      mReportsAllClear = false;
 
+      List<Alert> announces = snapshot.getAnnounces();
       if(announces.size() != 0) {
-
         // Reschedule the reminder task for later as some reports are going
         // to be announced right away
         mHandler.removeCallbacks(mReportsReminderTask);
         mHandler.postDelayed(mReportsReminderTask, MESSAGE_TOKEN, Configuration.REPORTS_REMINDER_TIMER);
-
-        // Announce the reports
-        Log.i(TAG, "playAlertAnnounce() report pos 0");
-        playAlertAnnounce(
-          announces, "report", 0, false, Configuration.REPORTS_MAX_SPEECH_ANNOUNCES, Configuration.REPORTS_MAX_EARCON_ANNOUNCES, (audioFocus) -> {
-
-            // Abandon audio focus once done
-            if(audioFocus) {
-              Log.i(TAG, "abandonAudioFocus()");
-              mSpeechService.abandonAudioFocus(() -> {
-                Log.i(TAG, "setReportAlerts.onDone.run()");
-                onDone.run();
-              });
-            }
-          });
       }
+
+      // Announce the reports, onDone runs right away when there's nothing
+      // to announce
+      Log.i(TAG, "announceAlerts() reports");
+      announceAlerts(announces, Configuration.REPORTS_MAX_SPEECH_ANNOUNCES, Configuration.REPORTS_MAX_EARCON_ANNOUNCES, () -> {
+        Log.i(TAG, "setReportAlerts.onDone.run()");
+        onDone.run();
+      });
     }
     else {
       Log.i(TAG, "setReportAlerts.onDone.run()");
@@ -709,54 +390,32 @@ public class AlertsAdapter extends RecyclerView.Adapter<AlertsAdapter.ViewHolder
     }
   }
 
-  public void setAircraftAlerts(List<Alert> aircrafts, Runnable onDone) {
+  /**
+   * Display a snapshot of the alerts following an update of the aircrafts
+   * and announce the aircrafts of the update.
+   */
+  public void setAircraftAlerts(AlertsSnapshot snapshot, Runnable onDone) {
     Log.i(TAG, "setAircraftAlerts");
-    // Combine alerts, aircrafts and aircrafts in a single list of alerts
-    mAircraftAlerts.clear();
-    mAircraftAlerts.addAll(aircrafts);
-    mItems.clear();
-    mItems.addAll(mRadarAlerts);
-    mItems.addAll(mReportAlerts);
-    mItems.addAll(mAircraftAlerts);
-    mActivity.runOnUiThread(() -> notifyDataSetChanged());
-
-    if(mAircraftAlerts.size() > 0) {
-      mAircraftsAllClear = false;
+    setSnapshot(snapshot);
 
-      // Announce the aircrafts if they've not been announced yet or if their
-      // distance or bearing has changed significantly since then
-      List<Alert> announces = new ArrayList<>();
-      for(Alert aircraft : mAircraftAlerts) {
-        if(aircraft.shouldAnnounceAircraft()) {
-          aircraft.announced += 1;
-          aircraft.announceDistance = aircraft.distance;
-          aircraft.announceBearing = aircraft.bearing;
-          announces.add(aircraft);
-        }
-      }
+    if(snapshot.getAircraftAlerts().size() > 0) {
+      mAircraftsAllClear = false;
 
+      List<Alert> announces = snapshot.getAnnounces();
       if(announces.size() != 0) {
-
         // Reschedule the reminder task for later as some reports are going
         // to be announced right away
         mHandler.removeCallbacks(mAircraftsReminderTask);
         mHandler.postDelayed(mAircraftsReminderTask, MESSAGE_TOKEN, Configuration.AIRCRAFTS_REMINDER_TIMER);
-
-        // Announce the aircrafts
-        Log.i(TAG, "playAlertAnnounce() aircraft pos 0");
-        playAlertAnnounce(
-          announces, "aircraft", 0, false, Configuration.AIRCRAFTS_MAX_SPEECH_ANNOUNCES, Configuration.AIRCRAFTS_MAX_EARCON_ANNOUNCES, (audioFocus) -> {
-
-            // Abandon audio focus once done
-            if(audioFocus) {
-              Log.i(TAG, "abandonAudioFocus()");
-              mSpeechService.abandonAudioFocus(() -> {
-                Log.i(TAG, "setReportAlerts.onDone.run()");
-                onDone.run();
-              });
-            }
-          });
       }
+
+      // Announce the aircrafts, onDone runs right away when there's nothing
+      // to announce
+      Log.i(TAG, "announceAlerts() aircrafts");
+      announceAlerts(announces, Configuration.AIRCRAFTS_MAX_SPEECH_ANNOUNCES, Configuration.AIRCRAFTS_MAX_EARCON_ANNOUNCES, () -> {
+        Log.i(TAG, "setAircraftAlerts.onDone.run()");
+        onDone.run();
+      });
     }
     else {
       Log.i(TAG, "setAircraftAlerts.onDone.run()");
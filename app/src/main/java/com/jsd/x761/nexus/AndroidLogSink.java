@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+/**
+ * A log sink that forwards the logs of the nexus-core alert pipeline to the
+ * Android log.
+ */
+public class AndroidLogSink implements Log.Sink {
+
+  public static void install() {
+    Log.setSink(new AndroidLogSink());
+  }
+
+  @Override
+  public void i(String tag, String msg) {
+    android.util.Log.i(tag, msg);
+  }
+
+  @Override
+  public void e(String tag, String msg, Throwable tr) {
+    android.util.Log.e(tag, msg, tr);
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import android.content.Context;
+import android.media.AudioAttributes;
+import android.media.SoundPool;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.jsd.x761.nexus.Nexus.R;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Plays the earcons announcing the classes of alerts from a sound pool, with
+ * the clips decoded once at startup so they play right away, independently
+ * of the speech queue. The end of an earcon is signaled after the actual
+ * length of its clip. It's only used from the main thread.
+ */
+public class EarconPlayer {
+  private static final String TAG = "EARCON_PLAYER";
+  public static final String MESSAGE_TOKEN = "EARCON_PLAYER_MESSAGES";
+
+  private static final int[] CLIPS = {R.raw.s1, R.raw.s2, R.raw.s3, R.raw.s4, R.raw.s5, R.raw.s6, R.raw.s7, R.raw.s8, R.raw.s9, R.raw.s10};
+
+  private final Handler mHandler = new Handler(Looper.getMainLooper());
+  private final SoundPool mSoundPool;
+  private final Map<String, Integer> mSoundIds = new HashMap<>();
+  private final Map<String, Long> mDurations = new HashMap<>();
+  private final Set<Integer> mLoadedSoundIds = new HashSet<>();
+
+  public EarconPlayer(Context context) {
+    // Play the earcons on the same stream as the speech
+    AudioAttributes attributes =
+      new AudioAttributes.Builder().setUsage(AudioAttributes.USAGE_MEDIA).setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION).build();
+    mSoundPool = new SoundPool.Builder().setMaxStreams(Configuration.AUDIO_EARCON_MAX_STREAMS).setAudioAttributes(attributes).build();
+    mSoundPool.setOnLoadCompleteListener((soundPool, soundId, status) -> {
+      Log.i(TAG, String.format("onLoadComplete soundId %d status %d", soundId, status));
+      if(status == 0) {
+        mLoadedSoundIds.add(soundId);
+      }
+    });
+
+    for(int i = 0; i < CLIPS.length; i++) {
+      String earcon = Earcons.EARCONS[i];
+      try(InputStream inputStream = context.getResources().openRawResource(CLIPS[i])) {
+        mDurations.put(earcon, Earcons.getDuration(inputStream));
+      }
+      catch(IOException e) {
+        Log.e(TAG, String.format("IOException reading earcon %s", earcon), e);
+        continue;
+      }
+      mSoundIds.put(earcon, mSoundPool.load(context, CLIPS[i], 1));
+    }
+  }
+
+  /**
+   * Play an earcon, urgent earcons take over the streams of other earcons.
+   * Return false if the earcon isn't loaded, otherwise signal its end.
+   */
+  public boolean play(String earcon, boolean urgent, Runnable onDone) {
+    Integer soundId = mSoundIds.get(earcon);
+    if(soundId == null || !mLoadedSoundIds.contains(soundId)) {
+      Log.i(TAG, String.format("earcon %s not loaded", earcon));
+      return false;
+    }
+    int streamId = mSoundPool.play(soundId, 1.0f, 1.0f, urgent ? 1 : 0, 0, 1.0f);
+    if(streamId == 0) {
+      Log.i(TAG, String.format("failed to play earcon %s", earcon));
+      return false;
+    }
+    long duration = mDurations.get(earcon);
+    Log.i(TAG, String.format("mSoundPool.play() earcon %s urgent %b duration %d", earcon, urgent, duration));
+    mHandler.postDelayed(onDone, MESSAGE_TOKEN, duration);
+    return true;
+  }
+
+  public void release() {
+    mHandler.removeCallbacksAndMessages(MESSAGE_TOKEN);
+    mSoundPool.release();
+  }
+}
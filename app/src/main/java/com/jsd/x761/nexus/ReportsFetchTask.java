@@ -20,15 +20,12 @@ package com.jsd.x761.nexus;
 import android.location.Location;
 import android.util.Log;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -37,144 +34,149 @@ import java.util.List;
 public class ReportsFetchTask implements Runnable {
   private static final String TAG = "REPORTS_FETCH_TASK";
 
+  private final HttpClient mHttpClient;
   private final String mSourceURL;
   private final Location mLocation;
+  private final ReportsTileCache mTileCache;
+  private final ResponseValidator<List<Alert>> mResponseValidator;
+  private int mResponseCode;
+  private boolean mRequestFailed;
 
-  public ReportsFetchTask(String sourceURL, Location location) {
+  public ReportsFetchTask(
+    HttpClient httpClient, String sourceURL, Location location, ReportsTileCache tileCache, ResponseValidator<List<Alert>> responseValidator) {
     // The source URL is configured from the app preferences
+    mHttpClient = httpClient;
     mSourceURL = sourceURL;
     mLocation = location;
+    mTileCache = tileCache;
+    mResponseValidator = responseValidator;
   }
 
   @Override
   public void run() {
     Log.i(TAG, String.format("run lat %f lng %f", (float)mLocation.getLatitude(), (float)mLocation.getLongitude()));
 
-    JSONObject json = null;
+    LatLng location = new LatLng(mLocation.getLatitude(), mLocation.getLongitude());
+    float bearing = mLocation.hasBearing() ? mLocation.getBearing() : 0.0f;
+    float speed = mLocation.hasSpeed() ? mLocation.getSpeed() : 0.0f;
+
+    List<Alert> reports;
     if(Configuration.DEBUG_INJECT_TEST_REPORTS != 0) {
       // Support using test reports to help debugging without having to
       // connect to an actual server everytime
+      Log.i(TAG, "using test reports");
       try {
-        Log.i(TAG, "using test reports");
-        json = new JSONObject(Configuration.DEBUG_TEST_REPORTS);
+        reports = ReportsParser.parse(Configuration.DEBUG_TEST_REPORTS, location, bearing);
       }
       catch(Exception e) {
-        Log.e(TAG, "Exception reading reports", e);
+        Log.e(TAG, "Exception processing reports", e);
         onDone(null);
         return;
       }
     }
     else {
-      // Connect to the configured server and fetch crowdsourced reports
-      // within the configured max distance
-      HttpURLConnection connection = null;
-      BufferedReader reader = null;
-      try {
-        float distance = Geospatial.toMeters(Configuration.REPORTS_MAX_DISTANCE);
-        Location bottom = Geospatial.getDestination(mLocation, distance, 180f);
-        Location left = Geospatial.getDestination(mLocation, distance, 270f);
-        Location top = Geospatial.getDestination(mLocation, distance, 0f);
-        Location right = Geospatial.getDestination(mLocation, distance, 90f);
-        URL url = new URL(String.format(
-          "%s/rtserver/web/TGeoRSS?bottom=%f&left=%f&top=%f&right=%f&ma=200&mj=200&mu=20&types=alerts",
-          mSourceURL,
-          (float)bottom.getLatitude(),
-          (float)left.getLongitude(),
-          (float)top.getLatitude(),
-          (float)right.getLongitude()));
-
-        if(Configuration.DEBUG) {
-          // Double check that the computed area uses the correct distance
-          float topDistance = Geospatial.toMiles(Geospatial.getDistance(mLocation, top));
-          float leftDistance = Geospatial.toMiles(Geospatial.getDistance(mLocation, left));
-          Log.i(TAG, String.format("report area distance top %f left %f", topDistance, leftDistance));
-        }
+      // Fetch crowdsourced reports within the configured max distance,
+      // looking ahead along the vehicle bearing, only connecting to the
+      // configured server for the tiles of the area that aren't cached
+      float distance = Geospatial.toMeters(Configuration.REPORTS_MAX_DISTANCE);
+      BoundingBox area = ReportsQueryPlanner.plan(location, bearing, speed, distance);
+      long time = System.currentTimeMillis();
+      mTileCache.evict(time);
+      BoundingBox box = mTileCache.getMissingBox(area, time);
+      if(box != null) {
+        try {
+          URL url = new URL(String.format(
+            "%s/rtserver/web/TGeoRSS?bottom=%f&left=%f&top=%f&right=%f&ma=200&mj=200&mu=20&types=alerts",
+            mSourceURL,
+            (float)box.getMinLatitude(),
+            (float)box.getMinLongitude(),
+            (float)box.getMaxLatitude(),
+            (float)box.getMaxLongitude()));
+
+          // Fetch the reports in JSON form over a kept alive connection to
+          // the server, conditionally if the server tagged the last
+          // response to the same request
+          String key = url.toExternalForm();
+          Log.i(TAG, String.format("HttpClient.get %s", key));
+          try(HttpResponse response = mHttpClient.get(url, mResponseValidator.getRequestHeaders(key), Configuration.REPORTS_CONNECT_TIMEOUT)) {
+            mResponseCode = response.getResponseCode();
+            List<Alert> tileReports;
+            if(mResponseCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+              tileReports = mResponseValidator.getNotModified(key);
+            }
+            else {
+              InputStream inputStream = response.getInputStream();
+              if(mResponseCode != HttpURLConnection.HTTP_OK || inputStream == null) {
+                Log.i(TAG, String.format("HttpClient.get response code %d", mResponseCode));
+                onDone(null);
+                return;
+              }
 
-        // Connect to the server and fetch the reports in JSON form
-        Log.i(TAG, String.format("URL.openConnection %s", url.toExternalForm()));
-        connection = (HttpURLConnection)url.openConnection();
-        connection.setRequestMethod("GET");
-        connection.setRequestProperty("Connection", "close");
-        connection.setConnectTimeout(Configuration.REPORTS_CONNECT_TIMEOUT);
-        connection.connect();
-
-        InputStream inputStream = connection.getInputStream();
-        StringBuilder buffer = new StringBuilder();
-        if(inputStream == null) {
-          onDone(null);
-          return;
-        }
+              // Only parse the reports if the payload changed since the
+              // last response, as it often doesn't when the vehicle is
+              // parked or slow, reading it whole to hash it first
+              byte[] payload = inputStream.readAllBytes();
+              String eTag = response.getHeaderField("ETag");
+              long hash = XXHash64.hash(payload);
+              tileReports = mResponseValidator.getUnchanged(key, eTag, hash);
+              if(tileReports == null) {
+                tileReports = ReportsParser.parse(
+                  new InputStreamReader(new ByteArrayInputStream(payload)), location, bearing, getMaxDistance(location, box));
+                mResponseValidator.put(key, eTag, hash, tileReports);
+              }
+            }
+            if(tileReports == null) {
+              Log.i(TAG, "not modified reports aren't known anymore");
+              onDone(null);
+              return;
+            }
 
-        reader = new BufferedReader(new InputStreamReader(inputStream));
-        String line;
-        while((line = reader.readLine()) != null) {
-          buffer.append(line).append("\n");
+            // Keep all the reports of the fetched tiles for the next fetches
+            mTileCache.put(box, tileReports, time);
+          }
         }
-
-        if(buffer.length() == 0) {
+        catch(Exception e) {
+          Log.e(TAG, "Exception reading JSON from URL", e);
+          mRequestFailed = e instanceof IOException && mResponseCode == 0;
           onDone(null);
           return;
         }
-
-        String jsonString = buffer.toString();
-        json = new JSONObject(jsonString);
-      }
-      catch(Exception e) {
-        Log.e(TAG, "Exception reading JSON from URL", e);
-        onDone(null);
-        return;
-      }
-      finally {
-        if(connection != null) {
-          connection.disconnect();
-        }
-        if(reader != null) {
-          try {
-            reader.close();
-          }
-          catch(Exception e) {
-            Log.e(TAG, "IOException closing reader", e);
-          }
-        }
       }
+
+      // Assemble the reports of the area from the cached tiles
+      float lookaheadDistance = Geospatial.toMiles(ReportsQueryPlanner.getLookaheadDistance(speed, distance));
+      reports = AlertsFilter.getInRangeAlerts(Alert.fromReports(location, bearing, mTileCache.getReports(area, time)), lookaheadDistance);
     }
+    onDone(reports);
+  }
 
-    List<Alert> reports = new ArrayList<>();
-    try {
-      JSONArray jsonReports = json.optJSONArray("alerts");
-      if(jsonReports != null) {
-        int n = 0;
-        for(int i = 0; i < jsonReports.length(); i++) {
-          JSONObject jsonReport = jsonReports.getJSONObject(i);
-          try {
-            // Only keep reports of relevant types
-            String type = jsonReport.getString("type");
-            Log.i(TAG, String.format("report type %s", type));
-            if("POLICE".equals(type) || "ACCIDENT".equals(type)) {
-              Alert report = Alert.fromReport(mLocation, jsonReport);
-              if(Configuration.DEBUG_INJECT_TEST_REPORTS != 0) {
-                if(n < Configuration.DEBUG_INJECT_TEST_REPORTS) {
-                  reports.add(report);
-                  n++;
-                }
-              }
-              else {
-                reports.add(report);
-              }
-            }
-          }
-          catch(Exception e) {
-            Log.e(TAG, "Exception processing report", e);
-          }
-        }
+  /**
+   * Return the distance in miles from the vehicle to the farthest corner
+   * of a box.
+   */
+  private static float getMaxDistance(LatLng location, BoundingBox box) {
+    float distance = 0.0f;
+    for(double latitude : new double[] {box.getMinLatitude(), box.getMaxLatitude()}) {
+      for(double longitude : new double[] {box.getMinLongitude(), box.getMaxLongitude()}) {
+        distance = Math.max(distance, Geospatial.getDistance(location, new LatLng(latitude, longitude)));
       }
     }
-    catch(Exception e) {
-      Log.e(TAG, "Exception processing reports", e);
-      onDone(null);
-      return;
-    }
-    onDone(reports);
+    return Geospatial.toMiles(distance);
+  }
+
+  /**
+   * Return the HTTP response code of the server, 0 if it wasn't reached or
+   * the reports were all cached.
+   */
+  public int getResponseCode() {
+    return mResponseCode;
+  }
+
+  /**
+   * Return true if the server couldn't be reached.
+   */
+  public boolean isRequestFailed() {
+    return mRequestFailed;
   }
 
   protected void onDone(List<Alert> reports) {
@@ -28,6 +28,7 @@ import android.os.Bundle;
 import android.os.Handler;
 import android.os.IBinder;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.speech.tts.TextToSpeech;
 import android.speech.tts.UtteranceProgressListener;
 import android.speech.tts.Voice;
@@ -35,6 +36,7 @@ import android.util.Log;
 
 import com.jsd.x761.nexus.Nexus.R;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -44,11 +46,18 @@ import java.util.Set;
 import java.util.UUID;
 
 /**
- * A service that handles speech announcements and audio focus.
+ * A service that handles speech announcements, earcons and audio focus.
+ * Recurring phrases are synthesized ahead of time while the speech engine is
+ * idle and played from their audio files, other phrases are synthesized
+ * live. Earcons are played from a sound pool outside of the speech queue,
+ * urgent earcons interrupt the speech in flight. The speech engine reports
+ * the progress of utterances from its own threads, the utterance callbacks
+ * and the audio focus count are safe to update from any thread.
  */
 public class SpeechService extends Service {
   private static final String TAG = "SPEECH_SERVICE";
   public static final String MESSAGE_TOKEN = "SPEECH_SERVICE_MESSAGES";
+  private static final String SYNTHESIS_UTTERANCE = "synthesis-";
 
   private final Handler mHandler = new Handler(Looper.getMainLooper());
   private boolean mReady = false;
@@ -56,11 +65,30 @@ public class SpeechService extends Service {
   private final IBinder mBinder;
   private AudioManager mAudioManager;
   private AudioFocusRequest mAudioFocusRequest;
-  private int mDuckedAudioMedia = 0;
+  private AudioFocusCounter mAudioFocusCounter;
   private List<Voice> mUKVoices = new ArrayList<>();
   private int mVoiceIndex = -1;
   protected TextToSpeech mTextToSpeech;
-  protected Map<String, Runnable> mTextToSpeechCallback = new HashMap<>();
+  private EarconPlayer mEarconPlayer;
+  private final UtteranceRegistry mUtterances = new UtteranceRegistry();
+  private final PhraseCache mPhraseCache = new PhraseCache(Configuration.AUDIO_PHRASE_CACHE_SIZE);
+  private File mPhrasesDir;
+  private PhraseCache.Phrase mSynthesizing;
+  private String mSynthesisUtterance;
+  private int mSynthesisCount = 0;
+  private final Map<String, SpeechRequest> mSpeechRequests = new HashMap<>();
+
+  // A speech in flight, requested at a given time and played from the
+  // phrase cache or not
+  private static class SpeechRequest {
+    final long time;
+    final boolean cached;
+
+    SpeechRequest(long time, boolean cached) {
+      this.time = time;
+      this.cached = cached;
+    }
+  }
 
   public class ThisBinder extends Binder {
     public ThisBinder() {
@@ -82,6 +110,42 @@ public class SpeechService extends Service {
 
     mAudioManager = (AudioManager)getSystemService(Context.AUDIO_SERVICE);
 
+    // Request audio focus with ducking for speech, as long as any
+    // announcement holds it
+    // Another options is AudioAttributes.USAGE_VOICE_COMMUNICATION
+    AudioAttributes playbackAttributes =
+      new AudioAttributes.Builder().setUsage(AudioAttributes.USAGE_MEDIA).setContentType(AudioAttributes.CONTENT_TYPE_SPEECH).build();
+    mAudioFocusRequest = new AudioFocusRequest.Builder(AudioManager.AUDIOFOCUS_GAIN_TRANSIENT_MAY_DUCK).setAudioAttributes(playbackAttributes)
+      .setAcceptsDelayedFocusGain(false)
+      .build();
+    mAudioFocusCounter = new AudioFocusCounter(new AudioFocusCounter.AudioFocus() {
+      @Override
+      public void request() {
+        Log.i(TAG, "mAudioManager.requestAudioFocus()");
+        mAudioManager.requestAudioFocus(mAudioFocusRequest);
+      }
+
+      @Override
+      public void abandon() {
+        Log.i(TAG, "mAudioManager.abandonAudioFocusRequest()");
+        mAudioManager.abandonAudioFocusRequest(mAudioFocusRequest);
+      }
+    });
+
+    // Start with an empty phrase cache as the voice may have changed
+    mPhrasesDir = new File(getCacheDir(), "phrases");
+    File[] files = mPhrasesDir.listFiles();
+    if(files != null) {
+      for(File file : files) {
+        file.delete();
+      }
+    }
+    mPhrasesDir.mkdirs();
+
+    // Load the notification sounds used to announce the various types of
+    // alerts
+    mEarconPlayer = new EarconPlayer(getApplicationContext());
+
     // Initialize the text to speech engine
     mTextToSpeech = new TextToSpeech(getApplicationContext(), status -> {
       if(status != TextToSpeech.ERROR) {
@@ -90,6 +154,11 @@ public class SpeechService extends Service {
           @Override
           public void onStart(String s) {
             Log.i(TAG, "UtteranceProgressListener.onStart");
+            if(s.startsWith(SYNTHESIS_UTTERANCE)) {
+              return;
+            }
+            long time = SystemClock.elapsedRealtime();
+            mHandler.postDelayed(() -> onSpeechStarted(s, time), MESSAGE_TOKEN, 1);
             for(int i = 0; i < Configuration.AUDIO_ADJUST_RAISE_COUNT; i++) {
               // Another option is AudioManager.STREAM_VOICE_CALL
               mAudioManager.adjustStreamVolume(AudioManager.STREAM_MUSIC, AudioManager.ADJUST_RAISE, 0);
@@ -99,18 +168,44 @@ public class SpeechService extends Service {
           @Override
           public void onDone(String s) {
             Log.i(TAG, "UtteranceProgressListener.onDone");
-            for(int i = 0; i < Configuration.AUDIO_ADJUST_RAISE_COUNT; i++) {
-              // Another option is AudioManager.STREAM_VOICE_CALL
-              mAudioManager.adjustStreamVolume(AudioManager.STREAM_MUSIC, AudioManager.ADJUST_LOWER, 0);
+            if(s.startsWith(SYNTHESIS_UTTERANCE)) {
+              mHandler.postDelayed(() -> onSynthesisDone(s, true), MESSAGE_TOKEN, 1);
+              return;
+            }
+            onUtteranceEnd(s);
+          }
+
+          @Override
+          public void onStop(String s, boolean interrupted) {
+            Log.i(TAG, "UtteranceProgressListener.onStop");
+            if(s.startsWith(SYNTHESIS_UTTERANCE)) {
+              mHandler.postDelayed(() -> onSynthesisStopped(s), MESSAGE_TOKEN, 1);
+              return;
             }
-            Log.i(TAG, "onPlaySpeech.onDone.run()");
-            Runnable callback = mTextToSpeechCallback.get(s);
-            callback.run();
+            // Complete a speech interrupted by an urgent earcon as if it was
+            // done
+            onUtteranceEnd(s);
           }
 
           @Override
           public void onError(String s) {
             Log.i(TAG, "UtteranceProgressListener.onError");
+            if(s.startsWith(SYNTHESIS_UTTERANCE)) {
+              mHandler.postDelayed(() -> onSynthesisDone(s, false), MESSAGE_TOKEN, 1);
+              return;
+            }
+            // Complete a failed speech too so its announcement doesn't hang
+            // and releases the audio focus
+            onUtteranceEnd(s);
+          }
+
+          private void onUtteranceEnd(String s) {
+            for(int i = 0; i < Configuration.AUDIO_ADJUST_RAISE_COUNT; i++) {
+              // Another option is AudioManager.STREAM_VOICE_CALL
+              mAudioManager.adjustStreamVolume(AudioManager.STREAM_MUSIC, AudioManager.ADJUST_LOWER, 0);
+            }
+            Log.i(TAG, String.format("mUtterances.complete() uuid %s", s));
+            mUtterances.complete(s);
           }
         });
 
@@ -136,7 +231,7 @@ public class SpeechService extends Service {
         mTextToSpeech.setSpeechRate(Configuration.AUDIO_SPEECH_RATE);
 
         // Register the notification sounds used to announce the various
-        // types of alerts
+        // types of alerts, in case they can't be played from the sound pool
         String packageName = getPackageName();
         mTextToSpeech.addEarcon("[s1]", packageName, R.raw.s1);
         mTextToSpeech.addEarcon("[s2]", packageName, R.raw.s2);
@@ -154,8 +249,11 @@ public class SpeechService extends Service {
           Log.i(TAG, "postDelayed() readyCallback");
           mHandler.postDelayed(readyCallback, MESSAGE_TOKEN, 1);
         }
+        synthesizeNext();
       }
     });
+
+    mHandler.postDelayed(this::checkUtterances, MESSAGE_TOKEN, Configuration.AUDIO_UTTERANCE_CHECK_TIMER);
   }
 
   @Override
@@ -179,6 +277,7 @@ public class SpeechService extends Service {
     Log.i(TAG, "onDestroy");
     super.onDestroy();
 
+    mReady = false;
     mHandler.removeCallbacksAndMessages(MESSAGE_TOKEN);
 
     // Cleanup text to speech resources and abandon audio focus
@@ -186,109 +285,220 @@ public class SpeechService extends Service {
       Log.i(TAG, "mTextToSpeech.shutdown()");
       mTextToSpeech.shutdown();
     }
+    if(mEarconPlayer != null) {
+      mEarconPlayer.release();
+    }
 
-    mDuckedAudioMedia = 0;
-    abandonAudioFocus(() -> {
-    });
+    // Complete the utterances in flight and abandon audio focus
+    mUtterances.completeAll();
+    mAudioFocusCounter.releaseAll();
   }
 
-  public void requestAudioFocus(Runnable onDone) {
-    Log.i(TAG, String.format("requestAudioFocus mDuckedAudioMedia %d", mDuckedAudioMedia));
-
-    // Keep track of concurrent in-flight audio focus requests
-    // Request audio focus with ducking for speech over a voice communication stream
-    mDuckedAudioMedia++;
-    if(mDuckedAudioMedia == 1) {
-      // Another options is AudioAttributes.USAGE_VOICE_COMMUNICATION
-      AudioAttributes playbackAttributes =
-        new AudioAttributes.Builder().setUsage(AudioAttributes.USAGE_MEDIA).setContentType(AudioAttributes.CONTENT_TYPE_SPEECH).build();
-      mAudioFocusRequest = new AudioFocusRequest.Builder(AudioManager.AUDIOFOCUS_GAIN_TRANSIENT_MAY_DUCK).setAudioAttributes(playbackAttributes)
-        .setAcceptsDelayedFocusGain(false)
-        .build();
-      Log.i(TAG, "requestAudioFocus()");
-      mAudioManager.requestAudioFocus(mAudioFocusRequest);
-      onDone.run();
-    }
-    else {
-      onDone.run();
-    }
+  /**
+   * Request audio focus, return a lease to abandon it with once done. The
+   * audio focus is held as long as any lease is.
+   */
+  public long requestAudioFocus() {
+    long lease = mAudioFocusCounter.acquire(SystemClock.elapsedRealtime());
+    Log.i(TAG, String.format("requestAudioFocus lease %d count %d", lease, mAudioFocusCounter.getCount()));
+    return lease;
   }
 
-  public void abandonAudioFocus(Runnable onDone) {
-    Log.i(TAG, String.format("abandonAudioFocus mDuckedAudioMedia %d", mDuckedAudioMedia));
-    // Keep track of concurrent in-flight audio focus requests
-    // Abandon audio focus once all audio focus requests are cleared
-    if(mDuckedAudioMedia > 0) {
-      mDuckedAudioMedia--;
-    }
-    if(mDuckedAudioMedia == 0 && mAudioFocusRequest != null) {
-      Log.i(TAG, "abandonAudioFocus()");
-      mAudioManager.abandonAudioFocusRequest(mAudioFocusRequest);
-      onDone.run();
-    }
-    else {
-      onDone.run();
-    }
+  public void abandonAudioFocus(long lease) {
+    mAudioFocusCounter.release(lease);
+    Log.i(TAG, String.format("abandonAudioFocus lease %d count %d", lease, mAudioFocusCounter.getCount()));
   }
 
-  public void addOnUtteranceProgressCallback(String key, Runnable runnable) {
-    mTextToSpeechCallback.put(key, runnable);
+  private void checkUtterances() {
+    // Complete the utterances the speech engine never reported and
+    // release the audio focus leases never abandoned
+    long time = SystemClock.elapsedRealtime();
+    int utterances = mUtterances.expire(time, Configuration.AUDIO_UTTERANCE_TIMEOUT);
+    int leases = mAudioFocusCounter.expire(time, Configuration.AUDIO_FOCUS_TIMEOUT);
+    if(utterances != 0 || leases != 0) {
+      Log.i(TAG, String.format("checkUtterances expired %d utterances %d audio focus leases", utterances, leases));
+    }
+    mHandler.postDelayed(this::checkUtterances, MESSAGE_TOKEN, Configuration.AUDIO_UTTERANCE_CHECK_TIMER);
   }
 
-  public void removeOnUtteranceProgressCallback(String key) {
-    mTextToSpeechCallback.remove(key);
+  /**
+   * Interrupt the speech in flight, its utterances complete as if they were
+   * done.
+   */
+  public void stopSpeech() {
+    if(!mSpeechRequests.isEmpty() || mSynthesizing != null) {
+      Log.i(TAG, "mTextToSpeech.stop()");
+      mTextToSpeech.stop();
+    }
   }
 
-  public void playEarcon(String earcon) {
+  /**
+   * Play an earcon and signal its end, an urgent earcon interrupts the
+   * speech in flight so it's heard right away.
+   */
+  public void playEarcon(String earcon, boolean urgent, Runnable onDone) {
+    if(urgent) {
+      stopSpeech();
+    }
+    if(mEarconPlayer.play(earcon, urgent, onDone)) {
+      return;
+    }
+
     // Play a notification sound on the voice call stream
     // The voice call stream is separate from the music stream, the user can
     // adjust the individual volume of each stream separately
+    stopSynthesis();
     String uuid = UUID.randomUUID().toString();
     Log.i(TAG, String.format("mTextToSpeech.playEarcon() uuid %s earcon %s", uuid, earcon));
     Bundle params = new Bundle();
     // Another option is AudioManager.STREAM_VOICE_CALL
     params.putInt(TextToSpeech.Engine.KEY_PARAM_STREAM, AudioManager.STREAM_MUSIC);
     mTextToSpeech.playEarcon(earcon, TextToSpeech.QUEUE_ADD, params, uuid);
+    mHandler.postDelayed(onDone, MESSAGE_TOKEN, Configuration.AUDIO_EARCON_TIMER);
   }
 
-  public void playSpeech(String speech, String uuid) {
+  /**
+   * Play a speech announcement and signal its end, onDone runs exactly once
+   * from any thread whether the speech is done, fails, is stopped or times
+   * out.
+   */
+  public void playSpeech(String speech, Runnable onDone) {
     // Play a speech announcement on the voice call stream
     // The voice call stream is separate from the music stream, the user can
     // adjust the individual volume of each stream separately
-    Log.i(TAG, String.format("mTextToSpeech.speak() uuid %s speech %s", uuid, speech));
+    speak(speech, onDone);
+  }
+
+  private void speak(String speech, Runnable onDone) {
+    stopSynthesis();
+    String uuid = UUID.randomUUID().toString();
+    mUtterances.register(uuid, () -> {
+      mHandler.postDelayed(() -> onSpeechDone(uuid), MESSAGE_TOKEN, 1);
+      onDone.run();
+    }, SystemClock.elapsedRealtime());
+
+    // Play the synthesized audio of the phrase when it's in the cache,
+    // otherwise synthesize it live
+    String key = mPhraseCache.get(speech);
+    mSpeechRequests.put(uuid, new SpeechRequest(SystemClock.elapsedRealtime(), key != null));
+    Log.i(TAG, String.format("mTextToSpeech.speak() uuid %s speech %s cached %b", uuid, speech, key != null));
     Bundle params = new Bundle();
     // Another option is AudioManager.STREAM_VOICE_CALL
     params.putInt(TextToSpeech.Engine.KEY_PARAM_STREAM, AudioManager.STREAM_MUSIC);
-    mTextToSpeech.speak(speech, TextToSpeech.QUEUE_ADD, params, uuid);
+    if(mTextToSpeech.speak(key != null ? key : speech, TextToSpeech.QUEUE_ADD, params, uuid) != TextToSpeech.SUCCESS) {
+      mUtterances.complete(uuid);
+    }
+  }
+
+  private void onSpeechStarted(String uuid, long time) {
+    SpeechRequest request = mSpeechRequests.get(uuid);
+    if(request == null) {
+      return;
+    }
+    mPhraseCache.recordLatency(request.cached, time - request.time);
+    Log.i(TAG, String.format(
+      "speech latency %d ms cached %b, phrase cache hit rate %.2f, average latency %d ms cached %d ms live", time - request.time,
+      request.cached, mPhraseCache.getHitRate(), mPhraseCache.getAverageLatency(true), mPhraseCache.getAverageLatency(false)));
+  }
+
+  private void onSpeechDone(String uuid) {
+    mSpeechRequests.remove(uuid);
+    synthesizeNext();
+  }
+
+  /**
+   * Synthesize recurring phrases ahead of time, they're synthesized in
+   * order before any other phrase.
+   */
+  public void preparePhrases(List<String> phrases) {
+    mPhraseCache.addFixedPhrases(phrases);
+    synthesizeNext();
+  }
+
+  private File getPhraseFile(String key) {
+    return new File(mPhrasesDir, String.format("%s.wav", key));
+  }
+
+  private void synthesizeNext() {
+    // Only synthesize one phrase at a time and only when no speech is in
+    // flight, to not delay announcements
+    if(!mReady || mSynthesizing != null || !mSpeechRequests.isEmpty()) {
+      return;
+    }
+    PhraseCache.Phrase phrase = mPhraseCache.nextSynthesis();
+    if(phrase == null) {
+      return;
+    }
+    // Identify each synthesis to tell the progress of a stopped synthesis
+    // from the progress of a later synthesis of the same phrase
+    mSynthesizing = phrase;
+    String utterance = String.format("%s%d-%s", SYNTHESIS_UTTERANCE, ++mSynthesisCount, phrase.key);
+    mSynthesisUtterance = utterance;
+    Log.i(TAG, String.format("mTextToSpeech.synthesizeToFile() %s speech %s", utterance, phrase.text));
+    int result = mTextToSpeech.synthesizeToFile(phrase.text, new Bundle(), getPhraseFile(phrase.key), utterance);
+    if(result != TextToSpeech.SUCCESS) {
+      mHandler.postDelayed(() -> onSynthesisDone(utterance, false), MESSAGE_TOKEN, 1);
+    }
+  }
+
+  private void stopSynthesis() {
+    // Stop the synthesis in progress so a speech doesn't wait behind it in
+    // the speech engine queue, no speech is in flight while synthesizing.
+    // The synthesis resumes once the speech is done
+    if(mSynthesizing == null) {
+      return;
+    }
+    Log.i(TAG, String.format("mTextToSpeech.stop() synthesis %s", mSynthesizing.key));
+    mTextToSpeech.stop();
+    cancelSynthesis();
+  }
+
+  private void onSynthesisStopped(String utterance) {
+    // Ignore the late progress of a synthesis already stopped
+    if(mSynthesizing == null || !mSynthesisUtterance.equals(utterance)) {
+      return;
+    }
+    cancelSynthesis();
+    synthesizeNext();
+  }
+
+  private void cancelSynthesis() {
+    PhraseCache.Phrase phrase = mSynthesizing;
+    mSynthesizing = null;
+    getPhraseFile(phrase.key).delete();
+    mPhraseCache.onSynthesisStopped(phrase);
+  }
+
+  private void onSynthesisDone(String utterance, boolean success) {
+    PhraseCache.Phrase phrase = mSynthesizing;
+    if(phrase == null || !mSynthesisUtterance.equals(utterance)) {
+      return;
+    }
+    mSynthesizing = null;
+    if(success) {
+      // Play the audio file whenever the key of the phrase is spoken
+      mTextToSpeech.addSpeech(phrase.key, getPhraseFile(phrase.key));
+    }
+    else {
+      getPhraseFile(phrase.key).delete();
+    }
+    // No queued speech refers to the evicted phrases as they're the least
+    // recently used
+    for(String evicted : mPhraseCache.onSynthesized(phrase, success)) {
+      getPhraseFile(evicted).delete();
+    }
+    synthesizeNext();
   }
 
   public void announceEvent(String event, Runnable onDone) {
     Log.i(TAG, String.format("announceEvent %s", event));
 
-    // Request audio focus
-    Log.i(TAG, "requestAudioFocus()");
-    requestAudioFocus(() -> {
-      String uuid = UUID.randomUUID().toString();
-      addOnUtteranceProgressCallback(uuid, () -> {
-        Log.i(TAG, String.format("UtteranceProgressListener.onDone %s", uuid));
-        removeOnUtteranceProgressCallback(uuid);
-
-        // Abandon audio focus once done
-        Log.i(TAG, "abandonAudioFocus()");
-        abandonAudioFocus(() -> {
-          Log.i(TAG, "announceEvent.onDone.run()");
-          onDone.run();
-        });
-      });
-
-      // Play a speech announcement on the voice call stream
-      // The voice call stream is separate from the music stream, the user
-      // can adjust the individual volume of each stream separately
-      Log.i(TAG, String.format("mTextToSpeech.speak() uuid %s speech %s", uuid, event));
-      Bundle params = new Bundle();
-      // Another option is AudioManager.STREAM_VOICE_CALL
-      params.putInt(TextToSpeech.Engine.KEY_PARAM_STREAM, AudioManager.STREAM_MUSIC);
-      mTextToSpeech.speak(event, TextToSpeech.QUEUE_ADD, params, uuid);
+    // Hold audio focus until the announcement is done
+    long lease = requestAudioFocus();
+    speak(event, () -> {
+      Log.i(TAG, "announceEvent.onDone.run()");
+      abandonAudioFocus(lease);
+      mHandler.postDelayed(onDone, MESSAGE_TOKEN, 1);
     });
   }
 }
\ No newline at end of file
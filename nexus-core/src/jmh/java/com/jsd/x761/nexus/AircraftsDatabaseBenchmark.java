@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.jsd.x761.nexus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks loading the interesting aircrafts database and looking up
+ * transponder icao24 addresses in it, mostly misses as in actual traffic.
+ * Loading is measured from the CSV form and by memory mapping the binary
+ * form, for the actual database and for a database 100 times larger.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AircraftsDatabaseBenchmark {
+  private static final int LOOKUPS = 5000;
+
+  private AircraftsDatabase mAircraftsDatabase;
+  private String[] mHits;
+  private String[] mMisses;
+  private byte[] mLargeCsv;
+  private Path mBinary;
+  private Path mLargeBinary;
+
+  @Setup
+  public void setup() throws IOException {
+    mAircraftsDatabase = BenchmarkData.aircraftsDatabase();
+    List<String> interesting = BenchmarkData.interestingTransponders(mAircraftsDatabase);
+    Random random = new Random(761);
+    mHits = new String[LOOKUPS];
+    mMisses = new String[LOOKUPS];
+    for(int i = 0; i < LOOKUPS; i++) {
+      mHits[i] = interesting.get(random.nextInt(interesting.size()));
+      mMisses[i] = String.format("%06x", 0xb00000 + random.nextInt(0x0fffff));
+    }
+
+    StringBuilder csv = new StringBuilder();
+    for(int i = 0; i < interesting.size() * 100; i++) {
+      csv.append(AircraftsDatabase.toTransponderString(random.nextInt(0x1000000))).append(",Manufacturer ").append(random.nextInt(200));
+      csv.append(",L2J,Owner ").append(random.nextInt(50000)).append('\n');
+    }
+    mLargeCsv = csv.toString().getBytes(StandardCharsets.UTF_8);
+    mBinary = Files.createTempFile("interesting_aircrafts", ".bin");
+    mBinary.toFile().deleteOnExit();
+    Files.write(mBinary, BenchmarkData.aircraftsDatabaseBinary());
+    mLargeBinary = Files.createTempFile("large_aircrafts", ".bin");
+    mLargeBinary.toFile().deleteOnExit();
+    Files.write(mLargeBinary, AircraftsDatabase.compile(new ByteArrayInputStream(mLargeCsv)));
+  }
+
+  private static AircraftsDatabase map(Path path) throws IOException {
+    try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return new AircraftsDatabase(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  @Benchmark
+  public AircraftsDatabase load() {
+    return BenchmarkData.aircraftsDatabase();
+  }
+
+  @Benchmark
+  public AircraftsDatabase loadLarge() throws IOException {
+    return new AircraftsDatabase(new ByteArrayInputStream(mLargeCsv));
+  }
+
+  @Benchmark
+  public AircraftsDatabase map() throws IOException {
+    return map(mBinary);
+  }
+
+  @Benchmark
+  public AircraftsDatabase mapLarge() throws IOException {
+    return map(mLargeBinary);
+  }
+
+  @Benchmark
+  public void lookupHits(Blackhole bh) {
+    for(String transponder : mHits) {
+      // Look up the characters as the parser would hand them
+      bh.consume(mAircraftsDatabase.find(transponder));
+    }
+  }
+
+  @Benchmark
+  public void lookupMisses(Blackhole bh) {
+    for(String transponder : mMisses) {
+      bh.consume(mAircraftsDatabase.find(transponder));
+    }
+  }
+}
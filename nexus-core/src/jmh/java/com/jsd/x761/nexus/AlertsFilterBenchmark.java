@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.jsd.x761.nexus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the range filtering and deduplication of crowd-sourced reports.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AlertsFilterBenchmark {
+
+  @Param({"50", "200", "1000"})
+  public int reports;
+
+  private List<Alert> mReports;
+
+  @Setup
+  public void setup() {
+    mReports = BenchmarkData.reports(reports);
+  }
+
+  @Benchmark
+  public List<Alert> inRangeReports() {
+    return AlertsFilter.getInRangeAlerts(mReports, Configuration.REPORTS_MAX_DISTANCE);
+  }
+
+  @Benchmark
+  public List<Alert> uniqueReports() {
+    return AlertsFilter.getUniqueReports(mReports);
+  }
+
+  @Benchmark
+  public List<Alert> uniqueReportsPairwise() {
+    return AlertsFilter.getUniqueReportsPairwise(mReports);
+  }
+}
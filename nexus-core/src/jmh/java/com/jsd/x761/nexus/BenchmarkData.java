@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates repeatable benchmark data: reports and aircraft state vectors
+ * scattered around a vehicle location, in the JSON forms returned by the
+ * servers.
+ */
+public class BenchmarkData {
+  public static final LatLng VEHICLE = new LatLng(37.4419, -122.1430);
+  public static final float VEHICLE_BEARING = 45.0f;
+  public static final String AIRCRAFTS_DATABASE = "/interesting_aircrafts.csv";
+  public static final String AIRCRAFTS_DATABASE_BINARY = "/interesting_aircrafts.bin";
+
+  private static final String[] REPORT_TYPES = {"POLICE", "ACCIDENT", "HAZARD", "JAM", "ROAD_CLOSED"};
+  private static final String[] REPORT_SUBTYPES = {"POLICE_VISIBLE", "POLICE_HIDING", "", "HAZARD_ON_ROAD_CONSTRUCTION"};
+
+  /**
+   * Returns a random location within a square of the given size in miles
+   * centered on the vehicle.
+   */
+  public static LatLng randomLocation(Random random, float miles) {
+    float meters = Geospatial.toMeters(miles);
+    float distance = random.nextFloat() * meters;
+    float bearing = random.nextFloat() * 360.0f;
+    return Geospatial.getDestination(VEHICLE, distance, bearing);
+  }
+
+  /**
+   * Returns reports scattered in the configured reports area, about one in
+   * four of them close enough to another one to be a duplicate.
+   */
+  public static List<Alert> reports(int count) {
+    Random random = new Random(761);
+    List<Alert> reports = new ArrayList<>();
+    for(int i = 0; i < count; i++) {
+      LatLng target;
+      if(i > 0 && random.nextInt(4) == 0) {
+        Alert near = reports.get(random.nextInt(reports.size()));
+        target = Geospatial.getDestination(
+          new LatLng(near.latitude, near.longitude), random.nextFloat() * Geospatial.toMeters(Configuration.REPORTS_DUPLICATE_DISTANCE),
+          random.nextFloat() * 360.0f);
+      }
+      else {
+        target = randomLocation(random, Configuration.REPORTS_MAX_DISTANCE);
+      }
+      Alert report = new Alert();
+      report.alertClass = Alert.ALERT_CLASS_REPORT;
+      report.type = REPORT_TYPES[random.nextInt(2)];
+      report.subType = REPORT_SUBTYPES[random.nextInt(REPORT_SUBTYPES.length)];
+      report.city = "Palo Alto";
+      report.street = "US-101 S";
+      report.latitude = target.getLatitude();
+      report.longitude = target.getLongitude();
+      report.distance = Geospatial.toMiles(Geospatial.getDistance(VEHICLE, target));
+      reports.add(report);
+    }
+    return reports;
+  }
+
+  /**
+   * Returns a reports payload in the TGeoRSS JSON form, mixing relevant
+   * and irrelevant types of reports.
+   */
+  public static String reportsJson(int count) {
+    Random random = new Random(761);
+    StringBuilder json = new StringBuilder();
+    json.append("{\"alerts\":[");
+    for(int i = 0; i < count; i++) {
+      LatLng target = randomLocation(random, Configuration.REPORTS_MAX_DISTANCE);
+      if(i > 0) {
+        json.append(',');
+      }
+      json.append("{\"additionalInfo\":\"\",\"city\":\"East Palo Alto, CA\",\"confidence\":").append(random.nextInt(5));
+      json.append(",\"country\":\"US\",\"inscale\":true,\"isJamUnifiedAlert\":false,\"location\":{\"x\":").append(target.getLongitude());
+      json.append(",\"y\":").append(target.getLatitude()).append("},\"magvar\":").append(random.nextInt(360));
+      json.append(",\"nImages\":0,\"nThumbsUp\":").append(random.nextInt(10));
+      json.append(",\"reliability\":").append(random.nextInt(10)).append(",\"reportRating\":").append(random.nextInt(6));
+      json.append(",\"roadType\":").append(random.nextInt(8)).append(",\"street\":\"University Ave\",\"subtype\":\"");
+      json.append(REPORT_SUBTYPES[random.nextInt(REPORT_SUBTYPES.length)]).append("\",\"type\":\"");
+      json.append(REPORT_TYPES[random.nextInt(REPORT_TYPES.length)]).append("\",\"uuid\":\"").append(Integer.toHexString(random.nextInt()));
+      json.append("\"}");
+    }
+    json.append("]}");
+    return json.toString();
+  }
+
+  /**
+   * Returns an aircraft state vectors payload in the OpenSky JSON form, with
+   * the given fraction of interesting aircrafts from the database.
+   */
+  public static String aircraftsJson(int count, float interestingRatio, AircraftsDatabase aircraftsDatabase) {
+    Random random = new Random(761);
+    List<String> interesting = interestingTransponders(aircraftsDatabase);
+    StringBuilder json = new StringBuilder();
+    json.append("{\"time\":1700000000,\"states\":[");
+    for(int i = 0; i < count; i++) {
+      String transponder;
+      if(!interesting.isEmpty() && random.nextFloat() < interestingRatio) {
+        transponder = interesting.get(random.nextInt(interesting.size()));
+      }
+      else {
+        transponder = String.format("%06x", 0xb00000 + random.nextInt(0x0fffff));
+      }
+      LatLng target = randomLocation(random, Configuration.AIRCRAFTS_MAX_DISTANCE * 4);
+      if(i > 0) {
+        json.append(',');
+      }
+      json.append("[\"").append(transponder).append("\",\"N").append(100 + random.nextInt(900)).append("AB  \",\"United States\",");
+      json.append(1700000000 - random.nextInt(10)).append(',').append(1700000000 - random.nextInt(10)).append(',');
+      json.append(target.getLongitude()).append(',').append(target.getLatitude()).append(',');
+      json.append(random.nextInt(10000)).append(".5,").append(random.nextInt(20) == 0).append(',');
+      json.append(random.nextInt(250)).append(".25,").append(random.nextInt(360)).append(".75,");
+      json.append(random.nextInt(20) - 10).append(".5,null,").append(random.nextInt(10000)).append(".5,\"");
+      json.append(1000 + random.nextInt(7000)).append("\",false,0]");
+    }
+    json.append("]}");
+    return json.toString();
+  }
+
+  public static List<String> interestingTransponders(AircraftsDatabase aircraftsDatabase) {
+    List<String> transponders = new ArrayList<>();
+    for(int row = 0; row < aircraftsDatabase.size(); row++) {
+      transponders.add(AircraftsDatabase.toTransponderString(aircraftsDatabase.getTransponder(row)));
+    }
+    transponders.sort(String::compareTo);
+    return transponders;
+  }
+
+  public static byte[] aircraftsDatabaseBinary() {
+    try(InputStream inputStream = BenchmarkData.class.getResourceAsStream(AIRCRAFTS_DATABASE_BINARY)) {
+      if(inputStream == null) {
+        throw new IllegalStateException("missing benchmark resource " + AIRCRAFTS_DATABASE_BINARY);
+      }
+      return inputStream.readAllBytes();
+    }
+    catch(IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public static AircraftsDatabase aircraftsDatabase() {
+    try(InputStream inputStream = BenchmarkData.class.getResourceAsStream(AIRCRAFTS_DATABASE)) {
+      if(inputStream == null) {
+        throw new IllegalStateException("missing benchmark resource " + AIRCRAFTS_DATABASE);
+      }
+      return new AircraftsDatabase(inputStream);
+    }
+    catch(IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
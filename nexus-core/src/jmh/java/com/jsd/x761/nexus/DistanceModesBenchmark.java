@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.jsd.x761.nexus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of the distance modes used for range filtering with the
+ * exact distance used for announcements.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DistanceModesBenchmark {
+  private static final int TARGETS = 2000;
+
+  // 0 haversine, 1 equirectangular, 2 tangent plane
+  @Param({"0", "1", "2"})
+  public int mode;
+
+  private double[] mLatitudes;
+  private double[] mLongitudes;
+  private LatLng[] mTargets;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(761);
+    mLatitudes = new double[TARGETS];
+    mLongitudes = new double[TARGETS];
+    mTargets = new LatLng[TARGETS];
+    for(int i = 0; i < TARGETS; i++) {
+      mTargets[i] = BenchmarkData.randomLocation(random, Configuration.AIRCRAFTS_MAX_DISTANCE * 2);
+      mLatitudes[i] = mTargets[i].getLatitude();
+      mLongitudes[i] = mTargets[i].getLongitude();
+    }
+  }
+
+  @Benchmark
+  public void lawOfCosines(Blackhole bh) {
+    for(LatLng target : mTargets) {
+      bh.consume(Geospatial.getDistance(BenchmarkData.VEHICLE, target));
+    }
+  }
+
+  @Benchmark
+  public void distance(Blackhole bh) {
+    LatLng from = BenchmarkData.VEHICLE;
+    for(int i = 0; i < TARGETS; i++) {
+      bh.consume(Geospatial.getDistance(mode, from.getLatitude(), from.getLongitude(), mLatitudes[i], mLongitudes[i]));
+    }
+  }
+
+  @Benchmark
+  public void calculator(Blackhole bh) {
+    DistanceCalculator distanceCalculator = new DistanceCalculator(mode, BenchmarkData.VEHICLE);
+    float range = Geospatial.toMeters(Configuration.AIRCRAFTS_MAX_DISTANCE);
+    for(int i = 0; i < TARGETS; i++) {
+      bh.consume(distanceCalculator.isWithinRange(mLatitudes[i], mLongitudes[i], range));
+    }
+  }
+}
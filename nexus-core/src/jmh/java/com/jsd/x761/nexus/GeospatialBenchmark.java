@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.jsd.x761.nexus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the distance and bearing computations between the vehicle and
+ * a set of targets, as done on every location refresh.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GeospatialBenchmark {
+
+  @Param({"200", "2000"})
+  public int targets;
+
+  private LatLng[] mTargets;
+  private double[] mLatitudes;
+  private double[] mLongitudes;
+  private float[] mDistances;
+  private float[] mBearings;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(761);
+    mTargets = new LatLng[targets];
+    for(int i = 0; i < targets; i++) {
+      mTargets[i] = BenchmarkData.randomLocation(random, Configuration.AIRCRAFTS_MAX_DISTANCE);
+    }
+    mLatitudes = new double[targets];
+    mLongitudes = new double[targets];
+    for(int i = 0; i < targets; i++) {
+      mLatitudes[i] = mTargets[i].getLatitude();
+      mLongitudes[i] = mTargets[i].getLongitude();
+    }
+    mDistances = new float[targets];
+    mBearings = new float[targets];
+  }
+
+  @Benchmark
+  public void distance(Blackhole bh) {
+    for(LatLng target : mTargets) {
+      bh.consume(Geospatial.getDistance(BenchmarkData.VEHICLE, target));
+    }
+  }
+
+  @Benchmark
+  public void bearing(Blackhole bh) {
+    for(LatLng target : mTargets) {
+      bh.consume(Geospatial.getBearing(BenchmarkData.VEHICLE, target));
+    }
+  }
+
+  @Benchmark
+  public void distanceAndBearing(Blackhole bh) {
+    for(LatLng target : mTargets) {
+      bh.consume(Geospatial.getDistance(BenchmarkData.VEHICLE, target));
+      bh.consume(Geospatial.getBearing(BenchmarkData.VEHICLE, target));
+    }
+  }
+
+  @Benchmark
+  public void batchDistanceAndBearing(Blackhole bh) {
+    Geospatial.getDistancesAndBearings(BenchmarkData.VEHICLE, mLatitudes, mLongitudes, targets, mDistances, mBearings);
+    bh.consume(mDistances);
+    bh.consume(mBearings);
+  }
+
+  @Benchmark
+  public void destination(Blackhole bh) {
+    float distance = Geospatial.toMeters(Configuration.AIRCRAFTS_MAX_DISTANCE);
+    for(int i = 0; i < mTargets.length; i++) {
+      bh.consume(Geospatial.getDestination(BenchmarkData.VEHICLE, distance, i % 360));
+    }
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.jsd.x761.nexus;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks parsing crowd-sourced reports and aircraft state vectors from
+ * realistic server payloads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParsersBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class Reports {
+    @Param({"50", "200", "1000"})
+    public int reports;
+
+    String mJson;
+
+    @Setup
+    public void setup() {
+      mJson = BenchmarkData.reportsJson(reports);
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class Aircrafts {
+    @Param({"500", "5000"})
+    public int vectors;
+
+    AircraftsDatabase mAircraftsDatabase;
+    String mJson;
+
+    @Setup
+    public void setup() {
+      mAircraftsDatabase = BenchmarkData.aircraftsDatabase();
+      mJson = BenchmarkData.aircraftsJson(vectors, 0.01f, mAircraftsDatabase);
+    }
+  }
+
+  @Benchmark
+  public List<Alert> parseReports(Reports state) throws IOException {
+    return ReportsParser.parse(state.mJson, BenchmarkData.VEHICLE, BenchmarkData.VEHICLE_BEARING);
+  }
+
+  @Benchmark
+  public List<Alert> parseAircrafts(Aircrafts state) throws IOException, JSONException {
+    return AircraftsParser.parse(state.mJson, BenchmarkData.VEHICLE, BenchmarkData.VEHICLE_BEARING, state.mAircraftsDatabase);
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+/**
+ * Projects the position of an aircraft between state vector updates from
+ * its last reported position, velocity, true track and vertical rate,
+ * assuming it keeps a constant speed and heading. The projection always
+ * starts from the reported position so errors don't accumulate over
+ * location updates, and it's capped to a maximum time after which the
+ * aircraft is left where it was last projected.
+ */
+public class AircraftPredictor {
+  private static final String TAG = "AIRCRAFT_PREDICTOR";
+
+  /**
+   * Project the position of an aircraft alert to the given time in
+   * milliseconds.
+   */
+  public static void predict(Alert aircraft, long time) {
+    if(aircraft.reportedTime == 0 || !aircraft.hasVelocity) {
+      return;
+    }
+    long elapsed = Math.min(Math.max(time - aircraft.reportedTime, 0), Configuration.AIRCRAFTS_MAX_PREDICTION_TIME);
+    float seconds = elapsed / 1000.0f;
+    LatLng position =
+      Geospatial.getDestination(new LatLng(aircraft.reportedLatitude, aircraft.reportedLongitude), aircraft.velocity * seconds, aircraft.track);
+    aircraft.latitude = position.getLatitude();
+    aircraft.longitude = position.getLongitude();
+    aircraft.altitude = Math.max(aircraft.reportedAltitude + aircraft.verticalRate * seconds, 0.0f);
+    Log.i(
+      TAG, String.format(
+        "aircraft %s projected %f s to lat %f lng %f altitude %f", aircraft.transponder, seconds, (float)aircraft.latitude,
+        (float)aircraft.longitude, aircraft.altitude));
+  }
+}
@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A simple database of interesting aircrafts, in a compact binary form that
+ * can be memory mapped and looked up in place without parsing it. The file
+ * holds a header, the sorted table of 24-bit transponder icao24 addresses,
+ * the manufacturer, ICAO description, owner and display manufacturer name
+ * of each aircraft as indexes in a shared pool of strings, the aircraft type
+ * of each aircraft classified from its ICAO description, the offsets of the
+ * strings and the pool of UTF-8 strings. The binary form is compiled from
+ * the CSV form with compile, see the compileAircraftsDatabase Gradle task.
+ */
+public class AircraftsDatabase {
+  private static final String TAG = "AIRCRAFTS_DATABASE";
+
+  public static final int MAGIC = 0x4e584144;
+  public static final int VERSION = 2;
+  private static final int HEADER_SIZE = 16;
+  private static final int ATTRIBUTES = 4;
+  private static final int ATTRIBUTE_MANUFACTURER = 0;
+  private static final int ATTRIBUTE_ICAO_DESCRIPTION = 1;
+  private static final int ATTRIBUTE_OWNER = 2;
+  private static final int ATTRIBUTE_MANUFACTURER_NAME = 3;
+
+  public static final int AIRCRAFT_TYPE_AIRCRAFT = 0;
+  public static final int AIRCRAFT_TYPE_AIRPLANE = 1;
+  public static final int AIRCRAFT_TYPE_HELICOPTER = 2;
+  public static final int AIRCRAFT_TYPE_DRONE = 3;
+  public static final String[] AIRCRAFT_TYPE_NAMES = {"Aircraft", "Airplane", "Helicopter", "Drone"};
+
+  private final ByteBuffer mBuffer;
+  private final int mSize;
+  private final int mAttributesOffset;
+  private final int mTypesOffset;
+  private final int mStringOffsetsOffset;
+  private final int mStringsOffset;
+
+  public AircraftsDatabase() {
+    mBuffer = ByteBuffer.allocate(0);
+    mSize = 0;
+    mAttributesOffset = 0;
+    mTypesOffset = 0;
+    mStringOffsetsOffset = 0;
+    mStringsOffset = 0;
+  }
+
+  /**
+   * Load the database from its binary form, typically memory mapped from
+   * assets/interesting_aircrafts.bin. The buffer is used in place.
+   */
+  public AircraftsDatabase(ByteBuffer buffer) throws IOException {
+    Log.i(TAG, "loading aircrafts database");
+    if(buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+      throw new IOException("Invalid aircrafts database");
+    }
+    int version = buffer.getInt(4);
+    if(version != VERSION) {
+      throw new IOException(String.format("Unsupported aircrafts database version %d", version));
+    }
+    mBuffer = buffer;
+    mSize = buffer.getInt(8);
+    int stringCount = buffer.getInt(12);
+    mAttributesOffset = HEADER_SIZE + mSize * 4;
+    mTypesOffset = mAttributesOffset + mSize * ATTRIBUTES * 4;
+    mStringOffsetsOffset = mTypesOffset + getTypesSize(mSize);
+    mStringsOffset = mStringOffsetsOffset + (stringCount + 1) * 4;
+    if(mSize < 0 || stringCount < 0 || mStringsOffset > buffer.limit() ||
+      mStringsOffset + buffer.getInt(mStringOffsetsOffset + stringCount * 4) > buffer.limit()) {
+      throw new IOException("Truncated aircrafts database");
+    }
+  }
+
+  /**
+   * Load the database from its CSV form, typically
+   * assets/interesting_aircrafts.csv.
+   */
+  public AircraftsDatabase(InputStream inputStream) throws IOException {
+    this(ByteBuffer.wrap(compile(inputStream)));
+  }
+
+  /**
+   * Compile the CSV form of the database into its binary form.
+   */
+  public static byte[] compile(InputStream inputStream) throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    compile(inputStream, outputStream);
+    return outputStream.toByteArray();
+  }
+
+  public static void compile(InputStream inputStream, OutputStream outputStream) throws IOException {
+    // Sort the aircrafts by transponder, the last row wins for a duplicate
+    // transponder like a map would
+    TreeMap<Integer, String[]> aircrafts = new TreeMap<>();
+    BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    String line;
+    while((line = reader.readLine()) != null) {
+      String[] aircraftInfo = line.split(",");
+      int transponder = parseTransponder(aircraftInfo[0], 0, aircraftInfo[0].length());
+      if(transponder < 0) {
+        Log.e(TAG, String.format("invalid transponder icao24 address %s", aircraftInfo[0]));
+        continue;
+      }
+      aircrafts.put(transponder, aircraftInfo);
+    }
+
+    // Intern attributes as many aircrafts share the same manufacturers,
+    // types and owners, and classify the aircrafts once here rather than
+    // for every state vector
+    List<byte[]> strings = new ArrayList<>();
+    Map<String, Integer> stringIndexes = new HashMap<>();
+    int[] attributes = new int[aircrafts.size() * ATTRIBUTES];
+    byte[] types = new byte[getTypesSize(aircrafts.size())];
+    int row = 0;
+    for(String[] aircraftInfo : aircrafts.values()) {
+      String[] values = new String[ATTRIBUTES];
+      for(int i = 0; i < ATTRIBUTE_MANUFACTURER_NAME; i++) {
+        values[i] = i + 1 < aircraftInfo.length ? aircraftInfo[i + 1] : "";
+      }
+      values[ATTRIBUTE_MANUFACTURER_NAME] = getManufacturerName(values[ATTRIBUTE_MANUFACTURER]);
+      types[row] = (byte)getAircraftType(values[ATTRIBUTE_ICAO_DESCRIPTION]);
+      for(int i = 0; i < ATTRIBUTES; i++) {
+        String value = values[i];
+        Integer index = stringIndexes.get(value);
+        if(index == null) {
+          index = strings.size();
+          strings.add(value.getBytes(StandardCharsets.UTF_8));
+          stringIndexes.put(value, index);
+        }
+        attributes[row * ATTRIBUTES + i] = index;
+      }
+      row++;
+    }
+
+    DataOutputStream output = new DataOutputStream(outputStream);
+    output.writeInt(MAGIC);
+    output.writeInt(VERSION);
+    output.writeInt(aircrafts.size());
+    output.writeInt(strings.size());
+    for(int transponder : aircrafts.keySet()) {
+      output.writeInt(transponder);
+    }
+    for(int attribute : attributes) {
+      output.writeInt(attribute);
+    }
+    output.write(types);
+    int offset = 0;
+    for(byte[] string : strings) {
+      output.writeInt(offset);
+      offset += string.length;
+    }
+    output.writeInt(offset);
+    for(byte[] string : strings) {
+      output.write(string);
+    }
+    output.flush();
+  }
+
+  private static int getTypesSize(int size) {
+    // Keep the following tables aligned on ints
+    return (size + 3) & ~3;
+  }
+
+  /**
+   * Classify an aircraft from its ICAO description: a landplane, seaplane,
+   * amphibian or tiltrotor is an airplane, a helicopter or gyrocopter is a
+   * helicopter, and either one with an electric engine is a drone.
+   */
+  public static int getAircraftType(String icaoDescription) {
+    if(icaoDescription.length() != 3) {
+      return AIRCRAFT_TYPE_AIRCRAFT;
+    }
+    char kind = icaoDescription.charAt(0);
+    boolean electric = icaoDescription.charAt(2) == 'E';
+    switch(kind) {
+      case 'L':
+      case 'S':
+      case 'A':
+      case 'T':
+        return electric ? AIRCRAFT_TYPE_DRONE : AIRCRAFT_TYPE_AIRPLANE;
+      case 'H':
+      case 'G':
+        return electric ? AIRCRAFT_TYPE_DRONE : AIRCRAFT_TYPE_HELICOPTER;
+      default:
+        return AIRCRAFT_TYPE_AIRCRAFT;
+    }
+  }
+
+  /**
+   * Return the name of a manufacturer as displayed and announced, only
+   * capitalized on its first letter.
+   */
+  public static String getManufacturerName(String manufacturer) {
+    if(manufacturer.length() == 0) {
+      return manufacturer;
+    }
+    return manufacturer.substring(0, 1).toUpperCase(Locale.ROOT) + manufacturer.substring(1).toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Parse a transponder icao24 address from hex characters, return -1 if
+   * they're not a valid address.
+   */
+  public static int parseTransponder(CharSequence chars, int start, int end) {
+    if(end - start == 0 || end - start > 6) {
+      return -1;
+    }
+    int transponder = 0;
+    for(int i = start; i < end; i++) {
+      int digit = Character.digit(chars.charAt(i), 16);
+      if(digit < 0) {
+        return -1;
+      }
+      transponder = (transponder << 4) | digit;
+    }
+    return transponder;
+  }
+
+  public static String toTransponderString(int transponder) {
+    return String.format("%06x", transponder);
+  }
+
+  public int size() {
+    return mSize;
+  }
+
+  /**
+   * Return the row of an aircraft given its transponder icao24 address, or
+   * -1 if it's not an interesting aircraft.
+   */
+  public int find(int transponder) {
+    if(transponder < 0) {
+      return -1;
+    }
+    int low = 0;
+    int high = mSize - 1;
+    while(low <= high) {
+      int mid = (low + high) >>> 1;
+      int value = mBuffer.getInt(HEADER_SIZE + mid * 4);
+      if(value < transponder) {
+        low = mid + 1;
+      }
+      else if(value > transponder) {
+        high = mid - 1;
+      }
+      else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  public int find(CharSequence transponder) {
+    return find(parseTransponder(transponder, 0, transponder.length()));
+  }
+
+  public int getTransponder(int row) {
+    return mBuffer.getInt(HEADER_SIZE + row * 4);
+  }
+
+  public String getManufacturer(int row) {
+    return getAttribute(row, ATTRIBUTE_MANUFACTURER);
+  }
+
+  public String getIcaoDescription(int row) {
+    return getAttribute(row, ATTRIBUTE_ICAO_DESCRIPTION);
+  }
+
+  public String getOwner(int row) {
+    return getAttribute(row, ATTRIBUTE_OWNER);
+  }
+
+  public String getManufacturerName(int row) {
+    return getAttribute(row, ATTRIBUTE_MANUFACTURER_NAME);
+  }
+
+  public int getAircraftType(int row) {
+    return mBuffer.get(mTypesOffset + row);
+  }
+
+  private String getAttribute(int row, int attribute) {
+    int index = mBuffer.getInt(mAttributesOffset + (row * ATTRIBUTES + attribute) * 4);
+    int start = mBuffer.getInt(mStringOffsetsOffset + index * 4);
+    int end = mBuffer.getInt(mStringOffsetsOffset + (index + 1) * 4);
+    byte[] bytes = new byte[end - start];
+    for(int i = 0; i < bytes.length; i++) {
+      bytes[i] = mBuffer.get(mStringsOffset + start + i);
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Return the info of an aircraft in the form of a CSV row: transponder,
+   * manufacturer, ICAO description and owner.
+   */
+  public String[] getAircraftInfo(int row) {
+    return new String[] {toTransponderString(getTransponder(row)), getManufacturer(row), getIcaoDescription(row), getOwner(row)};
+  }
+}
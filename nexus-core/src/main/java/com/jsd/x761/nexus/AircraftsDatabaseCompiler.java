@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Compiles the CSV form of the interesting aircrafts database into the
+ * binary form loaded by the app, run by the compileAircraftsDatabase Gradle
+ * task.
+ */
+public class AircraftsDatabaseCompiler {
+
+  public static void main(String[] args) throws IOException {
+    if(args.length != 2) {
+      System.err.println("usage: AircraftsDatabaseCompiler <interesting_aircrafts.csv> <interesting_aircrafts.bin>");
+      System.exit(1);
+    }
+    try(InputStream inputStream = new FileInputStream(args[0]);
+        OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(args[1]))) {
+      AircraftsDatabase.compile(inputStream, outputStream);
+    }
+  }
+}
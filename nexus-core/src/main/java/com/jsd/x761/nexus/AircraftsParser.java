@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses aircraft state vectors returned by a server into a list of aircraft
+ * alerts relative to the vehicle location, keeping only interesting
+ * aircrafts from the aircrafts database.
+ */
+public class AircraftsParser {
+  private static final String TAG = "AIRCRAFTS_PARSER";
+
+  public static List<Alert> parse(String jsonString, LatLng location, float bearing, AircraftsDatabase aircraftsDatabase) throws IOException, JSONException {
+    return parse(new StringReader(jsonString), location, bearing, aircraftsDatabase);
+  }
+
+  /**
+   * Parse aircraft state vectors from a stream. Only the transponder address
+   * of each state vector is read before looking it up in the aircrafts
+   * database, the rest of the state vectors of uninteresting aircrafts are
+   * skipped without being materialized.
+   */
+  public static List<Alert> parse(Reader reader, LatLng location, float bearing, AircraftsDatabase aircraftsDatabase) throws IOException, JSONException {
+    // Use a fast distance approximation to skip out of range aircrafts
+    DistanceCalculator distanceCalculator = new DistanceCalculator(Configuration.FILTER_DISTANCE_MODE, location);
+    float maxDistance = Geospatial.toMeters(Configuration.AIRCRAFTS_MAX_DISTANCE);
+
+    List<Alert> aircrafts = new ArrayList<>();
+    JsonPullParser parser = new JsonPullParser(reader);
+    parser.beginObject();
+    while(parser.hasNext()) {
+      if(!"states".equals(parser.nextName()) || parser.peek() != JsonPullParser.TOKEN_BEGIN_ARRAY) {
+        parser.skipValue();
+        continue;
+      }
+      parser.beginArray();
+      int n = 0;
+      while(parser.hasNext()) {
+        if(parser.peek() != JsonPullParser.TOKEN_BEGIN_ARRAY) {
+          parser.skipValue();
+          continue;
+        }
+        parser.beginArray();
+
+        // Only keep aicraft state vectors of relevant types, not on the
+        // ground and within the configured distance, looking up their
+        // transponder address without allocating anything
+        int row = -1;
+        if(parser.hasNext() && parser.peek() == JsonPullParser.TOKEN_STRING) {
+          row = aircraftsDatabase.find(parser.nextChars());
+        }
+        if(row < 0) {
+          while(parser.hasNext()) {
+            parser.skipValue();
+          }
+          parser.endArray();
+          continue;
+        }
+        String transponder = AircraftsDatabase.toTransponderString(aircraftsDatabase.getTransponder(row));
+        Log.i(TAG, String.format("aircraft transponder icao24 address %s", transponder));
+
+        // Materialize the few state vectors of interesting aircrafts
+        StringBuilder jsonString = new StringBuilder();
+        jsonString.append('[').append(JSONObject.quote(transponder));
+        while(parser.hasNext()) {
+          jsonString.append(',').append(parser.nextRawValue());
+        }
+        jsonString.append(']');
+        parser.endArray();
+
+        try {
+          JSONArray jsonAircraft = new JSONArray(jsonString.toString());
+          if(Configuration.DEBUG_INJECT_TEST_AIRCRAFTS == 0) {
+            // Skip aircrafts on the ground or out of range before
+            // computing their exact distance and bearing
+            double latitude = jsonAircraft.optDouble(6);
+            double longitude = jsonAircraft.optDouble(5);
+            if(jsonAircraft.optBoolean(8)) {
+              continue;
+            }
+            if(!Double.isNaN(latitude) && !Double.isNaN(longitude) && !distanceCalculator.isWithinRange(latitude, longitude, maxDistance)) {
+              continue;
+            }
+          }
+          Alert aircraft = Alert.fromAircraft(location, bearing, jsonAircraft, aircraftsDatabase.getAircraftType(row),
+            aircraftsDatabase.getManufacturerName(row), aircraftsDatabase.getOwner(row));
+          if(Configuration.DEBUG_INJECT_TEST_AIRCRAFTS != 0) {
+            if(n < Configuration.DEBUG_INJECT_TEST_AIRCRAFTS) {
+              aircrafts.add(aircraft);
+              n++;
+            }
+          }
+          else {
+            if(!aircraft.onGround && aircraft.distance <= Configuration.AIRCRAFTS_MAX_DISTANCE) {
+              aircrafts.add(aircraft);
+            }
+          }
+        }
+        catch(Exception e) {
+          Log.e(TAG, "Exception processing aircraft state vector", e);
+        }
+      }
+      parser.endArray();
+    }
+    parser.endObject();
+    return aircrafts;
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+/**
+ * Schedules the polls of the aircrafts source within its daily credit
+ * budget. The interval is paced from the remaining credits returned by the
+ * server until the budget is reset, shortened when interesting aircrafts
+ * are nearby or the vehicle is fast, lengthened when the area was empty on
+ * the last few polls, and backed off when the server rate limits the app.
+ */
+public class AircraftsPollScheduler {
+  private static final String TAG = "AIRCRAFTS_POLL_SCHEDULER";
+
+  public static final int HTTP_TOO_MANY_REQUESTS = 429;
+  private static final long DAY = 24 * 60 * 60 * 1000;
+
+  private final long mBaseInterval;
+  private long mInterval;
+  private int mRemainingCredits = -1;
+  private int mCredits = 1;
+  private long mRetryAfter = -1;
+  private int mBackoffCount;
+  private int mLastAircrafts;
+  private int mEmptyPolls;
+
+  /**
+   * Create a scheduler for anonymous or authenticated polls, using their
+   * fixed configured intervals until the server returns its remaining
+   * credits.
+   */
+  public AircraftsPollScheduler(boolean authenticated) {
+    mBaseInterval = authenticated ? Configuration.AIRCRAFTS_AUTHENTICATED_CHECK_TIMER : Configuration.AIRCRAFTS_ANONYMOUS_CHECK_TIMER;
+    mInterval = mBaseInterval;
+  }
+
+  /**
+   * Record a response from the server, given its HTTP response code, the
+   * credits charged for the query, its X-Rate-Limit-Remaining and
+   * X-Rate-Limit-Retry-After-Seconds headers if present and the number of
+   * interesting aircrafts found.
+   */
+  public void onResponse(int responseCode, int credits, String remainingCredits, String retryAfter, int aircrafts) {
+    if(credits > 0) {
+      mCredits = credits;
+    }
+    int remaining = parseHeader(remainingCredits);
+    if(remaining >= 0) {
+      mRemainingCredits = remaining;
+    }
+    long retryAfterSeconds = parseHeader(retryAfter);
+    mRetryAfter = retryAfterSeconds >= 0 ? retryAfterSeconds * 1000 : -1;
+    if(responseCode == HTTP_TOO_MANY_REQUESTS) {
+      Log.i(TAG, String.format("rate limited, retry after %s", retryAfter));
+      mBackoffCount++;
+      return;
+    }
+    mBackoffCount = 0;
+    mLastAircrafts = aircrafts;
+    mEmptyPolls = aircrafts == 0 ? mEmptyPolls + 1 : 0;
+  }
+
+  /**
+   * Return the interval in milliseconds until the next poll, given the
+   * vehicle speed in m/s and the current time in milliseconds.
+   */
+  public long getNextInterval(float speed, long time) {
+    long interval;
+    if(mBackoffCount != 0) {
+      // Wait as long as the server asks or back off exponentially
+      if(mRetryAfter >= 0) {
+        interval = mRetryAfter;
+      }
+      else {
+        interval = Math.min(mBaseInterval << Math.min(mBackoffCount, 16), Configuration.AIRCRAFTS_MAX_CHECK_TIMER);
+      }
+    }
+    else if(mRemainingCredits >= 0 && mRemainingCredits < mCredits) {
+      // Wait for the budget to be reset, checking back regularly in case
+      // it's reset earlier
+      interval = mRetryAfter >= 0 ? mRetryAfter : Math.min(getTimeUntilReset(time), Configuration.AIRCRAFTS_MAX_CHECK_TIMER);
+    }
+    else {
+      // Spread the remaining credits until the budget is reset, then spend
+      // more where it matters and less on empty areas
+      float pacing = mRemainingCredits > 0 ? (float)getTimeUntilReset(time) * mCredits / mRemainingCredits : mBaseInterval;
+      float factor = 1.0f;
+      if(mLastAircrafts != 0) {
+        factor *= Configuration.AIRCRAFTS_NEARBY_CHECK_FACTOR;
+      }
+      else if(mEmptyPolls >= Configuration.AIRCRAFTS_EMPTY_CHECK_COUNT) {
+        factor *= Configuration.AIRCRAFTS_EMPTY_CHECK_FACTOR;
+      }
+      if(speed >= Configuration.AIRCRAFTS_FAST_VEHICLE_SPEED) {
+        factor *= Configuration.AIRCRAFTS_FAST_VEHICLE_CHECK_FACTOR;
+      }
+      interval = Math.round(pacing * factor);
+      interval = Math.max(Configuration.AIRCRAFTS_MIN_CHECK_TIMER, Math.min(interval, Configuration.AIRCRAFTS_MAX_CHECK_TIMER));
+    }
+    mInterval = interval;
+    Log.i(TAG, String.format("aircrafts poll interval %d remaining credits %d", mInterval, mRemainingCredits));
+    return interval;
+  }
+
+  /**
+   * Return the last interval chosen until the next poll in milliseconds.
+   */
+  public long getInterval() {
+    return mInterval;
+  }
+
+  /**
+   * Return the remaining credits last returned by the server, or -1 if
+   * unknown.
+   */
+  public int getRemainingCredits() {
+    return mRemainingCredits;
+  }
+
+  private static long getTimeUntilReset(long time) {
+    // The credits are reset daily at midnight UTC
+    return DAY - time % DAY;
+  }
+
+  private static int parseHeader(String value) {
+    if(value == null) {
+      return -1;
+    }
+    try {
+      return Math.max(Integer.parseInt(value.trim()), 0);
+    }
+    catch(NumberFormatException e) {
+      return -1;
+    }
+  }
+}
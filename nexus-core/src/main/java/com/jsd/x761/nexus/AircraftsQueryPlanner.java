@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+/**
+ * Plans the area of the aircraft state vector queries. The server charges
+ * credits by the area of the queried box, so the planner covers the full
+ * distance of interest around the vehicle as long as it fits in the
+ * cheapest credit tier, like the range filter of the aircrafts. Otherwise
+ * it picks the smallest box that covers a narrower region of interest: the
+ * full distance ahead and on the sides and a shorter distance behind a
+ * moving vehicle, or a smaller circle around a stationary vehicle, capped
+ * to the area of the cheapest credit tier.
+ */
+public class AircraftsQueryPlanner {
+  private static final String TAG = "AIRCRAFTS_QUERY_PLANNER";
+
+  // Areas in square degrees of the server credit tiers
+  private static final double[] CREDIT_TIER_AREAS = {25.0, 100.0, 400.0};
+  // Sample the boundary of the region of interest every few degrees, and
+  // widen it slightly so the samples still cover the region between them,
+  // with some room for rounding errors
+  private static final int SAMPLE_DEGREES = 10;
+  private static final float SAMPLE_MARGIN = (float)(1.001 / Math.cos(Math.toRadians(SAMPLE_DEGREES / 2.0)));
+
+  /**
+   * Return the box to query given the vehicle location, bearing in degrees
+   * and speed in m/s, and the max distance of interest in meters.
+   */
+  public static BoundingBox plan(LatLng location, float bearing, float speed, float distance) {
+    // Query all the aircrafts in range when it doesn't cost more, so
+    // aircrafts don't drop out of the query between polls while still in
+    // range
+    BoundingBox box = getBoundingBox(location, bearing, distance, distance, distance);
+    if(box.getArea() <= CREDIT_TIER_AREAS[0]) {
+      Log.i(TAG, String.format("aircrafts query %s area %f credit tier %d full range", box, (float)box.getArea(), getCreditTier(box)));
+      return box;
+    }
+
+    boolean stationary = speed < Configuration.AIRCRAFTS_QUERY_STATIONARY_SPEED;
+    float ahead = stationary ? distance * Configuration.AIRCRAFTS_QUERY_STATIONARY_DISTANCE_FACTOR : distance;
+    float behind = stationary ? ahead : distance * Configuration.AIRCRAFTS_QUERY_BEHIND_DISTANCE_FACTOR;
+    float side = ahead;
+
+    box = getBoundingBox(location, bearing, ahead, behind, side);
+    double area = box.getArea();
+    if(area > CREDIT_TIER_AREAS[0]) {
+      // Shrink the region to stay in the cheapest credit tier
+      float scale = (float)Math.sqrt(CREDIT_TIER_AREAS[0] / area) * 0.99f;
+      box = getBoundingBox(location, bearing, ahead * scale, behind * scale, side * scale);
+    }
+    Log.i(TAG, String.format("aircrafts query %s area %f credit tier %d stationary %b", box, (float)box.getArea(), getCreditTier(box), stationary));
+    return box;
+  }
+
+  /**
+   * Return the credits charged by the server for a query of the given box.
+   */
+  public static int getCreditTier(BoundingBox box) {
+    double area = box.getArea();
+    for(int i = 0; i < CREDIT_TIER_AREAS.length; i++) {
+      if(area <= CREDIT_TIER_AREAS[i]) {
+        return i + 1;
+      }
+    }
+    return CREDIT_TIER_AREAS.length + 1;
+  }
+
+  private static BoundingBox getBoundingBox(LatLng location, float bearing, float ahead, float behind, float side) {
+    double latitude = location.getLatitude();
+    double longitude = location.getLongitude();
+    double minLatitude = latitude;
+    double maxLatitude = latitude;
+    double minDeltaLongitude = 0.0;
+    double maxDeltaLongitude = 0.0;
+    for(int angle = 0; angle < 360; angle += SAMPLE_DEGREES) {
+      // A half circle ahead and a half ellipse behind the vehicle
+      double theta = Math.toRadians(angle);
+      double cos = Math.cos(theta);
+      double sin = Math.sin(theta);
+      double radius;
+      if(cos >= 0) {
+        radius = ahead;
+      }
+      else {
+        radius = 1.0 / Math.sqrt((cos / behind) * (cos / behind) + (sin / side) * (sin / side));
+      }
+      LatLng point = Geospatial.getDestination(location, (float)radius * SAMPLE_MARGIN, bearing + angle);
+      minLatitude = Math.min(minLatitude, point.getLatitude());
+      maxLatitude = Math.max(maxLatitude, point.getLatitude());
+      double deltaLongitude = Geospatial.getDeltaLongitude(longitude, point.getLongitude());
+      minDeltaLongitude = Math.min(minDeltaLongitude, deltaLongitude);
+      maxDeltaLongitude = Math.max(maxDeltaLongitude, deltaLongitude);
+    }
+    return new BoundingBox(minLatitude, longitude + minDeltaLongitude, maxLatitude, longitude + maxDeltaLongitude);
+  }
+}
@@ -19,15 +19,13 @@
 
 package com.jsd.x761.nexus;
 
-import android.location.Location;
-import android.util.Log;
-
-import com.nolimits.ds1library.DS1Service;
-
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Represents an alert: a DS1 alert, a crowd-sourced report or an aircraft
  * state vector.
@@ -55,6 +53,12 @@ public class Alert {
   public static final int ALERT_DIRECTION_SIDE = 1;
   public static final int ALERT_DIRECTION_BACK = 2;
 
+  private static final float DUPLICATE_METERS = Geospatial.toMeters(Configuration.REPORTS_DUPLICATE_DISTANCE);
+  private static final float DUPLICATE_METERS_ERROR =
+    Geospatial.getDistanceError(Configuration.REPORTS_DUPLICATE_DISTANCE_MODE, 90, DUPLICATE_METERS);
+
+  // Identifies a live alert across updates, 0 until it's first published
+  public long id;
   public int alertClass = 0;
   public int direction = 0;
   public int band = 0;
@@ -76,68 +80,115 @@ public class Alert {
   public String callSign;
   public boolean onGround;
   public float altitude;
+  // Last position reported by the aircraft, its time in milliseconds, 0 if
+  // unknown, and its motion, to project the position between updates
+  public double reportedLatitude;
+  public double reportedLongitude;
+  public float reportedAltitude;
+  public long reportedTime;
+  public boolean hasVelocity;
+  public float velocity;
+  public float track;
+  public float verticalRate;
   public String owner;
+  // Manufacturer name as displayed and announced
   public String manufacturer;
 
   public int announced;
   public float announceDistance = 0.0f;
   public int announceBearing = 0;
   public int priority;
+  // Display and speech text rendered from the alert, see AlertText
+  public AlertText text;
 
   public Alert() {
   }
 
   /**
-   * Construct an alert from a DS1 alert.
+   * Return a copy of the alert, to publish the state of a live alert.
    */
-  public static Alert fromDS1Alert(DS1Service.RD_Alert ds1Alert) {
+  public Alert copy() {
     Alert alert = new Alert();
-    Log.i(TAG, String.format(
-      "fromDS1Alert id %s type %s freq %f muted %b intensity %d raw_value %d",
-      ds1Alert.alert_id, ds1Alert.type, ds1Alert.freq, ds1Alert.muted, ds1Alert.rssi, ds1Alert.raw_value));
-
-    switch(ds1Alert.alert_dir) {
-      case ALERT_DIR_FRONT -> alert.direction = ALERT_DIRECTION_FRONT;
-      case ALERT_DIR_SIDE -> alert.direction = ALERT_DIRECTION_SIDE;
-      default -> alert.direction = ALERT_DIRECTION_BACK;
-    }
+    alert.id = id;
+    alert.alertClass = alertClass;
+    alert.direction = direction;
+    alert.band = band;
+    alert.intensity = intensity;
+    alert.frequency = frequency;
+    alert.muted = muted;
+    alert.type = type;
+    alert.subType = subType;
+    alert.city = city;
+    alert.street = street;
+    alert.longitude = longitude;
+    alert.latitude = latitude;
+    alert.thumbsUp = thumbsUp;
+    alert.distance = distance;
+    alert.bearing = bearing;
+    alert.transponder = transponder;
+    alert.callSign = callSign;
+    alert.onGround = onGround;
+    alert.altitude = altitude;
+    alert.reportedLatitude = reportedLatitude;
+    alert.reportedLongitude = reportedLongitude;
+    alert.reportedAltitude = reportedAltitude;
+    alert.reportedTime = reportedTime;
+    alert.hasVelocity = hasVelocity;
+    alert.velocity = velocity;
+    alert.track = track;
+    alert.verticalRate = verticalRate;
+    alert.owner = owner;
+    alert.manufacturer = manufacturer;
+    alert.announced = announced;
+    alert.announceDistance = announceDistance;
+    alert.announceBearing = announceBearing;
+    alert.priority = priority;
+    alert.text = text;
+    return alert;
+  }
 
-    alert.intensity = (ds1Alert.rssi + 2) * 10;
-    alert.frequency = ds1Alert.freq;
-    alert.muted = ds1Alert.muted;
+  /**
+   * Construct an alert from the fields of a DS1 alert.
+   */
+  public static Alert fromDS1Alert(String type, int direction, int rssi, float frequency, boolean muted) {
+    Alert alert = new Alert();
+    alert.direction = direction;
+    alert.intensity = (rssi + 2) * 10;
+    alert.frequency = frequency;
+    alert.muted = muted;
 
-    if(ds1Alert.type.compareTo("X") == 0) {
+    if(type.compareTo("X") == 0) {
       alert.alertClass = ALERT_CLASS_RADAR;
       alert.band = 0;
     }
-    else if(0 == ds1Alert.type.compareTo("K")) {
+    else if(0 == type.compareTo("K")) {
       alert.alertClass = ALERT_CLASS_RADAR;
       alert.band = 1;
     }
-    else if(0 == ds1Alert.type.compareTo("KA")) {
+    else if(0 == type.compareTo("KA")) {
       alert.alertClass = ALERT_CLASS_RADAR;
       alert.band = 2;
     }
-    else if(0 == ds1Alert.type.compareTo("Laser")) {
+    else if(0 == type.compareTo("Laser")) {
       alert.alertClass = ALERT_CLASS_LASER;
     }
-    else if(0 == ds1Alert.type.compareTo("POP")) {
+    else if(0 == type.compareTo("POP")) {
       alert.alertClass = ALERT_CLASS_RADAR;
       alert.band = 3;
     }
-    else if(0 == ds1Alert.type.compareTo("MRCD")) {
+    else if(0 == type.compareTo("MRCD")) {
       alert.alertClass = ALERT_CLASS_RADAR;
       alert.band = 4;
     }
-    else if(0 == ds1Alert.type.compareTo("MRCT")) {
+    else if(0 == type.compareTo("MRCT")) {
       alert.alertClass = ALERT_CLASS_RADAR;
       alert.band = 5;
     }
-    else if(0 == ds1Alert.type.compareTo("GT3")) {
+    else if(0 == type.compareTo("GT3")) {
       alert.alertClass = ALERT_CLASS_RADAR;
       alert.band = 6;
     }
-    else if(0 == ds1Alert.type.compareTo("GT4")) {
+    else if(0 == type.compareTo("GT4")) {
       alert.alertClass = ALERT_CLASS_RADAR;
       alert.band = 7;
     }
@@ -167,53 +218,72 @@ public class Alert {
   /**
    * Construct an alert from a JSON object representing a crowd-sourced report.
    */
-  public static Alert fromReport(Location location, JSONObject jsonReport) {
+  public static Alert fromReport(LatLng location, float bearing, JSONObject jsonReport) {
     Log.i(TAG, "fromReport jsonReport");
 
-    Alert alert = new Alert();
-    alert.alertClass = ALERT_CLASS_REPORT;
+    String type = "";
+    String subType = "";
+    String city = "";
+    String street = "";
+    int thumbsUp = 0;
+    double latitude = 0.0;
+    double longitude = 0.0;
     try {
-      alert.type = jsonReport.getString("type");
+      type = jsonReport.getString("type");
     }
     catch(JSONException e) {
     }
     try {
-      alert.subType = jsonReport.getString("subtype");
+      subType = jsonReport.getString("subtype");
     }
     catch(JSONException e) {
     }
     try {
-      alert.city = jsonReport.getString("city");
-      // Remove state from the city as it's not useful
-      alert.city = alert.city.replaceAll("^(.*)(, [A-Z][A-Z])$", "$1");
+      city = jsonReport.getString("city");
     }
     catch(JSONException e) {
     }
     try {
-      alert.street = jsonReport.getString("street");
-      if(alert.street.startsWith("to ") && alert.street.length() > 3) {
-        alert.street = alert.street.substring(3);
-      }
+      street = jsonReport.getString("street");
     }
     catch(JSONException e) {
     }
     try {
-      alert.thumbsUp = jsonReport.getInt("nThumbsUp");
+      thumbsUp = jsonReport.getInt("nThumbsUp");
     }
     catch(JSONException e) {
     }
     try {
-      alert.longitude = jsonReport.getJSONObject("location").getDouble("x");
-      alert.latitude = jsonReport.getJSONObject("location").getDouble("y");
+      longitude = jsonReport.getJSONObject("location").getDouble("x");
+      latitude = jsonReport.getJSONObject("location").getDouble("y");
     }
     catch(JSONException e) {
     }
+    return fromReport(location, bearing, type, subType, city, street, thumbsUp, latitude, longitude);
+  }
+
+  /**
+   * Construct an alert from the fields of a report.
+   */
+  public static Alert fromReport(
+    LatLng location, float bearing, String type, String subType, String city, String street, int thumbsUp, double latitude, double longitude) {
+    Alert alert = new Alert();
+    alert.alertClass = ALERT_CLASS_REPORT;
+    alert.type = type;
+    alert.subType = subType;
+    // Remove state from the city as it's not useful
+    alert.city = city.replaceAll("^(.*)(, [A-Z][A-Z])$", "$1");
+    alert.street = street;
+    if(alert.street.startsWith("to ") && alert.street.length() > 3) {
+      alert.street = alert.street.substring(3);
+    }
+    alert.thumbsUp = thumbsUp;
+    alert.longitude = longitude;
+    alert.latitude = latitude;
     Log.i(TAG, String.format("report type %s subtype %s city %s street %s", alert.type, alert.subType, alert.city, alert.street));
     Log.i(TAG, String.format("report location lat %f lng %f", (float)alert.latitude, (float)alert.longitude));
 
-    Location target = new Location(location);
-    target.setLongitude(alert.longitude);
-    target.setLatitude(alert.latitude);
+    LatLng target = new LatLng(alert.latitude, alert.longitude);
 
     // Compute the distance between the vehicle and the report
     float meters = Geospatial.getDistance(location, target);
@@ -224,7 +294,6 @@ public class Alert {
     // Determine the bearing to the report relative to the vehicle bearing
     float bearingToTarget = Geospatial.getBearing(location, target);
     Log.i(TAG, String.format("report bearing %f", bearingToTarget));
-    float bearing = location.hasBearing() ? location.getBearing() : 0.0f;
     Log.i(TAG, String.format("vehicle bearing %f", bearing));
     float relativeBearing = Geospatial.getRelativeBearing(bearing, bearingToTarget);
     Log.i(TAG, String.format("report relative bearing %f", relativeBearing));
@@ -237,12 +306,22 @@ public class Alert {
   }
 
   /**
-   * Construct a new alert from an existing report alert and a potentially
-   * different location.
+   * Construct new alerts from existing report alerts and a potentially
+   * different location, computing all the distances and bearings in a
+   * single batch.
    */
-  public static Alert fromReport(Location location, Alert report) {
-    Log.i(TAG, "fromReport report");
+  public static List<Alert> fromReports(LatLng location, float bearing, List<Alert> reports) {
+    Log.i(TAG, String.format("fromReports %d reports", reports.size()));
+
+    List<Alert> alerts = new ArrayList<>(reports.size());
+    for(Alert report : reports) {
+      alerts.add(copyReport(report));
+    }
+    locateAlerts(location, bearing, alerts);
+    return alerts;
+  }
 
+  private static Alert copyReport(Alert report) {
     Alert alert = new Alert();
     alert.alertClass = ALERT_CLASS_REPORT;
     alert.type = report.type;
@@ -252,44 +331,52 @@ public class Alert {
     alert.thumbsUp = report.thumbsUp;
     alert.longitude = report.longitude;
     alert.latitude = report.latitude;
-
-    Location target = new Location(location);
-    target.setLongitude(alert.longitude);
-    target.setLatitude(alert.latitude);
-    Log.i(TAG, String.format("report type %s subtype %s city %s street %s", alert.type, alert.subType, alert.city, alert.street));
-    Log.i(TAG, String.format("report location lat %f lng %f", (float)alert.latitude, (float)alert.longitude));
-
-    // Compute the distance between the vehicle and the report
-    float meters = Geospatial.getDistance(location, target);
-    alert.distance = Geospatial.toMiles(meters);
-    Log.i(TAG, String.format("vehicle location lat %f lng %f", (float)location.getLatitude(), (float)location.getLongitude()));
-    Log.i(TAG, String.format("report distance %f", alert.distance));
-
-    // Determine the bearing to the report relative to the vehicle bearing
-    float bearingToTarget = Geospatial.getBearing(location, target);
-    Log.i(TAG, String.format("report bearing %f", bearingToTarget));
-    float bearing = location.hasBearing() ? location.getBearing() : 0.0f;
-    Log.i(TAG, String.format("vehicle bearing %f", bearing));
-    float relativeBearing = Geospatial.getRelativeBearing(bearing, bearingToTarget);
-    Log.i(TAG, String.format("report relative bearing %f", relativeBearing));
-    alert.bearing = Geospatial.toHour(relativeBearing);
-    Log.i(TAG, String.format("report relative bearing %d o'clock", alert.bearing));
-
-    // Determine the announcement priority, just use the distance for now
-    alert.priority = Math.round(meters);
     return alert;
   }
 
+  /**
+   * Compute the distance, relative bearing and priority of a list of alerts
+   * from the vehicle location and bearing.
+   */
+  private static void locateAlerts(LatLng location, float bearing, List<Alert> alerts) {
+    int count = alerts.size();
+    double[] latitudes = new double[count];
+    double[] longitudes = new double[count];
+    for(int i = 0; i < count; i++) {
+      Alert alert = alerts.get(i);
+      latitudes[i] = alert.latitude;
+      longitudes[i] = alert.longitude;
+    }
+    float[] distances = new float[count];
+    float[] bearings = new float[count];
+    Geospatial.getDistancesAndBearings(location, latitudes, longitudes, count, distances, bearings);
+
+    for(int i = 0; i < count; i++) {
+      Alert alert = alerts.get(i);
+      float meters = distances[i];
+      alert.distance = Geospatial.toMiles(meters);
+      alert.bearing = Geospatial.toHour(Geospatial.getRelativeBearing(bearing, bearings[i]));
+
+      // Determine the announcement priority, just use the distance for now
+      alert.priority = Math.round(meters);
+    }
+  }
+
   public boolean isDuplicateReport(Alert t2) {
     // A report of the same type within a small distance is considered a
     // duplicate report
     if(alertClass == t2.alertClass && type.equals(t2.type)) {
-      Location location = new Location("");
-      location.setLatitude(latitude);
-      location.setLongitude(longitude);
-      Location target = new Location("");
-      target.setLatitude(t2.latitude);
-      target.setLongitude(t2.longitude);
+      // Use a fast approximate distance first and only compute the exact
+      // distance when the approximation is too close to call
+      float meters = Geospatial.getDistance(Configuration.REPORTS_DUPLICATE_DISTANCE_MODE, latitude, longitude, t2.latitude, t2.longitude);
+      if(meters > DUPLICATE_METERS + DUPLICATE_METERS_ERROR) {
+        return false;
+      }
+      if(meters < DUPLICATE_METERS - DUPLICATE_METERS_ERROR) {
+        return true;
+      }
+      LatLng location = new LatLng(latitude, longitude);
+      LatLng target = new LatLng(t2.latitude, t2.longitude);
       float distance = Geospatial.toMiles(Geospatial.getDistance(location, target));
       return distance <= Configuration.REPORTS_DUPLICATE_DISTANCE;
     }
@@ -312,9 +399,25 @@ public class Alert {
   }
 
   /**
-   * Construct an alert from a JSON object representing an aircraft state vector.
+   * Construct an alert from a JSON object representing an aircraft state
+   * vector and the info of the aircraft in the form of a CSV row.
    */
-  public static Alert fromAircraft(Location location, JSONArray jsonAircraft, String[] aircraftInfo) {
+  public static Alert fromAircraft(LatLng location, float bearing, JSONArray jsonAircraft, String[] aircraftInfo) {
+    if(aircraftInfo == null) {
+      return fromAircraft(location, bearing, jsonAircraft, AircraftsDatabase.AIRCRAFT_TYPE_AIRCRAFT, null, "");
+    }
+    Log.i(TAG, String.format("aircraft info %s", String.join(",", aircraftInfo)));
+    return fromAircraft(location, bearing, jsonAircraft, AircraftsDatabase.getAircraftType(aircraftInfo[2]),
+      AircraftsDatabase.getManufacturerName(aircraftInfo[1]), aircraftInfo[3]);
+  }
+
+  /**
+   * Construct an alert from a JSON object representing an aircraft state
+   * vector, given the aircraft type and display manufacturer name already
+   * classified in the aircrafts database.
+   */
+  public static Alert fromAircraft(
+    LatLng location, float bearing, JSONArray jsonAircraft, int aircraftType, String manufacturerName, String owner) {
     Log.i(TAG, "fromAircraft jsonAircraft");
 
     Alert alert = new Alert();
@@ -336,28 +439,9 @@ public class Alert {
     }
     Log.i(TAG, String.format("aircraft transponder %s callSign %s onGround %b", alert.transponder, alert.callSign, alert.onGround));
 
-    alert.owner = "";
-    alert.type = "Aircraft";
-    if(aircraftInfo != null) {
-      Log.i(TAG, String.format("aircraft info %s", String.join(",", aircraftInfo)));
-      alert.owner = aircraftInfo[3];
-
-      String icaoDescription = aircraftInfo[2];
-      if(icaoDescription.matches("^[LSAT]..$")) {
-        alert.type = "Airplane";
-        if(icaoDescription.matches("^..E$")) {
-          alert.type = "Drone";
-        }
-      }
-      else if(icaoDescription.matches("^[HG]..$")) {
-        alert.type = "Helicopter";
-        if(icaoDescription.matches("^..E$")) {
-          alert.type = "Drone";
-        }
-      }
-
-      alert.manufacturer = aircraftInfo[1];
-    }
+    alert.owner = owner;
+    alert.type = AircraftsDatabase.AIRCRAFT_TYPE_NAMES[aircraftType];
+    alert.manufacturer = manufacturerName;
     Log.i(TAG, String.format("aircraft type %s", alert.type));
     Log.i(TAG, String.format("aircraft owner %s", alert.owner));
 
@@ -378,11 +462,39 @@ public class Alert {
       }
     }
     Log.i(TAG, String.format("aircraft location lat %f lng %f altitude %f", (float)alert.latitude, (float)alert.longitude, alert.altitude));
+
+    // Keep the reported position and motion of the aircraft, its velocity
+    // in m/s, true track in degrees and vertical rate in m/s, from the
+    // time of its last position update in seconds
+    alert.reportedLatitude = alert.latitude;
+    alert.reportedLongitude = alert.longitude;
+    alert.reportedAltitude = alert.altitude;
+    try {
+      alert.reportedTime = jsonAircraft.getLong(3) * 1000;
+    }
+    catch(JSONException e1) {
+      try {
+        alert.reportedTime = jsonAircraft.getLong(4) * 1000;
+      }
+      catch(JSONException e2) {
+      }
+    }
+    try {
+      alert.velocity = (float)jsonAircraft.getDouble(9);
+      alert.track = (float)jsonAircraft.getDouble(10);
+      alert.hasVelocity = true;
+    }
+    catch(JSONException e) {
+    }
+    try {
+      alert.verticalRate = (float)jsonAircraft.getDouble(11);
+    }
+    catch(JSONException e) {
+    }
+    Log.i(TAG, String.format("aircraft velocity %f track %f vertical rate %f", alert.velocity, alert.track, alert.verticalRate));
     Log.i(TAG, String.format("vehicle location lat %f lng %f", (float)location.getLatitude(), (float)location.getLongitude()));
 
-    Location target = new Location(location);
-    target.setLongitude(alert.longitude);
-    target.setLatitude(alert.latitude);
+    LatLng target = new LatLng(alert.latitude, alert.longitude);
 
     // Compute the distance between the vehicle and the report
     float meters = Geospatial.getDistance(location, target);
@@ -392,7 +504,6 @@ public class Alert {
     // Determine the bearing to the report relative to the vehicle bearing
     float bearingToTarget = Geospatial.getBearing(location, target);
     Log.i(TAG, String.format("aircraft bearing %f", bearingToTarget));
-    float bearing = location.hasBearing() ? location.getBearing() : 0.0f;
     Log.i(TAG, String.format("vehicle bearing %f", bearing));
     float relativeBearing = Geospatial.getRelativeBearing(bearing, bearingToTarget);
     Log.i(TAG, String.format("aircraft relative bearing %f", relativeBearing));
@@ -405,58 +516,74 @@ public class Alert {
   }
 
   /**
-   * Construct an alert from a JSON object representing an aircraft state vector.
+   * Construct new alerts from existing aircraft alerts and a potentially
+   * different location, projecting the aircraft positions to the given time
+   * in milliseconds and computing all the distances and bearings in a
+   * single batch.
    */
-  public static Alert fromAircraft(Location location, Alert aircraft) {
-    Log.i(TAG, "fromAircraft aircraft");
+  public static List<Alert> fromAircrafts(LatLng location, float bearing, List<Alert> aircrafts, long time) {
+    Log.i(TAG, String.format("fromAircrafts %d aircrafts", aircrafts.size()));
+
+    List<Alert> alerts = new ArrayList<>(aircrafts.size());
+    for(Alert aircraft : aircrafts) {
+      Alert alert = copyAircraft(aircraft);
+      AircraftPredictor.predict(alert, time);
+      alerts.add(alert);
+    }
+    locateAlerts(location, bearing, alerts);
+    return alerts;
+  }
 
+  private static Alert copyAircraft(Alert aircraft) {
     Alert alert = new Alert();
     alert.alertClass = ALERT_CLASS_AIRCRAFT;
     alert.transponder = aircraft.transponder;
     alert.callSign = aircraft.callSign;
     alert.onGround = aircraft.onGround;
-    Log.i(TAG, String.format("aircraft transponder %s callSign %s onGround %b", alert.transponder, alert.callSign, alert.onGround));
-
     alert.owner = aircraft.owner;
     alert.type = aircraft.type;
     alert.manufacturer = aircraft.manufacturer;
-    Log.i(TAG, String.format("aircraft type %s", alert.type));
-    Log.i(TAG, String.format("aircraft owner %s", alert.owner));
-
     alert.longitude = aircraft.longitude;
     alert.latitude = aircraft.latitude;
     alert.altitude = aircraft.altitude;
-    Log.i(TAG, String.format("aircraft location lat %f lng %f altitude %f", (float)alert.latitude, (float)alert.longitude, alert.altitude));
-    Log.i(TAG, String.format("vehicle location lat %f lng %f", (float)location.getLatitude(), (float)location.getLongitude()));
-
-    Location target = new Location(location);
-    target.setLongitude(alert.longitude);
-    target.setLatitude(alert.latitude);
-
-    // Compute the distance between the vehicle and the report
-    float meters = Geospatial.getDistance(location, target);
-    alert.distance = Geospatial.toMiles(meters);
-    Log.i(TAG, String.format("aircraft distance %f", alert.distance));
-
-    // Determine the bearing to the report relative to the vehicle bearing
-    float bearingToTarget = Geospatial.getBearing(location, target);
-    Log.i(TAG, String.format("aircraft bearing %f", bearingToTarget));
-    float bearing = location.hasBearing() ? location.getBearing() : 0.0f;
-    Log.i(TAG, String.format("vehicle bearing %f", bearing));
-    float relativeBearing = Geospatial.getRelativeBearing(bearing, bearingToTarget);
-    Log.i(TAG, String.format("aircraft relative bearing %f", relativeBearing));
-    alert.bearing = Geospatial.toHour(relativeBearing);
-    Log.i(TAG, String.format("aircraft relative bearing %d o'clock", alert.bearing));
-
-    // Determine the announcement priority, just use the distance for now
-    alert.priority = Math.round(meters);
+    copyAircraftMotion(aircraft, alert);
     return alert;
   }
 
+  /**
+   * Copy the reported position and motion of an aircraft to another alert
+   * for the same aircraft.
+   */
+  public static void copyAircraftMotion(Alert from, Alert to) {
+    to.reportedLatitude = from.reportedLatitude;
+    to.reportedLongitude = from.reportedLongitude;
+    to.reportedAltitude = from.reportedAltitude;
+    to.reportedTime = from.reportedTime;
+    to.hasVelocity = from.hasVelocity;
+    to.velocity = from.velocity;
+    to.track = from.track;
+    to.verticalRate = from.verticalRate;
+  }
+
   public boolean isSameAircraft(Alert t2) {
     return alertClass == t2.alertClass && transponder.equals(t2.transponder);
   }
 
+  /**
+   * Return a key identifying the alert across updates, two alerts have the
+   * same key when they're the same DS1 alert, isSameReport or
+   * isSameAircraft.
+   */
+  public String getKey() {
+    if(alertClass == ALERT_CLASS_REPORT) {
+      return alertClass + "|" + latitude + "|" + longitude + "|" + city.length() + "|" + city + street;
+    }
+    if(alertClass == ALERT_CLASS_AIRCRAFT) {
+      return alertClass + "|" + transponder;
+    }
+    return alertClass + "|" + band + "|" + frequency;
+  }
+
   public boolean shouldAnnounceAircraft() {
     if(announced == 0) {
       return true;
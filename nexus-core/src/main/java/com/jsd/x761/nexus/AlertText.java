@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The display and speech text of an alert, rendered once and cached on the
+ * alert. Besides the fields that don't change while an alert is live, the
+ * text only depends on the distance of the alert rounded to 0.1 mile, its
+ * clock bearing and whether it was announced before, so it's only rendered
+ * again when one of these changes. The alerts pipeline renders the text of
+ * the live alerts as it publishes them so displaying and announcing them
+ * doesn't format anything.
+ */
+public class AlertText {
+  // Formatters shared by the renders of each thread
+  private static final ThreadLocal<DecimalFormat> DECIMAL_FORMAT = ThreadLocal.withInitial(() -> new DecimalFormat("0.#"));
+  private static final ThreadLocal<StringBuilder> TEXT_BUILDER = ThreadLocal.withInitial(StringBuilder::new);
+
+  private final int mDistance;
+  private final int mBearing;
+  private final boolean mAnnouncedBefore;
+
+  public final String typeText;
+  public final String bandOrLocationText;
+  public final String frequencyOrDistanceText;
+  public final String bearingText;
+  public final String speech;
+
+  private AlertText(Alert alert, int distance, boolean announcedBefore, AlertText text) {
+    mDistance = distance;
+    mBearing = alert.bearing;
+    mAnnouncedBefore = announcedBefore;
+
+    // Reuse the text of the fields that don't change while the alert is live
+    String alertClass = getAlertClassText(alert);
+    if(text != null) {
+      typeText = text.typeText;
+      bandOrLocationText = text.bandOrLocationText;
+    }
+    else if(alert.alertClass == Alert.ALERT_CLASS_RADAR) {
+      typeText = alertClass;
+      bandOrLocationText = switch(alert.band) {
+        case Alert.ALERT_BAND_X -> "X band";
+        case Alert.ALERT_BAND_K -> "K band";
+        case Alert.ALERT_BAND_KA -> "Ka band";
+        case Alert.ALERT_BAND_POP_K -> "Pop K band";
+        case Alert.ALERT_BAND_MRCD -> "MRCD";
+        case Alert.ALERT_BAND_MRCT -> "MRCT";
+        case Alert.ALERT_BAND_GT3 -> "GT3";
+        case Alert.ALERT_BAND_GT4 -> "GT4";
+        default -> "";
+      };
+    }
+    else if(alert.alertClass == Alert.ALERT_CLASS_REPORT) {
+      typeText = alertClass;
+      bandOrLocationText = getLocationText(alert);
+    }
+    else if(alert.alertClass == Alert.ALERT_CLASS_AIRCRAFT) {
+      typeText = alert.manufacturer.length() != 0 ? alert.manufacturer + " " + alertClass : alertClass;
+      bandOrLocationText = alert.owner.length() != 0 ? alert.owner : "unidentified";
+    }
+    else {
+      typeText = alertClass;
+      bandOrLocationText = "";
+    }
+
+    StringBuilder sb = TEXT_BUILDER.get();
+    sb.setLength(0);
+    if(alert.alertClass == Alert.ALERT_CLASS_RADAR) {
+      // For radar alerts, show the band and frequency with a default 12
+      // o'clock direction as the DS1 isn't directional, the speech includes
+      // the band, frequency and class of alert
+      String frequency = alert.frequency >= 1 ? DECIMAL_FORMAT.get().format(alert.frequency) : null;
+      frequencyOrDistanceText = text != null ? text.frequencyOrDistanceText : frequency != null ? frequency + " GHz" : "";
+      bearingText = "12 o'clock";
+      sb.append(switch(alert.band) {
+        case Alert.ALERT_BAND_X -> "X band";
+        case Alert.ALERT_BAND_K -> "K band";
+        case Alert.ALERT_BAND_KA -> "K A band";
+        case Alert.ALERT_BAND_POP_K -> "Pop K band";
+        case Alert.ALERT_BAND_MRCD -> "M R C D";
+        case Alert.ALERT_BAND_MRCT -> "M R C T";
+        case Alert.ALERT_BAND_GT3 -> "G T 3";
+        case Alert.ALERT_BAND_GT4 -> "G T 4";
+        default -> "";
+      });
+      if(frequency != null) {
+        sb.append(' ').append(frequency);
+      }
+      sb.append(' ').append(alertClass);
+    }
+    else if(alert.alertClass == Alert.ALERT_CLASS_LASER) {
+      frequencyOrDistanceText = "Lidar";
+      bearingText = "12 o'clock";
+      sb.append(alertClass);
+    }
+    else if(alert.alertClass == Alert.ALERT_CLASS_REPORT || alert.alertClass == Alert.ALERT_CLASS_AIRCRAFT) {
+      // For reports and aircrafts, show the direction in clock bearing
+      // form and the distance, the speech includes the class of alert, the
+      // direction, the distance and the reported location or the owner
+      String distanceText = getDistanceText(distance);
+      frequencyOrDistanceText = distanceText != null ? distanceText : "";
+      bearingText = alert.bearing + " o'clock";
+      if(alert.alertClass == Alert.ALERT_CLASS_AIRCRAFT) {
+        sb.append(alert.owner.length() != 0 ? alert.owner : "Unidentified");
+        if(alert.manufacturer.length() != 0) {
+          sb.append(' ').append(alert.manufacturer);
+        }
+        sb.append(' ');
+      }
+      sb.append(alertClass);
+      if(announcedBefore) {
+        sb.append(" now");
+      }
+      if(alert.bearing != 0) {
+        sb.append(" at ").append(alert.bearing).append(" o'clock");
+      }
+      if(distanceText != null) {
+        sb.append(' ').append(distanceText).append(" away");
+      }
+      if(alert.alertClass == Alert.ALERT_CLASS_REPORT) {
+        sb.append(' ').append(bandOrLocationText);
+      }
+    }
+    else {
+      frequencyOrDistanceText = "";
+      bearingText = "12 o'clock";
+      sb.append(alertClass);
+    }
+    speech = sb.toString();
+  }
+
+  /**
+   * Return the text of an alert, only rendered again if the inputs of the
+   * text changed since it was last rendered.
+   */
+  public static AlertText get(Alert alert) {
+    AlertText text = alert.text;
+    int distance = getDistance(alert);
+    boolean announcedBefore = alert.announced > 1;
+    if(text != null && text.mDistance == distance && text.mBearing == alert.bearing && text.mAnnouncedBefore == announcedBefore) {
+      return text;
+    }
+    text = new AlertText(alert, distance, announcedBefore, text);
+    alert.text = text;
+    return text;
+  }
+
+  /**
+   * Return the speech of the radar and laser alerts the DS1 can report, for
+   * the frequencies of each band in 0.1 GHz steps as announced.
+   */
+  public static List<String> getRadarPhrases() {
+    List<String> phrases = new ArrayList<>();
+    for(int band = Alert.ALERT_BAND_X; band <= Alert.ALERT_BAND_GT4; band++) {
+      // X band is around 10.5 GHz, Ka band between 33.4 and 36 GHz and the
+      // other bands around 24.1 GHz
+      int from = band == Alert.ALERT_BAND_X ? 104 : band == Alert.ALERT_BAND_KA ? 333 : 239;
+      int to = band == Alert.ALERT_BAND_X ? 106 : band == Alert.ALERT_BAND_KA ? 361 : 243;
+      for(int frequency = from - 1; frequency <= to; frequency++) {
+        Alert alert = new Alert();
+        alert.alertClass = Alert.ALERT_CLASS_RADAR;
+        alert.band = band;
+        // One phrase without frequency first
+        alert.frequency = frequency < from ? 0.0f : frequency / 10.0f;
+        phrases.add(get(alert).speech);
+      }
+    }
+    Alert laser = new Alert();
+    laser.alertClass = Alert.ALERT_CLASS_LASER;
+    phrases.add(get(laser).speech);
+    return phrases;
+  }
+
+  /**
+   * Return the distance of an alert as displayed and announced, in tenths
+   * of a mile, or -1 if the alert isn't located.
+   */
+  public static int getDistance(Alert alert) {
+    if(alert.distance == 0) {
+      return -1;
+    }
+    float distance = alert.distance;
+    if(Configuration.DEMO) {
+      distance = Math.min(
+        alert.distance,
+        alert.alertClass == Alert.ALERT_CLASS_AIRCRAFT ? Configuration.DEMO_AIRCRAFTS_MAX_ANNOUNCED_DISTANCE :
+          Configuration.DEMO_REPORTS_MAX_ANNOUNCED_DISTANCE);
+    }
+    return Math.round(distance * 10.0f);
+  }
+
+  private static String getDistanceText(int distance) {
+    if(distance < 0) {
+      return null;
+    }
+    String miles = distance % 10 == 0 ? Integer.toString(distance / 10) : DECIMAL_FORMAT.get().format(distance / 10.0);
+    return miles + (distance >= 20 ? " miles" : " mile");
+  }
+
+  private static String getAlertClassText(Alert alert) {
+    switch(alert.alertClass) {
+      case Alert.ALERT_CLASS_RADAR:
+        return "Radar";
+      case Alert.ALERT_CLASS_LASER:
+        return "Laser";
+      case Alert.ALERT_CLASS_SPEED_CAM:
+        return "Speed Cam";
+      case Alert.ALERT_CLASS_RED_LIGHT_CAM:
+        return "Red Light Cam";
+      case Alert.ALERT_CLASS_USER_MARK:
+        return "User Mark";
+      case Alert.ALERT_CLASS_LOCKOUT:
+        return "Lockout";
+      case Alert.ALERT_CLASS_REPORT:
+        if("POLICE".equals(alert.type)) {
+          return "Speed Trap";
+        }
+        else if("ACCIDENT".equals(alert.type)) {
+          return "Accident";
+        }
+        return "Hazard";
+      case Alert.ALERT_CLASS_AIRCRAFT:
+        return alert.type;
+      default:
+        return "";
+    }
+  }
+
+  private static String getLocationText(Alert alert) {
+    boolean hidden = "POLICE_HIDING".equals(alert.subType);
+    if(alert.street.length() != 0) {
+      return (hidden ? "hidden on " : "on ") + alert.street;
+    }
+    if(alert.city.length() != 0) {
+      return (hidden ? "hidden in " : "in ") + alert.city;
+    }
+    return hidden ? "hidden at unknown location" : "at unknown location";
+  }
+}
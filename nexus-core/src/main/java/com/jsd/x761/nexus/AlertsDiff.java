@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import java.util.Objects;
+
+/**
+ * Compares the snapshots of an alert to tell which parts of its display
+ * changed, so only these parts are bound again: its strength, distance or
+ * bearing as the vehicle moves or the signal varies, or everything when
+ * another field changed. The distance only changes as displayed, to 0.1
+ * mile.
+ */
+public class AlertsDiff {
+  public static final int CHANGE_STRENGTH = 1;
+  public static final int CHANGE_DISTANCE = 2;
+  public static final int CHANGE_BEARING = 4;
+  public static final int CHANGE_ALL = 8;
+
+  public static boolean isSameAlert(Alert alert, Alert otherAlert) {
+    return alert.id == otherAlert.id;
+  }
+
+  /**
+   * Return the changes to the display of an alert between two snapshots, 0
+   * if it didn't change.
+   */
+  public static int getChanges(Alert alert, Alert newAlert) {
+    if(alert.alertClass != newAlert.alertClass || alert.band != newAlert.band || alert.frequency != newAlert.frequency ||
+      !Objects.equals(alert.type, newAlert.type) || !Objects.equals(alert.subType, newAlert.subType) ||
+      !Objects.equals(alert.street, newAlert.street) || !Objects.equals(alert.city, newAlert.city) ||
+      !Objects.equals(alert.manufacturer, newAlert.manufacturer) || !Objects.equals(alert.owner, newAlert.owner)) {
+      return CHANGE_ALL;
+    }
+    int changes = 0;
+    if(getStrength(alert) != getStrength(newAlert)) {
+      changes |= CHANGE_STRENGTH;
+    }
+    if(AlertText.getDistance(alert) != AlertText.getDistance(newAlert)) {
+      changes |= CHANGE_DISTANCE;
+    }
+    if(alert.bearing != newAlert.bearing) {
+      changes |= CHANGE_BEARING;
+    }
+    return changes;
+  }
+
+  /**
+   * Return the strength of an alert as displayed, from 0 to 100.
+   */
+  public static int getStrength(Alert alert) {
+    switch(alert.alertClass) {
+      case Alert.ALERT_CLASS_RADAR:
+        return (int)alert.intensity;
+      case Alert.ALERT_CLASS_REPORT:
+        return Math.round(Geospatial.getStrength(alert.distance, Configuration.REPORTS_MAX_DISTANCE) * 100.0f);
+      case Alert.ALERT_CLASS_AIRCRAFT:
+        return Math.round(Geospatial.getStrength(alert.distance, Configuration.AIRCRAFTS_MAX_DISTANCE) * 100.0f);
+      default:
+        return 100;
+    }
+  }
+}
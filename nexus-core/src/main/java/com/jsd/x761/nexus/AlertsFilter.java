@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Various functions used to filter lists of alerts, to keep alerts within a
+ * range and to filter out duplicate reports.
+ */
+public class AlertsFilter {
+
+  public static List<Alert> getInRangeAlerts(List<Alert> alerts, float maxDistance) {
+    List<Alert> inRangeAlerts = new ArrayList<>();
+    for(Alert alert : alerts) {
+      if(alert.distance <= maxDistance) {
+        inRangeAlerts.add(alert);
+      }
+    }
+    return inRangeAlerts;
+  }
+
+  /**
+   * Return the reports that are not duplicates of a previous report in the
+   * list. Reports are bucketed in a grid of cells at least as large as the
+   * duplicate distance so each report is only compared with the reports
+   * kept in its cell and the 8 neighbor cells, the results are the same as
+   * getUniqueReportsPairwise.
+   */
+  public static List<Alert> getUniqueReports(List<Alert> reports) {
+    if(reports.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    // Size the cells to the duplicate distance, with a margin for the error
+    // of the distance approximation, and widen them in longitude for the
+    // highest latitude in the list as meridians converge towards the poles
+    float meters = Geospatial.toMeters(Configuration.REPORTS_DUPLICATE_DISTANCE);
+    meters += Geospatial.getDistanceError(Configuration.REPORTS_DUPLICATE_DISTANCE_MODE, 90, meters);
+    double cellLat = Math.toDegrees(meters / Geospatial.EARTH_RADIUS) * 1.01;
+    double maxLatitude = 0;
+    for(Alert report : reports) {
+      maxLatitude = Math.max(maxLatitude, Math.abs(report.latitude));
+    }
+    maxLatitude = Math.min(maxLatitude + cellLat, 89);
+    double cellLng = Math.min(cellLat / Math.cos(Math.toRadians(maxLatitude)), 360);
+    int columns = (int)Math.floor(360 / cellLng);
+
+    List<Alert> uniqueReports = new ArrayList<>();
+    Map<Long, List<Alert>> cells = new HashMap<>();
+    for(Alert report : reports) {
+      int row = (int)Math.floor((report.latitude + 90) / cellLat);
+      int column = Math.floorMod((int)Math.floor((report.longitude + 180) / cellLng), columns);
+
+      boolean duplicate = false;
+      for(int r = row - 1; r <= row + 1 && !duplicate; r++) {
+        for(int c = column - 1; c <= column + 1 && !duplicate; c++) {
+          List<Alert> cell = cells.get(getCellKey(r, Math.floorMod(c, columns)));
+          if(cell != null) {
+            for(Alert uniqueReport : cell) {
+              if(report.isDuplicateReport(uniqueReport)) {
+                duplicate = true;
+                break;
+              }
+            }
+          }
+        }
+      }
+      if(!duplicate) {
+        uniqueReports.add(report);
+        cells.computeIfAbsent(getCellKey(row, column), k -> new ArrayList<>()).add(report);
+      }
+    }
+    return uniqueReports;
+  }
+
+  /**
+   * Return the reports that are not duplicates of a previous report in the
+   * list, comparing each report with all the reports kept so far.
+   */
+  public static List<Alert> getUniqueReportsPairwise(List<Alert> reports) {
+    List<Alert> uniqueReports = new ArrayList<>();
+    for(Alert report : reports) {
+      boolean duplicate = false;
+      for(Alert uniqueReport : uniqueReports) {
+        if(report.isDuplicateReport(uniqueReport)) {
+          duplicate = true;
+          break;
+        }
+      }
+      if(!duplicate) {
+        uniqueReports.add(report);
+      }
+    }
+    return uniqueReports;
+  }
+
+  /**
+   * Return true if two lists hold the same reports in the same order,
+   * wherever the vehicle is relative to them.
+   */
+  public static boolean isSameReports(List<Alert> reports, List<Alert> otherReports) {
+    if(reports.size() != otherReports.size()) {
+      return false;
+    }
+    for(int i = 0; i < reports.size(); i++) {
+      Alert report = reports.get(i);
+      Alert otherReport = otherReports.get(i);
+      if(report.latitude != otherReport.latitude || report.longitude != otherReport.longitude || report.thumbsUp != otherReport.thumbsUp ||
+        !report.type.equals(otherReport.type) || !report.subType.equals(otherReport.subType) || !report.city.equals(otherReport.city) ||
+        !report.street.equals(otherReport.street)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static long getCellKey(int row, int column) {
+    return ((long)row << 32) | (column & 0xffffffffL);
+  }
+}
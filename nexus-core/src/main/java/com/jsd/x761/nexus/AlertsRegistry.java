@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indexes a list of live alerts by their key, to find the existing alert
+ * matching a new alert in constant time when reconciling updates.
+ */
+public class AlertsRegistry {
+  private final Map<String, Alert> mAlerts = new HashMap<>();
+
+  public void setAlerts(List<Alert> alerts) {
+    mAlerts.clear();
+    for(Alert alert : alerts) {
+      // Keep the first of several alerts with the same key, like a scan of
+      // the list would
+      mAlerts.putIfAbsent(alert.getKey(), alert);
+    }
+  }
+
+  /**
+   * Return the live alert matching the given alert, or null if there's none.
+   */
+  public Alert get(Alert alert) {
+    return mAlerts.get(alert.getKey());
+  }
+
+  public int size() {
+    return mAlerts.size();
+  }
+}
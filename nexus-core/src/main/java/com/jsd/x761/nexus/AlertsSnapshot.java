@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable snapshot of the live alerts published by the alerts
+ * pipeline for display and announcement, with copies of the alerts so they
+ * can be read while the pipeline keeps updating the live alerts. The
+ * snapshot also holds the alerts of the update to announce.
+ */
+public class AlertsSnapshot {
+  public static final AlertsSnapshot EMPTY =
+    new AlertsSnapshot(Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+
+  private final List<Alert> mRadarAlerts;
+  private final List<Alert> mReportAlerts;
+  private final List<Alert> mAircraftAlerts;
+  private final List<Alert> mAnnounces;
+  private final List<Alert> mItems;
+
+  AlertsSnapshot(List<Alert> radarAlerts, List<Alert> reportAlerts, List<Alert> aircraftAlerts, List<Alert> announces) {
+    mRadarAlerts = radarAlerts;
+    mReportAlerts = reportAlerts;
+    mAircraftAlerts = aircraftAlerts;
+    mAnnounces = announces;
+
+    // Combine alerts, reports and aircrafts in a single list of alerts
+    List<Alert> items = new ArrayList<>(radarAlerts.size() + reportAlerts.size() + aircraftAlerts.size());
+    items.addAll(radarAlerts);
+    items.addAll(reportAlerts);
+    items.addAll(aircraftAlerts);
+    mItems = Collections.unmodifiableList(items);
+  }
+
+  /**
+   * Return a copy of a list of live alerts, with the copies of the alerts
+   * to announce in the same order. The text of the alerts is rendered as
+   * needed first so the copies share it.
+   */
+  static List<Alert> copyAlerts(List<Alert> alerts, List<Alert> announces, List<Alert> announceCopies) {
+    List<Alert> copies = new ArrayList<>(alerts.size());
+    int a = 0;
+    for(Alert alert : alerts) {
+      AlertText.get(alert);
+      Alert copy = alert.copy();
+      copies.add(copy);
+      if(a < announces.size() && announces.get(a) == alert) {
+        announceCopies.add(copy);
+        a++;
+      }
+    }
+    return Collections.unmodifiableList(copies);
+  }
+
+  public List<Alert> getRadarAlerts() {
+    return mRadarAlerts;
+  }
+
+  public List<Alert> getReportAlerts() {
+    return mReportAlerts;
+  }
+
+  public List<Alert> getAircraftAlerts() {
+    return mAircraftAlerts;
+  }
+
+  /**
+   * Return the alerts of the update to announce.
+   */
+  public List<Alert> getAnnounces() {
+    return mAnnounces;
+  }
+
+  /**
+   * Return the radar alerts, reports and aircrafts to display in a single
+   * list.
+   */
+  public List<Alert> getItems() {
+    return mItems;
+  }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Schedules the announcements of alerts one at a time, by priority: laser
+ * and Ka band alerts first, then the other radar alerts, the reports and
+ * the aircrafts, in order of arrival within a priority. A newer update of
+ * an alert already waiting is coalesced with it, an announcement that
+ * waited longer than the latency budget of its priority is dropped as
+ * stale, and an urgent announcement preempts a less urgent announcement in
+ * progress. It's only used from the main thread.
+ */
+public class AnnouncementScheduler {
+  private static final String TAG = "ANNOUNCEMENT_SCHEDULER";
+
+  public static final int PRIORITY_URGENT = 0;
+  public static final int PRIORITY_RADAR = 1;
+  public static final int PRIORITY_REPORT = 2;
+  public static final int PRIORITY_AIRCRAFT = 3;
+  private static final long[] LATENCY_BUDGETS = {
+    Configuration.AUDIO_URGENT_ANNOUNCE_BUDGET, Configuration.AUDIO_RADAR_ANNOUNCE_BUDGET, Configuration.AUDIO_REPORTS_ANNOUNCE_BUDGET,
+    Configuration.AUDIO_AIRCRAFTS_ANNOUNCE_BUDGET};
+
+  /**
+   * The announcement of an alert, with an earcon, a speech or both. Its
+   * onDone task runs once it's played, dropped or preempted.
+   */
+  public static class Announcement {
+    public final int priority;
+    private final long mSequence;
+    private final long mTime;
+    private Alert mAlert;
+    private boolean mEarcon;
+    private boolean mSpeech;
+    private Runnable mOnDone;
+    private boolean mPreempted;
+
+    private Announcement(Alert alert, boolean earcon, boolean speech, Runnable onDone, long sequence, long time) {
+      priority = getPriority(alert);
+      mSequence = sequence;
+      mTime = time;
+      mAlert = alert;
+      mEarcon = earcon;
+      mSpeech = speech;
+      mOnDone = onDone;
+    }
+
+    public Alert getAlert() {
+      return mAlert;
+    }
+
+    public boolean hasEarcon() {
+      return mEarcon;
+    }
+
+    public boolean hasSpeech() {
+      return mSpeech;
+    }
+
+    public Runnable getOnDone() {
+      return mOnDone;
+    }
+
+    /**
+     * Return true if the announcement was preempted while in progress and
+     * shouldn't go on.
+     */
+    public boolean isPreempted() {
+      return mPreempted;
+    }
+  }
+
+  private final PriorityQueue<Announcement> mQueue =
+    new PriorityQueue<>((o1, o2) -> o1.priority != o2.priority ? o1.priority - o2.priority : Long.compare(o1.mSequence, o2.mSequence));
+  private final Map<Long, Announcement> mQueuedAlerts = new HashMap<>();
+  private Announcement mCurrent;
+  private long mLastSequence;
+  private int mAnnounceCount;
+  private long mDelay;
+  private long mMaxDelay;
+  private int mCoalescedCount;
+  private int mDroppedCount;
+  private int mPreemptedCount;
+
+  public static int getPriority(Alert alert) {
+    if(Earcons.isUrgent(alert)) {
+      return PRIORITY_URGENT;
+    }
+    return switch(alert.alertClass) {
+      case Alert.ALERT_CLASS_REPORT -> PRIORITY_REPORT;
+      case Alert.ALERT_CLASS_AIRCRAFT -> PRIORITY_AIRCRAFT;
+      default -> PRIORITY_RADAR;
+    };
+  }
+
+  /**
+   * Add the announcement of an alert, return true if it preempts the
+   * announcement in progress, which should then be interrupted.
+   */
+  public boolean add(Alert alert, boolean earcon, boolean speech, Runnable onDone, long time) {
+    Announcement announcement = mQueuedAlerts.get(alert.id);
+    if(announcement != null) {
+      // Announce the latest state of the alert in place of the waiting one,
+      // with an earcon if either one had one
+      Log.i(TAG, String.format("coalesced announcement of alert %d", alert.id));
+      Runnable waitingOnDone = announcement.mOnDone;
+      announcement.mAlert = alert;
+      announcement.mEarcon |= earcon;
+      announcement.mSpeech |= speech;
+      announcement.mOnDone = () -> {
+        waitingOnDone.run();
+        onDone.run();
+      };
+      mCoalescedCount++;
+      return false;
+    }
+
+    announcement = new Announcement(alert, earcon, speech, onDone, ++mLastSequence, time);
+    mQueue.add(announcement);
+    mQueuedAlerts.put(alert.id, announcement);
+    if(announcement.priority == PRIORITY_URGENT && mCurrent != null && mCurrent.priority != PRIORITY_URGENT && !mCurrent.mPreempted) {
+      Log.i(TAG, String.format("alert %d preempts alert %d", alert.id, mCurrent.mAlert.id));
+      mCurrent.mPreempted = true;
+      mPreemptedCount++;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Return the next announcement to play, or null if there's none or an
+   * announcement is still in progress. The stale announcements are
+   * dropped.
+   */
+  public Announcement next(long time) {
+    if(mCurrent != null) {
+      return null;
+    }
+    Announcement announcement;
+    while((announcement = mQueue.poll()) != null) {
+      mQueuedAlerts.remove(announcement.mAlert.id);
+      long delay = time - announcement.mTime;
+      if(delay <= LATENCY_BUDGETS[announcement.priority]) {
+        mAnnounceCount++;
+        mDelay += delay;
+        mMaxDelay = Math.max(mMaxDelay, delay);
+        mCurrent = announcement;
+        return announcement;
+      }
+      Log.i(TAG, String.format("dropped stale announcement of alert %d after %d ms", announcement.mAlert.id, delay));
+      mDroppedCount++;
+      announcement.mOnDone.run();
+    }
+    return null;
+  }
+
+  /**
+   * Record the end of the announcement in progress.
+   */
+  public void onDone(Announcement announcement) {
+    if(mCurrent == announcement) {
+      mCurrent = null;
+    }
+    announcement.mOnDone.run();
+  }
+
+  public boolean isIdle() {
+    return mCurrent == null && mQueue.isEmpty();
+  }
+
+  public int getQueueDepth() {
+    return mQueue.size();
+  }
+
+  /**
+   * Return the average time the announcements waited in the queue before
+   * being played, in milliseconds.
+   */
+  public long getAverageDelay() {
+    return mAnnounceCount != 0 ? mDelay / mAnnounceCount : 0;
+  }
+
+  public long getMaxDelay() {
+    return mMaxDelay;
+  }
+
+  public int getAnnounceCount() {
+    return mAnnounceCount;
+  }
+
+  public int getCoalescedCount() {
+    return mCoalescedCount;
+  }
+
+  public int getDroppedCount() {
+    return mDroppedCount;
+  }
+
+  public int getPreemptedCount() {
+    return mPreemptedCount;
+  }
+}
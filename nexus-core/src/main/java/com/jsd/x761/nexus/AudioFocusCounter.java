@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the concurrent holders of the audio focus, which can acquire and
+ * release it from any thread. Each holder gets a lease it releases exactly
+ * once, leases held for longer than a timeout can be expired so the focus
+ * can't leak. The audio focus is requested when the first lease is acquired
+ * and abandoned when the last one is released.
+ */
+public class AudioFocusCounter {
+  private static final String TAG = "AUDIO_FOCUS_COUNTER";
+
+  /**
+   * The platform audio focus, requested and abandoned in turn.
+   */
+  public interface AudioFocus {
+    void request();
+
+    void abandon();
+  }
+
+  private final AudioFocus mAudioFocus;
+  private final AtomicInteger mCount = new AtomicInteger();
+  private final AtomicLong mLastLease = new AtomicLong();
+  private final Map<Long, Long> mLeases = new ConcurrentHashMap<>();
+  private boolean mFocused;
+
+  public AudioFocusCounter(AudioFocus audioFocus) {
+    mAudioFocus = audioFocus;
+  }
+
+  /**
+   * Acquire a lease on the audio focus, requesting it if needed.
+   */
+  public long acquire(long time) {
+    long lease = mLastLease.incrementAndGet();
+    mLeases.put(lease, time);
+    mCount.incrementAndGet();
+    update();
+    return lease;
+  }
+
+  /**
+   * Release a lease on the audio focus, abandoning it once it's not held
+   * anymore. Return false if the lease was already released or expired.
+   */
+  public boolean release(long lease) {
+    if(mLeases.remove(lease) == null) {
+      return false;
+    }
+    mCount.decrementAndGet();
+    update();
+    return true;
+  }
+
+  /**
+   * Release the leases held for longer than a timeout, return their count.
+   */
+  public int expire(long time, long timeout) {
+    int count = 0;
+    for(Map.Entry<Long, Long> entry : mLeases.entrySet()) {
+      if(time - entry.getValue() > timeout && release(entry.getKey())) {
+        Log.i(TAG, String.format("audio focus lease %d timed out", entry.getKey()));
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Release all the leases, return their count.
+   */
+  public int releaseAll() {
+    int count = 0;
+    for(Long lease : mLeases.keySet()) {
+      if(release(lease)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private synchronized void update() {
+    // Bring the platform audio focus in line with the count, whichever
+    // thread gets here last sees the final count so concurrent acquires and
+    // releases can't leave the focus in the wrong state
+    boolean focused = mCount.get() > 0;
+    if(focused != mFocused) {
+      mFocused = focused;
+      if(focused) {
+        mAudioFocus.request();
+      }
+      else {
+        mAudioFocus.abandon();
+      }
+    }
+  }
+
+  public int getCount() {
+    return mCount.get();
+  }
+
+  public synchronized boolean isFocused() {
+    return mFocused;
+  }
+}
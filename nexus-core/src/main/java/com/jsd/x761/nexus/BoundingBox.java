@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+/**
+ * An immutable latitude and longitude bounding box in degrees, as used to
+ * query the alert sources for an area.
+ */
+public final class BoundingBox {
+  private final double mMinLatitude;
+  private final double mMinLongitude;
+  private final double mMaxLatitude;
+  private final double mMaxLongitude;
+
+  public BoundingBox(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+    mMinLatitude = minLatitude;
+    mMinLongitude = minLongitude;
+    mMaxLatitude = maxLatitude;
+    mMaxLongitude = maxLongitude;
+  }
+
+  public double getMinLatitude() {
+    return mMinLatitude;
+  }
+
+  public double getMinLongitude() {
+    return mMinLongitude;
+  }
+
+  public double getMaxLatitude() {
+    return mMaxLatitude;
+  }
+
+  public double getMaxLongitude() {
+    return mMaxLongitude;
+  }
+
+  /**
+   * Return the area of the box in square degrees.
+   */
+  public double getArea() {
+    return (mMaxLatitude - mMinLatitude) * (mMaxLongitude - mMinLongitude);
+  }
+
+  public boolean contains(double latitude, double longitude) {
+    return latitude >= mMinLatitude && latitude <= mMaxLatitude && longitude >= mMinLongitude && longitude <= mMaxLongitude;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+      "lamin %f lomin %f lamax %f lomax %f", (float)mMinLatitude, (float)mMinLongitude, (float)mMaxLatitude, (float)mMaxLongitude);
+  }
+}
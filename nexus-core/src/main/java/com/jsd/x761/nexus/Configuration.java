@@ -38,26 +38,58 @@ public class Configuration {
   public static final float AUDIO_SPEECH_PITCH = 0.95f;
   public static final float AUDIO_SPEECH_RATE = 1.1f;
   public static final long AUDIO_EARCON_TIMER = 250;
+  public static final int AUDIO_EARCON_MAX_STREAMS = 2;
+  public static final long AUDIO_URGENT_ANNOUNCE_BUDGET = 3000;
+  public static final long AUDIO_RADAR_ANNOUNCE_BUDGET = 5000;
+  public static final long AUDIO_REPORTS_ANNOUNCE_BUDGET = 30000;
+  public static final long AUDIO_AIRCRAFTS_ANNOUNCE_BUDGET = 15000;
+  public static final int AUDIO_PHRASE_CACHE_SIZE = 32;
+  public static final long AUDIO_UTTERANCE_CHECK_TIMER = 5000;
+  public static final long AUDIO_UTTERANCE_TIMEOUT = 20000;
+  public static final long AUDIO_FOCUS_TIMEOUT = 60000;
   public static final long CURRENT_LOCATION_TIMER = 5000;
   public static final boolean USE_COMPUTED_LOCATION_BEARING = true;
   public static final long LOCATION_AVAILABILITY_CHECK_TIMER = 10000;
   public static final float COMPUTED_BEARING_DISTANCE_THRESHOLD = 40.0f;
-  public static final long NETWORK_CONNECT_CHECK_TIMER = 15000;
+  public static final int FILTER_DISTANCE_MODE = Geospatial.DISTANCE_MODE_TANGENT_PLANE;
   public static final int NETWORK_CONNECT_TIMEOUT = 5000;
-  public static final int NETWORK_CONNECT_RETRY_COUNT = 2;
-  public static final long NETWORK_CONNECT_RETRY_TIMER = 5000;
+  public static final int NETWORK_FETCH_FAILURE_COUNT = 2;
+  public static final long NETWORK_PROBE_TIMER = 60000;
+  public static final int HTTP_READ_TIMEOUT = 10000;
+  public static final int HTTP_MAX_CONNECTIONS_PER_HOST = 2;
   public static final boolean ENABLE_REPORTS = true;
   public static final long REPORTS_CHECK_TIMER = 24000;
   public static final int REPORTS_CHECK_RETRY_COUNT = 2;
   public static final long REPORTS_CHECK_RETRY_TIMER = 5000;
   public static final float REPORTS_DUPLICATE_DISTANCE = 0.2f;
+  public static final int REPORTS_DUPLICATE_DISTANCE_MODE = Geospatial.DISTANCE_MODE_EQUIRECTANGULAR;
   public static final int REPORTS_CONNECT_TIMEOUT = 5000;
+  public static final boolean REPORTS_LOOKAHEAD = true;
+  public static final float REPORTS_LOOKAHEAD_MIN_SPEED = 5.0f;
+  public static final long REPORTS_LOOKAHEAD_TIMER = 60000;
+  public static final float REPORTS_LOOKAHEAD_MAX_FACTOR = 1.5f;
+  public static final float REPORTS_LOOKAHEAD_BEHIND_DISTANCE_FACTOR = 0.25f;
+  public static final float REPORTS_LOOKAHEAD_MIN_RADIUS_FACTOR = 0.75f;
+  public static final int REPORTS_TILE_ZOOM = 14;
+  public static final long REPORTS_TILE_TIME_TO_LIVE = 180000;
+  public static final int REPORTS_RESPONSE_VALIDATOR_SIZE = 8;
   public static final boolean ENABLE_AIRCRAFTS = true;
   public static final int AIRCRAFTS_CHECK_RETRY_COUNT = 2;
   public static final long AIRCRAFTS_CHECK_RETRY_TIMER = 5000;
   public static final long AIRCRAFTS_ANONYMOUS_CHECK_TIMER = 240000;
   public static final long AIRCRAFTS_AUTHENTICATED_CHECK_TIMER = 24000;
+  public static final long AIRCRAFTS_MIN_CHECK_TIMER = 10000;
+  public static final long AIRCRAFTS_MAX_CHECK_TIMER = 900000;
+  public static final float AIRCRAFTS_NEARBY_CHECK_FACTOR = 0.5f;
+  public static final int AIRCRAFTS_EMPTY_CHECK_COUNT = 3;
+  public static final float AIRCRAFTS_EMPTY_CHECK_FACTOR = 2.0f;
+  public static final float AIRCRAFTS_FAST_VEHICLE_SPEED = 25.0f;
+  public static final float AIRCRAFTS_FAST_VEHICLE_CHECK_FACTOR = 0.75f;
+  public static final float AIRCRAFTS_QUERY_STATIONARY_SPEED = 1.0f;
+  public static final float AIRCRAFTS_QUERY_STATIONARY_DISTANCE_FACTOR = 0.75f;
+  public static final float AIRCRAFTS_QUERY_BEHIND_DISTANCE_FACTOR = 0.5f;
   public static final int AIRCRAFTS_CONNECT_TIMEOUT = 5000;
+  public static final long AIRCRAFTS_MAX_PREDICTION_TIME = 300000;
   public static final boolean DEBUG_USE_NULL_DS1_SERVICE = DEBUG;
   public static final long DEBUG_NULL_DS1_SERVICE_SCAN_TIMER = 2000;
   public static final int DEBUG_INJECT_TEST_DS1_ALERTS = DEBUG ? 1 : DEMO ? 1 : 0;
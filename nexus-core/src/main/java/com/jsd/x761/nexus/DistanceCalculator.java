@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+/**
+ * Computes distances from a vehicle location to many targets with one of
+ * the Geospatial distance modes, caching the terms that only depend on the
+ * vehicle location. This is meant for range filtering, the distances
+ * announced to the user are still computed with the exact
+ * Geospatial.getDistance.
+ */
+public class DistanceCalculator {
+  private final int mMode;
+  private final double mLatitude;
+  private final double mLongitude;
+  private final double mPhi;
+  private final double mCosPhi;
+  private float mRange = -1.0f;
+  private float mRangeError;
+
+  public DistanceCalculator(int mode, LatLng from) {
+    mMode = mode;
+    mLatitude = from.getLatitude();
+    mLongitude = from.getLongitude();
+    mPhi = Math.toRadians(mLatitude);
+    mCosPhi = Math.cos(mPhi);
+  }
+
+  public int getMode() {
+    return mMode;
+  }
+
+  /**
+   * Return the distance in meters from the vehicle location to a target.
+   */
+  public float getDistance(double toLat, double toLng) {
+    return Geospatial.getDistance(mMode, mPhi, mCosPhi, mLongitude, toLat, toLng);
+  }
+
+  /**
+   * Return true if a target may be within the given range in meters of the
+   * vehicle location. The check allows for the error of the distance mode
+   * so it never rejects a target that the exact distance would keep.
+   */
+  public boolean isWithinRange(double toLat, double toLng, float range) {
+    if(range != mRange) {
+      mRange = range;
+      mRangeError = Geospatial.getDistanceError(mMode, mLatitude, range);
+    }
+    return getDistance(toLat, toLng) <= range + mRangeError;
+  }
+}
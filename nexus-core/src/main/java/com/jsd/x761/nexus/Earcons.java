@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The earcons announcing the classes of alerts, the sounds played before
+ * their speech.
+ */
+public class Earcons {
+  public static final String[] EARCONS = {"[s1]", "[s2]", "[s3]", "[s4]", "[s5]", "[s6]", "[s7]", "[s8]", "[s9]", "[s10]"};
+
+  /**
+   * Return the earcon announcing the class of an alert.
+   */
+  public static String getEarcon(Alert alert) {
+    if(alert.alertClass == Alert.ALERT_CLASS_RADAR) {
+      return switch(alert.band) {
+        case Alert.ALERT_BAND_X -> "[s2]";
+        case Alert.ALERT_BAND_K, Alert.ALERT_BAND_POP_K -> "[s4]";
+        case Alert.ALERT_BAND_KA -> "[s3]";
+        case Alert.ALERT_BAND_MRCD, Alert.ALERT_BAND_MRCT -> "[s10]";
+        case Alert.ALERT_BAND_GT3, Alert.ALERT_BAND_GT4 -> "[s6]";
+        default -> "[s6]";
+      };
+    }
+    return switch(alert.alertClass) {
+      case Alert.ALERT_CLASS_LASER -> "[s5]";
+      case Alert.ALERT_CLASS_SPEED_CAM, Alert.ALERT_CLASS_RED_LIGHT_CAM -> "[s10]";
+      case Alert.ALERT_CLASS_REPORT -> "[s8]";
+      case Alert.ALERT_CLASS_USER_MARK, Alert.ALERT_CLASS_LOCKOUT -> "[s9]";
+      case Alert.ALERT_CLASS_AIRCRAFT -> "[s7]";
+      default -> "[s6]";
+    };
+  }
+
+  /**
+   * Return true if an alert is urgent enough for its earcon to interrupt
+   * any other announcement, a laser or Ka band alert likely means a speed
+   * measurement in progress.
+   */
+  public static boolean isUrgent(Alert alert) {
+    return alert.alertClass == Alert.ALERT_CLASS_LASER || (alert.alertClass == Alert.ALERT_CLASS_RADAR && alert.band == Alert.ALERT_BAND_KA);
+  }
+
+  /**
+   * Return the duration of a WAV clip in milliseconds, from its format and
+   * the size of its data.
+   */
+  public static long getDuration(InputStream inputStream) throws IOException {
+    DataInputStream input = new DataInputStream(inputStream);
+    if(readChunkId(input) != 0x52494646 || readInt(input) < 0 || readChunkId(input) != 0x57415645) {
+      throw new IOException("Invalid WAV clip");
+    }
+    int byteRate = 0;
+    try {
+      while(true) {
+        int chunkId = readChunkId(input);
+        int size = readInt(input);
+        if(chunkId == 0x666d7420) {
+          // The byte rate follows the format, channels and sample rate
+          input.skipBytes(8);
+          byteRate = readInt(input);
+          input.skipBytes(size - 12 + (size & 1));
+        }
+        else if(chunkId == 0x64617461) {
+          if(byteRate <= 0) {
+            throw new IOException("Invalid WAV clip format");
+          }
+          return (size & 0xffffffffL) * 1000 / byteRate;
+        }
+        else {
+          input.skipBytes(size + (size & 1));
+        }
+      }
+    }
+    catch(EOFException e) {
+      throw new IOException("Truncated WAV clip", e);
+    }
+  }
+
+  private static int readChunkId(DataInputStream input) throws IOException {
+    return input.readInt();
+  }
+
+  private static int readInt(DataInputStream input) throws IOException {
+    // WAV sizes and rates are little endian
+    return Integer.reverseBytes(input.readInt());
+  }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+/**
+ * Various geospatial computation functions, to help compute a destination
+ * from a distance and a bearing, the distance and bearing between two points,
+ * relative bearings, convert between miles and meters, and between degrees
+ * and hours on a clock.
+ */
+public class Geospatial {
+
+  // Ways to compute distances, trading accuracy for speed, the error bounds
+  // are relative to the exact distance on the sphere used by getDistance,
+  // at 45 and 80 degrees of latitude, see getDistanceError for the exact
+  // bounds
+  // Haversine formula, exact on the sphere, 1 asin, 1 sqrt and 3
+  // trigonometric functions per distance
+  public static final int DISTANCE_MODE_HAVERSINE = 0;
+  // Equirectangular approximation, less than 0.002% error within 10 miles
+  // and 0.04% within 50 miles at 45 degrees, 0.03% and 0.6% at 80 degrees,
+  // 1 cosine and 1 sqrt per distance
+  public static final int DISTANCE_MODE_EQUIRECTANGULAR = 1;
+  // Projection on the plane tangent at the origin, less than 0.3% error
+  // within 10 miles and 1.3% within 50 miles at 45 degrees, 1.5% and 7.5%
+  // at 80 degrees, 1 sqrt per distance and 1 cosine per origin, which
+  // DistanceCalculator computes once for many distances
+  public static final int DISTANCE_MODE_TANGENT_PLANE = 2;
+
+  public static final double EARTH_RADIUS = 6378137;
+
+  public static LatLng getDestination(
+    LatLng from, float distance, float bearing) {
+    double radius = 6371000;
+    double fromLat = from.getLatitude();
+    double fromLng = from.getLongitude();
+
+    double delta = distance / radius;
+    double theta = Math.toRadians(bearing);
+
+    double phi1 = Math.toRadians(fromLat);
+    double lambda1 = Math.toRadians(fromLng);
+
+    double phi2 = Math.asin(Math.sin(phi1) * Math.cos(delta) + Math.cos(phi1) * Math.sin(delta) * Math.cos(theta));
+    double lambda2 = lambda1 + Math.atan2(Math.sin(theta) * Math.sin(delta) * Math.cos(phi1), Math.cos(delta) - Math.sin(phi1) * Math.sin(phi2));
+
+    double toLat = Math.toDegrees(phi2);
+    double toLng = Math.toDegrees(lambda2);
+    if(toLng < -180 || toLng > 180) {
+      lambda2 = ((lambda2 + 3 * Math.PI) % (2 * Math.PI)) - Math.PI;
+      toLng = Math.toDegrees(lambda2);
+    }
+
+    return new LatLng(toLat, toLng);
+  }
+
+  public static float getDistance(LatLng from, LatLng to) {
+    double radius = 6378137;
+    double fromLat = from.getLatitude();
+    double fromLng = from.getLongitude();
+    double toLat = to.getLatitude();
+    double toLng = to.getLongitude();
+
+    double d =
+      Math.sin(Math.toRadians(toLat)) * Math.sin(Math.toRadians(fromLat)) + Math.cos(Math.toRadians(toLat)) * Math.cos(Math.toRadians(fromLat)) * Math.cos(
+        Math.toRadians(fromLng) - Math.toRadians(toLng));
+
+    return (float)(Math.acos(Math.min(Math.max(d, -1), 1)) * radius);
+  }
+
+  public static float getBearing(LatLng from, LatLng to) {
+    double destLat = to.getLatitude();
+    double detLon = to.getLongitude();
+    double originLat = from.getLatitude();
+    double originLon = from.getLongitude();
+
+    double bearing = (Math.toDegrees(Math.atan2(
+      Math.sin(Math.toRadians(detLon) - Math.toRadians(originLon)) * Math.cos(Math.toRadians(destLat)),
+      Math.cos(Math.toRadians(originLat)) * Math.sin(Math.toRadians(destLat)) -
+        Math.sin(Math.toRadians(originLat)) * Math.cos(Math.toRadians(destLat)) * Math.cos(Math.toRadians(detLon) - Math.toRadians(originLon)))) + 360) % 360;
+
+    return (float)bearing;
+  }
+
+  /**
+   * Compute the distance in meters between two points using the given
+   * distance mode.
+   */
+  public static float getDistance(int mode, double fromLat, double fromLng, double toLat, double toLng) {
+    double phi1 = Math.toRadians(fromLat);
+    return getDistance(mode, phi1, Math.cos(phi1), fromLng, toLat, toLng);
+  }
+
+  /**
+   * Compute the distance in meters between two points using the given
+   * distance mode, given the latitude of the origin in radians and its
+   * cosine, which can be computed once for many distances from the same
+   * origin.
+   */
+  static float getDistance(int mode, double phi1, double cosPhi1, double fromLng, double toLat, double toLng) {
+    double phi2 = Math.toRadians(toLat);
+    double deltaPhi = phi2 - phi1;
+    double deltaLambda = Math.toRadians(getDeltaLongitude(fromLng, toLng));
+
+    switch(mode) {
+      case DISTANCE_MODE_EQUIRECTANGULAR: {
+        double x = deltaLambda * Math.cos((phi1 + phi2) / 2);
+        return (float)(Math.sqrt(x * x + deltaPhi * deltaPhi) * EARTH_RADIUS);
+      }
+      case DISTANCE_MODE_TANGENT_PLANE: {
+        double x = deltaLambda * cosPhi1;
+        return (float)(Math.sqrt(x * x + deltaPhi * deltaPhi) * EARTH_RADIUS);
+      }
+      default: {
+        double sinDeltaPhi = Math.sin(deltaPhi / 2);
+        double sinDeltaLambda = Math.sin(deltaLambda / 2);
+        double h = sinDeltaPhi * sinDeltaPhi + cosPhi1 * Math.cos(phi2) * sinDeltaLambda * sinDeltaLambda;
+        return (float)(2 * Math.asin(Math.min(Math.sqrt(h), 1)) * EARTH_RADIUS);
+      }
+    }
+  }
+
+  /**
+   * Return a bound of the error in meters of distances computed with the
+   * given distance mode, for distances up to the given number of meters
+   * from a location at the given latitude.
+   */
+  public static float getDistanceError(int mode, double latitude, float meters) {
+    // The approximations degrade with the distance and the latitude, as
+    // meridians converge towards the poles
+    double angle = meters / EARTH_RADIUS;
+    double tan = Math.tan(Math.toRadians(Math.min(Math.abs(latitude), 89)));
+    double relativeError = switch(mode) {
+      case DISTANCE_MODE_EQUIRECTANGULAR -> angle * angle * (1 + tan * tan);
+      case DISTANCE_MODE_TANGENT_PLANE -> angle * tan + angle * angle;
+      default -> 0;
+    };
+
+    // Allow for float rounding as well
+    return (float)(meters * (relativeError + 1e-6));
+  }
+
+  /**
+   * Return the difference between two longitudes in degrees, in the
+   * [-180, 180] range to handle the antimeridian.
+   */
+  public static double getDeltaLongitude(double fromLng, double toLng) {
+    double delta = toLng - fromLng;
+    if(delta > 180) {
+      delta -= 360;
+    }
+    else if(delta < -180) {
+      delta += 360;
+    }
+    return delta;
+  }
+
+  /**
+   * Compute the distances and bearings from a location to a batch of
+   * targets held in primitive arrays. The trigonometric terms of the
+   * location are computed once for the whole batch and no objects are
+   * allocated, the results are the same as getDistance and getBearing.
+   */
+  public static void getDistancesAndBearings(
+    LatLng from, double[] toLats, double[] toLngs, int count, float[] distances, float[] bearings) {
+    double radius = 6378137;
+    double phi1 = Math.toRadians(from.getLatitude());
+    double lambda1 = Math.toRadians(from.getLongitude());
+    double sinPhi1 = Math.sin(phi1);
+    double cosPhi1 = Math.cos(phi1);
+
+    for(int i = 0; i < count; i++) {
+      double phi2 = Math.toRadians(toLats[i]);
+      double deltaLambda = Math.toRadians(toLngs[i]) - lambda1;
+      double sinPhi2 = Math.sin(phi2);
+      double cosPhi2 = Math.cos(phi2);
+      double cosDeltaLambda = Math.cos(deltaLambda);
+
+      double d = sinPhi2 * sinPhi1 + cosPhi2 * cosPhi1 * cosDeltaLambda;
+      distances[i] = (float)(Math.acos(Math.min(Math.max(d, -1), 1)) * radius);
+
+      double bearing = (Math.toDegrees(Math.atan2(
+        Math.sin(deltaLambda) * cosPhi2, cosPhi1 * sinPhi2 - sinPhi1 * cosPhi2 * cosDeltaLambda)) + 360) % 360;
+      bearings[i] = (float)bearing;
+    }
+  }
+
+  public static float getRelativeBearing(
+    float bearing, float bearingToTarget) {
+    float relativeBearing = bearingToTarget - bearing;
+    if(relativeBearing < 0.0f) {
+      relativeBearing += 360.0f;
+    }
+    return relativeBearing;
+  }
+
+  public static int getRelativeBearing(
+    int bearing, int bearingToTarget) {
+    int relativeBearing = bearingToTarget - bearing;
+    if(relativeBearing < 0) {
+      relativeBearing += 12;
+    }
+    return relativeBearing;
+  }
+
+  public static int toHour(float degrees) {
+    int hour = Math.round(degrees / 30.0f);
+    if(hour == 0) {
+      hour = 12;
+    }
+    return hour;
+  }
+
+  public static float toMiles(float meters) {
+    return meters / 1609.34f;
+  }
+
+  public static float toMeters(float miles) {
+    return miles * 1609.34f;
+  }
+
+  public static float getStrength(float distance, float range) {
+    return Math.max(Math.min((range - distance) / range, 1.0f), 0.0f);
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A small HTTP client shared by the fetch tasks. Connections are kept alive
+ * and reused across polls instead of paying the DNS, TCP and TLS setup
+ * every time, responses are requested gzip compressed and decompressed as
+ * they're streamed, reads time out, and the number of concurrent requests
+ * to each host is limited. The latency of each request phase is measured:
+ * connection, including the DNS resolution of a new connection, time to the
+ * response headers and transfer of the body.
+ */
+public class HttpClient {
+  private static final String TAG = "HTTP_CLIENT";
+
+  // A reused connection neither resolves the host nor connects, so the DNS
+  // resolution is part of the connect phase of a new connection
+  public static final int PHASE_CONNECT = 0;
+  public static final int PHASE_RESPONSE = 1;
+  public static final int PHASE_TRANSFER = 2;
+  public static final int PHASES = 3;
+
+  private final int mReadTimeout;
+  private final int mMaxConnectionsPerHost;
+  private final Map<String, Semaphore> mHostLimits = new ConcurrentHashMap<>();
+  private final AtomicLong mRequests = new AtomicLong();
+  private final AtomicLong[] mPhaseTimes = new AtomicLong[PHASES];
+  private final AtomicLong mBytes = new AtomicLong();
+  private final AtomicLong mDecodedBytes = new AtomicLong();
+
+  public HttpClient(int readTimeout, int maxConnectionsPerHost) {
+    mReadTimeout = readTimeout;
+    mMaxConnectionsPerHost = maxConnectionsPerHost;
+    for(int i = 0; i < PHASES; i++) {
+      mPhaseTimes[i] = new AtomicLong();
+    }
+  }
+
+  public HttpResponse get(URL url, Map<String, String> headers, int connectTimeout) throws IOException {
+    return request("GET", url, headers, connectTimeout);
+  }
+
+  public HttpResponse head(URL url, int connectTimeout) throws IOException {
+    return request("HEAD", url, null, connectTimeout);
+  }
+
+  /**
+   * Send a request and return its response once its headers are received.
+   * The response must be closed, which returns its connection to the pool
+   * of kept alive connections.
+   */
+  public HttpResponse request(String method, URL url, Map<String, String> headers, int connectTimeout) throws IOException {
+    Semaphore hostLimit = mHostLimits.computeIfAbsent(url.getHost(), host -> new Semaphore(mMaxConnectionsPerHost, true));
+    try {
+      hostLimit.acquire();
+    }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(String.format("Interrupted waiting for a connection to %s", url.getHost()));
+    }
+
+    HttpResponse response = null;
+    try {
+      long[] phaseTimes = new long[PHASES];
+      long start = System.nanoTime();
+      HttpURLConnection connection = (HttpURLConnection)url.openConnection();
+      connection.setRequestMethod(method);
+      connection.setConnectTimeout(connectTimeout);
+      connection.setReadTimeout(mReadTimeout);
+      connection.setRequestProperty("Accept-Encoding", "gzip");
+      if(headers != null) {
+        for(Map.Entry<String, String> header : headers.entrySet()) {
+          connection.setRequestProperty(header.getKey(), header.getValue());
+        }
+      }
+      try {
+        connection.connect();
+        long connected = System.nanoTime();
+        phaseTimes[PHASE_CONNECT] = connected - start;
+        int responseCode = connection.getResponseCode();
+        phaseTimes[PHASE_RESPONSE] = System.nanoTime() - connected;
+        response = new HttpResponse(this, method, url, connection, responseCode, hostLimit, phaseTimes);
+      }
+      finally {
+        if(response == null) {
+          connection.disconnect();
+        }
+      }
+      return response;
+    }
+    finally {
+      if(response == null) {
+        hostLimit.release();
+      }
+    }
+  }
+
+  /**
+   * Record the phase times in nanoseconds and the bytes of a closed
+   * response.
+   */
+  void onClosed(HttpResponse response, long[] phaseTimes, long bytes, long decodedBytes) {
+    mRequests.incrementAndGet();
+    for(int i = 0; i < PHASES; i++) {
+      mPhaseTimes[i].addAndGet(phaseTimes[i]);
+    }
+    mBytes.addAndGet(bytes);
+    mDecodedBytes.addAndGet(decodedBytes);
+    Log.i(
+      TAG, String.format(
+        "%s %s %d connect %d ms response %d ms transfer %d ms, %d bytes %d decoded", response.getMethod(), response.getURL().getHost(),
+        response.getResponseCode(), phaseTimes[PHASE_CONNECT] / 1000000, phaseTimes[PHASE_RESPONSE] / 1000000,
+        phaseTimes[PHASE_TRANSFER] / 1000000, bytes, decodedBytes));
+  }
+
+  public long getRequestCount() {
+    return mRequests.get();
+  }
+
+  /**
+   * Return the average latency of a request phase in milliseconds.
+   */
+  public float getAverageLatency(int phase) {
+    long requests = mRequests.get();
+    return requests != 0 ? mPhaseTimes[phase].get() / 1000000.0f / requests : 0.0f;
+  }
+
+  /**
+   * Return the bytes received, compressed as transferred.
+   */
+  public long getBytes() {
+    return mBytes.get();
+  }
+
+  /**
+   * Return the bytes received once decompressed.
+   */
+  public long getDecodedBytes() {
+    return mDecodedBytes.get();
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A response of the HttpClient. Its body is streamed and decompressed as
+ * it's read, and closing the response releases its connection to be kept
+ * alive for the next requests to the same host.
+ */
+public class HttpResponse implements Closeable {
+  private final HttpClient mClient;
+  private final String mMethod;
+  private final URL mURL;
+  private final HttpURLConnection mConnection;
+  private final int mResponseCode;
+  private final Semaphore mHostLimit;
+  private final long[] mPhaseTimes;
+  private final long mResponseTime;
+  private CountingInputStream mRawStream;
+  private CountingInputStream mStream;
+  private boolean mClosed;
+
+  HttpResponse(HttpClient client, String method, URL url, HttpURLConnection connection, int responseCode, Semaphore hostLimit, long[] phaseTimes) {
+    mClient = client;
+    mMethod = method;
+    mURL = url;
+    mConnection = connection;
+    mResponseCode = responseCode;
+    mHostLimit = hostLimit;
+    mPhaseTimes = phaseTimes;
+    mResponseTime = System.nanoTime();
+  }
+
+  public String getMethod() {
+    return mMethod;
+  }
+
+  public URL getURL() {
+    return mURL;
+  }
+
+  public int getResponseCode() {
+    return mResponseCode;
+  }
+
+  public String getHeaderField(String name) {
+    return mConnection.getHeaderField(name);
+  }
+
+  /**
+   * Return the body of the response, decompressed if it was compressed, or
+   * null if the response doesn't have a body.
+   */
+  public InputStream getInputStream() throws IOException {
+    if(mStream == null) {
+      InputStream inputStream = mResponseCode < 400 ? mConnection.getInputStream() : mConnection.getErrorStream();
+      if(inputStream == null) {
+        return null;
+      }
+      mRawStream = new CountingInputStream(inputStream);
+      if("gzip".equalsIgnoreCase(mConnection.getContentEncoding())) {
+        mStream = new CountingInputStream(new GZIPInputStream(mRawStream));
+      }
+      else {
+        mStream = mRawStream;
+      }
+    }
+    return mStream;
+  }
+
+  @Override
+  public void close() {
+    if(mClosed) {
+      return;
+    }
+    mClosed = true;
+    try {
+      // Closing the stream rather than disconnecting keeps the connection
+      // alive for the next requests
+      if(mStream != null) {
+        mStream.close();
+      }
+      else {
+        // Even without a body, the stream must be closed to return the
+        // connection to the pool
+        InputStream inputStream = mResponseCode < 400 ? mConnection.getInputStream() : mConnection.getErrorStream();
+        if(inputStream != null) {
+          inputStream.close();
+        }
+      }
+    }
+    catch(IOException e) {
+      mConnection.disconnect();
+    }
+    finally {
+      mPhaseTimes[HttpClient.PHASE_TRANSFER] = System.nanoTime() - mResponseTime;
+      mHostLimit.release();
+      mClient.onClosed(this, mPhaseTimes, mRawStream != null ? mRawStream.mCount : 0, mStream != null ? mStream.mCount : 0);
+    }
+  }
+
+  private static class CountingInputStream extends FilterInputStream {
+    private long mCount;
+
+    private CountingInputStream(InputStream inputStream) {
+      super(inputStream);
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if(b >= 0) {
+        mCount++;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int n = super.read(b, off, len);
+      if(n > 0) {
+        mCount += n;
+      }
+      return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      mCount += skipped;
+      return skipped;
+    }
+  }
+}
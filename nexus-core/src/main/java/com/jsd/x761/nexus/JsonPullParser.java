@@ -0,0 +1,478 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A minimal streaming JSON parser with the same shape as
+ * android.util.JsonReader, to walk large server responses token by token
+ * and skip the values that aren't needed without materializing them.
+ */
+public class JsonPullParser {
+  public static final int TOKEN_BEGIN_ARRAY = 0;
+  public static final int TOKEN_END_ARRAY = 1;
+  public static final int TOKEN_BEGIN_OBJECT = 2;
+  public static final int TOKEN_END_OBJECT = 3;
+  public static final int TOKEN_NAME = 4;
+  public static final int TOKEN_STRING = 5;
+  public static final int TOKEN_NUMBER = 6;
+  public static final int TOKEN_TRUE = 7;
+  public static final int TOKEN_FALSE = 8;
+  public static final int TOKEN_NULL = 9;
+  public static final int TOKEN_END_DOCUMENT = 10;
+  private static final int TOKEN_NONE = -1;
+
+  private static final int SCOPE_EMPTY_ARRAY = 0;
+  private static final int SCOPE_ARRAY = 1;
+  private static final int SCOPE_EMPTY_OBJECT = 2;
+  private static final int SCOPE_NAME = 3;
+  private static final int SCOPE_OBJECT = 4;
+  private static final int SCOPE_EMPTY_DOCUMENT = 5;
+  private static final int SCOPE_DOCUMENT = 6;
+
+  private final Reader mReader;
+  private final char[] mBuffer = new char[8192];
+  private int mPos;
+  private int mLimit;
+  private int[] mScopes = new int[32];
+  private int mDepth;
+  private int mToken = TOKEN_NONE;
+  private final StringBuilder mString = new StringBuilder();
+  private StringBuilder mCapture;
+
+  public JsonPullParser(Reader reader) {
+    mReader = reader;
+    mScopes[mDepth++] = SCOPE_EMPTY_DOCUMENT;
+  }
+
+  /**
+   * Return the type of the next token without consuming it.
+   */
+  public int peek() throws IOException {
+    if(mToken != TOKEN_NONE) {
+      return mToken;
+    }
+
+    int scope = mScopes[mDepth - 1];
+    switch(scope) {
+      case SCOPE_EMPTY_ARRAY: {
+        mScopes[mDepth - 1] = SCOPE_ARRAY;
+        int c = nextNonWhitespace();
+        if(c == ']') {
+          return mToken = TOKEN_END_ARRAY;
+        }
+        unread();
+        break;
+      }
+      case SCOPE_ARRAY: {
+        int c = nextNonWhitespace();
+        if(c == ']') {
+          return mToken = TOKEN_END_ARRAY;
+        }
+        if(c != ',') {
+          throw syntaxError("Expected ',' or ']'");
+        }
+        break;
+      }
+      case SCOPE_EMPTY_OBJECT:
+      case SCOPE_OBJECT: {
+        int c = nextNonWhitespace();
+        if(c == '}') {
+          return mToken = TOKEN_END_OBJECT;
+        }
+        if(scope == SCOPE_OBJECT) {
+          if(c != ',') {
+            throw syntaxError("Expected ',' or '}'");
+          }
+          c = nextNonWhitespace();
+        }
+        if(c != '"') {
+          throw syntaxError("Expected a name");
+        }
+        mScopes[mDepth - 1] = SCOPE_NAME;
+        return mToken = TOKEN_NAME;
+      }
+      case SCOPE_NAME: {
+        if(nextNonWhitespace() != ':') {
+          throw syntaxError("Expected ':'");
+        }
+        mScopes[mDepth - 1] = SCOPE_OBJECT;
+        break;
+      }
+      case SCOPE_EMPTY_DOCUMENT: {
+        mScopes[mDepth - 1] = SCOPE_DOCUMENT;
+        break;
+      }
+      default: {
+        if(nextNonWhitespace() != -1) {
+          throw syntaxError("Expected the end of the document");
+        }
+        return mToken = TOKEN_END_DOCUMENT;
+      }
+    }
+
+    // Read the first characters of a value
+    int c = nextNonWhitespace();
+    switch(c) {
+      case '[':
+        return mToken = TOKEN_BEGIN_ARRAY;
+      case '{':
+        return mToken = TOKEN_BEGIN_OBJECT;
+      case '"':
+        return mToken = TOKEN_STRING;
+      case 't':
+        readLiteral("rue");
+        return mToken = TOKEN_TRUE;
+      case 'f':
+        readLiteral("alse");
+        return mToken = TOKEN_FALSE;
+      case 'n':
+        readLiteral("ull");
+        return mToken = TOKEN_NULL;
+      case -1:
+        throw syntaxError("Unexpected end of the document");
+      default:
+        if(c != '-' && (c < '0' || c > '9')) {
+          throw syntaxError("Unexpected character");
+        }
+        unread();
+        return mToken = TOKEN_NUMBER;
+    }
+  }
+
+  public boolean hasNext() throws IOException {
+    int token = peek();
+    return token != TOKEN_END_ARRAY && token != TOKEN_END_OBJECT && token != TOKEN_END_DOCUMENT;
+  }
+
+  public void beginArray() throws IOException {
+    expect(TOKEN_BEGIN_ARRAY);
+    push(SCOPE_EMPTY_ARRAY);
+  }
+
+  public void endArray() throws IOException {
+    expect(TOKEN_END_ARRAY);
+    mDepth--;
+  }
+
+  public void beginObject() throws IOException {
+    expect(TOKEN_BEGIN_OBJECT);
+    push(SCOPE_EMPTY_OBJECT);
+  }
+
+  public void endObject() throws IOException {
+    expect(TOKEN_END_OBJECT);
+    mDepth--;
+  }
+
+  public String nextName() throws IOException {
+    expect(TOKEN_NAME);
+    return readString();
+  }
+
+  /**
+   * Return the next string value, or the text of the next number value.
+   */
+  public String nextString() throws IOException {
+    int token = peek();
+    if(token == TOKEN_NUMBER) {
+      mToken = TOKEN_NONE;
+      return readNumber();
+    }
+    expect(TOKEN_STRING);
+    return readString();
+  }
+
+  /**
+   * Return the characters of the next string value in a buffer reused by
+   * the parser, to look them up without allocating a string. The buffer is
+   * only valid until the parser reads the next value.
+   */
+  public CharSequence nextChars() throws IOException {
+    expect(TOKEN_STRING);
+    readChars();
+    return mString;
+  }
+
+  /**
+   * Return the next number value, or the next string value converted to a
+   * number.
+   */
+  public double nextDouble() throws IOException {
+    String number = nextString();
+    try {
+      return Double.parseDouble(number);
+    }
+    catch(NumberFormatException e) {
+      throw syntaxError("Expected a number");
+    }
+  }
+
+  public boolean nextBoolean() throws IOException {
+    int token = peek();
+    if(token != TOKEN_TRUE && token != TOKEN_FALSE) {
+      throw syntaxError("Expected a boolean");
+    }
+    mToken = TOKEN_NONE;
+    return token == TOKEN_TRUE;
+  }
+
+  public void nextNull() throws IOException {
+    expect(TOKEN_NULL);
+  }
+
+  /**
+   * Skip the next value, with all its nested values, without allocating
+   * anything.
+   */
+  public void skipValue() throws IOException {
+    int depth = 0;
+    do {
+      int token = peek();
+      mToken = TOKEN_NONE;
+      switch(token) {
+        case TOKEN_BEGIN_ARRAY:
+          push(SCOPE_EMPTY_ARRAY);
+          depth++;
+          break;
+        case TOKEN_BEGIN_OBJECT:
+          push(SCOPE_EMPTY_OBJECT);
+          depth++;
+          break;
+        case TOKEN_END_ARRAY:
+        case TOKEN_END_OBJECT:
+          mDepth--;
+          depth--;
+          break;
+        case TOKEN_NAME:
+        case TOKEN_STRING:
+          skipString();
+          break;
+        case TOKEN_NUMBER:
+          skipNumber();
+          break;
+        case TOKEN_END_DOCUMENT:
+          throw syntaxError("Unexpected end of the document");
+        default:
+          break;
+      }
+    }
+    while(depth > 0 || mScopes[mDepth - 1] == SCOPE_NAME);
+  }
+
+  /**
+   * Return the JSON text of the next value, to hand the few values that are
+   * actually needed to a JSON object parser.
+   */
+  public String nextRawValue() throws IOException {
+    StringBuilder capture = new StringBuilder();
+    switch(peek()) {
+      case TOKEN_BEGIN_ARRAY:
+        capture.append('[');
+        break;
+      case TOKEN_BEGIN_OBJECT:
+        capture.append('{');
+        break;
+      case TOKEN_STRING:
+        capture.append('"');
+        break;
+      case TOKEN_TRUE:
+        capture.append("true");
+        break;
+      case TOKEN_FALSE:
+        capture.append("false");
+        break;
+      case TOKEN_NULL:
+        capture.append("null");
+        break;
+      default:
+        break;
+    }
+    mCapture = capture;
+    try {
+      skipValue();
+    }
+    finally {
+      mCapture = null;
+    }
+    return capture.toString();
+  }
+
+  private void expect(int token) throws IOException {
+    if(peek() != token) {
+      throw syntaxError(String.format("Expected token %d but was %d", token, mToken));
+    }
+    mToken = TOKEN_NONE;
+  }
+
+  private void push(int scope) {
+    if(mDepth == mScopes.length) {
+      int[] scopes = new int[mDepth * 2];
+      System.arraycopy(mScopes, 0, scopes, 0, mDepth);
+      mScopes = scopes;
+    }
+    mScopes[mDepth++] = scope;
+  }
+
+  private boolean fill() throws IOException {
+    mPos = 0;
+    mLimit = mReader.read(mBuffer, 0, mBuffer.length);
+    if(mLimit <= 0) {
+      mLimit = 0;
+      return false;
+    }
+    return true;
+  }
+
+  private int read() throws IOException {
+    if(mPos == mLimit && !fill()) {
+      return -1;
+    }
+    char c = mBuffer[mPos++];
+    if(mCapture != null) {
+      mCapture.append(c);
+    }
+    return c;
+  }
+
+  private int peekChar() throws IOException {
+    if(mPos == mLimit && !fill()) {
+      return -1;
+    }
+    return mBuffer[mPos];
+  }
+
+  private void unread() {
+    // Only called right after reading a character from the buffer
+    mPos--;
+    if(mCapture != null) {
+      mCapture.setLength(mCapture.length() - 1);
+    }
+  }
+
+  private int nextNonWhitespace() throws IOException {
+    int c;
+    do {
+      c = read();
+    }
+    while(c == ' ' || c == '\n' || c == '\r' || c == '\t');
+    return c;
+  }
+
+  private void readLiteral(String literal) throws IOException {
+    for(int i = 0; i < literal.length(); i++) {
+      if(read() != literal.charAt(i)) {
+        throw syntaxError("Unexpected literal");
+      }
+    }
+  }
+
+  private String readString() throws IOException {
+    readChars();
+    return mString.toString();
+  }
+
+  private void readChars() throws IOException {
+    mString.setLength(0);
+    while(true) {
+      int c = read();
+      if(c == '"') {
+        return;
+      }
+      if(c == '\\') {
+        mString.append(readEscape());
+      }
+      else if(c == -1) {
+        throw syntaxError("Unterminated string");
+      }
+      else {
+        mString.append((char)c);
+      }
+    }
+  }
+
+  private void skipString() throws IOException {
+    while(true) {
+      int c = read();
+      if(c == '"') {
+        return;
+      }
+      if(c == '\\') {
+        readEscape();
+      }
+      else if(c == -1) {
+        throw syntaxError("Unterminated string");
+      }
+    }
+  }
+
+  private char readEscape() throws IOException {
+    int c = read();
+    switch(c) {
+      case 'b':
+        return '\b';
+      case 'f':
+        return '\f';
+      case 'n':
+        return '\n';
+      case 'r':
+        return '\r';
+      case 't':
+        return '\t';
+      case 'u': {
+        int value = 0;
+        for(int i = 0; i < 4; i++) {
+          int digit = Character.digit(read(), 16);
+          if(digit < 0) {
+            throw syntaxError("Invalid unicode escape");
+          }
+          value = (value << 4) | digit;
+        }
+        return (char)value;
+      }
+      case -1:
+        throw syntaxError("Unterminated escape");
+      default:
+        return (char)c;
+    }
+  }
+
+  private static boolean isNumberChar(int c) {
+    return (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E';
+  }
+
+  private String readNumber() throws IOException {
+    mString.setLength(0);
+    while(isNumberChar(peekChar())) {
+      mString.append((char)read());
+    }
+    return mString.toString();
+  }
+
+  private void skipNumber() throws IOException {
+    while(isNumberChar(peekChar())) {
+      read();
+    }
+  }
+
+  private IOException syntaxError(String message) {
+    return new IOException(String.format("%s at depth %d", message, mDepth));
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+/**
+ * An immutable latitude and longitude in degrees, used instead of the
+ * Android Location class to keep the alert pipeline independent from the
+ * Android SDK.
+ */
+public final class LatLng {
+  private final double mLatitude;
+  private final double mLongitude;
+
+  public LatLng(double latitude, double longitude) {
+    mLatitude = latitude;
+    mLongitude = longitude;
+  }
+
+  public double getLatitude() {
+    return mLatitude;
+  }
+
+  public double getLongitude() {
+    return mLongitude;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if(this == o) {
+      return true;
+    }
+    if(!(o instanceof LatLng)) {
+      return false;
+    }
+    LatLng t2 = (LatLng)o;
+    return Double.compare(mLatitude, t2.mLatitude) == 0 && Double.compare(mLongitude, t2.mLongitude) == 0;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Double.hashCode(mLatitude) + Double.hashCode(mLongitude);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("lat %f lng %f", (float)mLatitude, (float)mLongitude);
+  }
+}
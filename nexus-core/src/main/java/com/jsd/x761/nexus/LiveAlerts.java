@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The live radar alerts, reports and aircrafts, owned by the alerts
+ * pipeline thread. Each update is filtered and reconciled with the live
+ * alerts, reusing the existing alert matching a new alert to keep track of
+ * its announces, then sorted by priority and published as an immutable
+ * snapshot. The live alerts aren't thread safe, they're only used from the
+ * alerts pipeline thread.
+ */
+public class LiveAlerts {
+  private static final String TAG = "LIVE_ALERTS";
+
+  private final List<Alert> mRadarAlerts = new ArrayList<>();
+  private final List<Alert> mReportAlerts = new ArrayList<>();
+  private final List<Alert> mAircraftAlerts = new ArrayList<>();
+  private final AlertsRegistry mRadarRegistry = new AlertsRegistry();
+  private final AlertsRegistry mReportRegistry = new AlertsRegistry();
+  private final AlertsRegistry mAircraftRegistry = new AlertsRegistry();
+  private List<Alert> mReports = new ArrayList<>();
+  private AlertsSnapshot mSnapshot = AlertsSnapshot.EMPTY;
+  private long mLastId;
+
+  /**
+   * Update the radar alerts, the alerts that aren't muted are announced.
+   */
+  public AlertsSnapshot setRadarAlerts(List<Alert> alerts) {
+    List<Alert> newAlerts = new ArrayList<>();
+    for(Alert alert : alerts) {
+      // Detect repeating alerts, reuse the existing alert instead of
+      // adding the repeated alert to avoid announcing the same alert
+      // over and over
+      Alert mAlert = mRadarRegistry.get(alert);
+      if(mAlert != null) {
+        mAlert.direction = alert.direction;
+        mAlert.intensity = alert.intensity;
+        Log.i(TAG, "repeating alert");
+        alert = mAlert;
+      }
+      newAlerts.add(alert);
+    }
+
+    // Sort alerts by priority
+    newAlerts.sort((o1, o2) -> o1.priority - o2.priority);
+    setAlerts(mRadarAlerts, mRadarRegistry, newAlerts);
+
+    // Announce the alerts unless they've been muted
+    List<Alert> announces = new ArrayList<>();
+    for(Alert alert : mRadarAlerts) {
+      if(!alert.muted) {
+        alert.announced += 1;
+        announces.add(alert);
+      }
+    }
+    List<Alert> announceCopies = new ArrayList<>();
+    mSnapshot = new AlertsSnapshot(
+      AlertsSnapshot.copyAlerts(mRadarAlerts, announces, announceCopies), mSnapshot.getReportAlerts(), mSnapshot.getAircraftAlerts(),
+      announceCopies);
+    return mSnapshot;
+  }
+
+  /**
+   * Update the reports, located from the vehicle. The reports that haven't
+   * been announced yet or whose distance or bearing changed significantly
+   * since then are announced.
+   */
+  public AlertsSnapshot setReports(List<Alert> reports) {
+    mReports = reports;
+
+    // Filter out reports beyond configured distance
+    List<Alert> inRangeReports = AlertsFilter.getInRangeAlerts(reports, Configuration.REPORTS_MAX_DISTANCE);
+
+    // Filter out duplicate reports
+    List<Alert> uniqueReports = AlertsFilter.getUniqueReports(inRangeReports);
+
+    // Update existing reports with their new position
+    List<Alert> newReports = new ArrayList<>();
+    for(Alert report : uniqueReports) {
+      Alert mReport = mReportRegistry.get(report);
+      if(mReport != null) {
+        Log.i(TAG, String.format("existing report with new distance %f", report.distance));
+        mReport.distance = report.distance;
+        mReport.bearing = report.bearing;
+        report = mReport;
+      }
+      newReports.add(report);
+    }
+
+    // Sort final list of reports by priority
+    newReports.sort(Comparator.comparingInt(o -> o.priority));
+    setAlerts(mReportAlerts, mReportRegistry, newReports);
+
+    List<Alert> announces = new ArrayList<>();
+    for(Alert report : mReportAlerts) {
+      if(report.shouldAnnounceReport()) {
+        report.announced += 1;
+        report.announceDistance = report.distance;
+        report.announceBearing = report.bearing;
+        announces.add(report);
+      }
+    }
+    List<Alert> announceCopies = new ArrayList<>();
+    mSnapshot = new AlertsSnapshot(
+      mSnapshot.getRadarAlerts(), AlertsSnapshot.copyAlerts(mReportAlerts, announces, announceCopies), mSnapshot.getAircraftAlerts(),
+      announceCopies);
+    return mSnapshot;
+  }
+
+  /**
+   * Update the aircrafts, located from the vehicle. The aircrafts that
+   * haven't been announced yet or whose distance or bearing changed
+   * significantly since then are announced.
+   */
+  public AlertsSnapshot setAircrafts(List<Alert> aircrafts) {
+    // Filter out aircrafts beyond configured distance
+    List<Alert> inRangeAircrafts = AlertsFilter.getInRangeAlerts(aircrafts, Configuration.AIRCRAFTS_MAX_DISTANCE);
+
+    // Update existing aircraft state vectors with their new position
+    List<Alert> newAircrafts = new ArrayList<>();
+    for(Alert aircraft : inRangeAircrafts) {
+      Alert mAircraft = mAircraftRegistry.get(aircraft);
+      if(mAircraft != null) {
+        Log.i(TAG, String.format("existing aircraft state vector with new distance %f", aircraft.distance));
+        mAircraft.distance = aircraft.distance;
+        mAircraft.latitude = aircraft.latitude;
+        mAircraft.longitude = aircraft.longitude;
+        mAircraft.altitude = aircraft.altitude;
+        mAircraft.bearing = aircraft.bearing;
+        Alert.copyAircraftMotion(aircraft, mAircraft);
+        aircraft = mAircraft;
+      }
+      newAircrafts.add(aircraft);
+    }
+
+    // Sort aircraft state vectors by priority
+    newAircrafts.sort(Comparator.comparingInt(o -> o.priority));
+    setAlerts(mAircraftAlerts, mAircraftRegistry, newAircrafts);
+
+    List<Alert> announces = new ArrayList<>();
+    for(Alert aircraft : mAircraftAlerts) {
+      if(aircraft.shouldAnnounceAircraft()) {
+        aircraft.announced += 1;
+        aircraft.announceDistance = aircraft.distance;
+        aircraft.announceBearing = aircraft.bearing;
+        announces.add(aircraft);
+      }
+    }
+    List<Alert> announceCopies = new ArrayList<>();
+    mSnapshot = new AlertsSnapshot(
+      mSnapshot.getRadarAlerts(), mSnapshot.getReportAlerts(), AlertsSnapshot.copyAlerts(mAircraftAlerts, announces, announceCopies),
+      announceCopies);
+    return mSnapshot;
+  }
+
+  private void setAlerts(List<Alert> alerts, AlertsRegistry registry, List<Alert> newAlerts) {
+    alerts.clear();
+    alerts.addAll(newAlerts);
+    registry.setAlerts(alerts);
+
+    // Identify the new alerts, the existing alerts keep their id
+    for(Alert alert : alerts) {
+      if(alert.id == 0) {
+        alert.id = ++mLastId;
+      }
+    }
+  }
+
+  /**
+   * Return the last reports, to locate them again as the vehicle moves.
+   */
+  public List<Alert> getReports() {
+    return mReports;
+  }
+
+  /**
+   * Return the live aircrafts, to project them again as time passes.
+   */
+  public List<Alert> getAircraftAlerts() {
+    return mAircraftAlerts;
+  }
+
+  public AlertsSnapshot getSnapshot() {
+    return mSnapshot;
+  }
+}
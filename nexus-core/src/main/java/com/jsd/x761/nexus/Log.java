@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+/**
+ * A minimal logging facade with the same shape as android.util.Log. Logs are
+ * dropped until the app installs a sink, which lets the alert pipeline run,
+ * get tested and get benchmarked on a plain JVM.
+ */
+public class Log {
+
+  public interface Sink {
+    void i(String tag, String msg);
+
+    void e(String tag, String msg, Throwable tr);
+  }
+
+  private static volatile Sink sSink;
+
+  public static void setSink(Sink sink) {
+    sSink = sink;
+  }
+
+  public static void i(String tag, String msg) {
+    Sink sink = sSink;
+    if(sink != null) {
+      sink.i(tag, msg);
+    }
+  }
+
+  public static void e(String tag, String msg) {
+    e(tag, msg, null);
+  }
+
+  public static void e(String tag, String msg, Throwable tr) {
+    Sink sink = sSink;
+    if(sink != null) {
+      sink.e(tag, msg, tr);
+    }
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+/**
+ * Tells whether the network is reachable from the state of the default
+ * network reported by the platform, whether it has internet connectivity
+ * validated, and from the outcome of the fetches as passive health signals.
+ * The fetches only override the platform once they consistently disagree
+ * with it, then an active probe settles it, repeated at a slow pace while
+ * they keep disagreeing. The reachability isn't thread safe, it's only
+ * used from the main thread.
+ */
+public class NetworkReachability {
+  private static final String TAG = "NETWORK_REACHABILITY";
+
+  private static final int FETCHES_UNKNOWN = 0;
+  private static final int FETCHES_SUCCEEDED = 1;
+  private static final int FETCHES_FAILED = 2;
+
+  private final int mFailureCount;
+  private final long mProbeTimer;
+  private boolean mAvailable;
+  private boolean mValidated;
+  private int mFetches = FETCHES_UNKNOWN;
+  private int mFailures;
+  private long mDisagreementTime = -1;
+  private long mProbeTime = -1;
+  private boolean mProbeReachable;
+  private boolean mConnected;
+
+  public NetworkReachability(int failureCount, long probeTimer) {
+    mFailureCount = failureCount;
+    mProbeTimer = probeTimer;
+  }
+
+  /**
+   * Update the state of the default network, from the platform network
+   * callbacks.
+   */
+  public void onNetworkChanged(boolean available, boolean validated, long time) {
+    if(available != mAvailable || validated != mValidated) {
+      Log.i(TAG, String.format("network available %b validated %b", available, validated));
+      mAvailable = available;
+      mValidated = validated;
+
+      // Fetches over the previous network don't tell about the new one
+      mFetches = FETCHES_UNKNOWN;
+      mFailures = 0;
+      update(time);
+    }
+  }
+
+  public void onFetchSucceeded(long time) {
+    mFailures = 0;
+    mFetches = FETCHES_SUCCEEDED;
+    update(time);
+  }
+
+  public void onFetchFailed(long time) {
+    mFailures++;
+    if(mFailures >= mFailureCount) {
+      mFetches = FETCHES_FAILED;
+    }
+    update(time);
+  }
+
+  public void onProbe(boolean reachable, long time) {
+    Log.i(TAG, String.format("probe reachable %b", reachable));
+    mProbeTime = time;
+    mProbeReachable = reachable;
+    update(time);
+  }
+
+  /**
+   * Return true if the passive signals disagree with the platform and
+   * haven't been settled by a probe recently.
+   */
+  public boolean shouldProbe(long time) {
+    return mDisagreementTime >= 0 && (mProbeTime < mDisagreementTime || time - mProbeTime >= mProbeTimer);
+  }
+
+  public boolean isDisagreeing() {
+    return mDisagreementTime >= 0;
+  }
+
+  public boolean isConnected() {
+    return mConnected;
+  }
+
+  private void update(long time) {
+    if(!mAvailable) {
+      // Without a network there's nothing to probe
+      mDisagreementTime = -1;
+      mConnected = false;
+      return;
+    }
+    boolean disagreeing;
+    if(mFetches == FETCHES_UNKNOWN) {
+      // A network that isn't validated yet may still reach the servers
+      disagreeing = !mValidated;
+    }
+    else {
+      disagreeing = mValidated != (mFetches == FETCHES_SUCCEEDED);
+    }
+    if(!disagreeing) {
+      mDisagreementTime = -1;
+      mConnected = mValidated;
+      return;
+    }
+    if(mDisagreementTime < 0) {
+      Log.i(TAG, String.format("fetches disagree with network validated %b", mValidated));
+      mDisagreementTime = time;
+    }
+    if(mProbeTime >= mDisagreementTime) {
+      mConnected = mProbeReachable;
+    }
+  }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A cache of speech phrases synthesized ahead of time, to play them without
+ * waiting for the speech synthesis. The fixed phrases announced over and
+ * over, like the radar alerts and the events, are synthesized once and
+ * kept. The phrases generated for reports and aircrafts are synthesized
+ * after they're first spoken, in case they're spoken again, and only the
+ * most recently used are kept. The phrases are synthesized one at a time,
+ * whenever the speech engine is idle. It's only used from the main thread.
+ */
+public class PhraseCache {
+  private static final String TAG = "PHRASE_CACHE";
+
+  private static final int STATE_PENDING = 0;
+  private static final int STATE_SYNTHESIZING = 1;
+  private static final int STATE_READY = 2;
+
+  /**
+   * A phrase and the key of its synthesized audio.
+   */
+  public static class Phrase {
+    public final String text;
+    public final String key;
+    private final boolean mFixed;
+    private int mState = STATE_PENDING;
+
+    private Phrase(String text, String key, boolean fixed) {
+      this.text = text;
+      this.key = key;
+      mFixed = fixed;
+    }
+  }
+
+  private final int mMaxPhrases;
+  private final Map<String, Phrase> mFixedPhrases = new HashMap<>();
+  private final LinkedHashMap<String, Phrase> mPhrases = new LinkedHashMap<>(16, 0.75f, true);
+  private final ArrayDeque<Phrase> mPending = new ArrayDeque<>();
+  private int mLastKey;
+  private int mRequestCount;
+  private int mHitCount;
+  private final long[] mLatency = new long[2];
+  private final int[] mLatencyCount = new int[2];
+
+  public PhraseCache(int maxPhrases) {
+    mMaxPhrases = maxPhrases;
+  }
+
+  /**
+   * Add fixed phrases to synthesize, before any generated phrase.
+   */
+  public void addFixedPhrases(List<String> texts) {
+    for(String text : texts) {
+      if(!mFixedPhrases.containsKey(text)) {
+        Phrase phrase = new Phrase(text, nextKey(), true);
+        mFixedPhrases.put(text, phrase);
+        mPhrases.remove(text);
+        mPending.add(phrase);
+      }
+    }
+  }
+
+  /**
+   * Return the key of the synthesized audio of a phrase, or null if it's
+   * not synthesized yet, in which case a generated phrase is added to the
+   * phrases to synthesize.
+   */
+  public String get(String text) {
+    mRequestCount++;
+    Phrase phrase = mFixedPhrases.get(text);
+    if(phrase == null) {
+      phrase = mPhrases.get(text);
+      if(phrase == null) {
+        phrase = new Phrase(text, nextKey(), false);
+        mPhrases.put(text, phrase);
+        mPending.add(phrase);
+        trimPending();
+      }
+    }
+    if(phrase.mState == STATE_READY) {
+      mHitCount++;
+      return phrase.key;
+    }
+    return null;
+  }
+
+  /**
+   * Return the next phrase to synthesize, fixed phrases first, or null if
+   * there's none.
+   */
+  public Phrase nextSynthesis() {
+    Phrase phrase = null;
+    for(Iterator<Phrase> i = mPending.iterator(); i.hasNext(); ) {
+      Phrase pending = i.next();
+      if(pending.mFixed) {
+        i.remove();
+        phrase = pending;
+        break;
+      }
+    }
+    if(phrase == null) {
+      // Synthesize the most recent generated phrase first, it's the most
+      // likely to be spoken again soon
+      phrase = mPending.pollLast();
+    }
+    if(phrase != null) {
+      phrase.mState = STATE_SYNTHESIZING;
+    }
+    return phrase;
+  }
+
+  /**
+   * Record the end of the synthesis of a phrase, and return the keys of the
+   * least recently used generated phrases evicted to make room for it, whose
+   * audio can be deleted.
+   */
+  public List<String> onSynthesized(Phrase phrase, boolean success) {
+    List<String> evicted = new ArrayList<>();
+    if(!success) {
+      // Forget the phrase so it's synthesized again the next time it's
+      // spoken, fixed phrases are only attempted once
+      Log.i(TAG, String.format("failed to synthesize %s", phrase.text));
+      if(!phrase.mFixed) {
+        mPhrases.remove(phrase.text);
+      }
+      return evicted;
+    }
+    phrase.mState = STATE_READY;
+    if(!phrase.mFixed) {
+      int ready = 0;
+      for(Phrase p : mPhrases.values()) {
+        if(p.mState == STATE_READY) {
+          ready++;
+        }
+      }
+      for(Iterator<Phrase> i = mPhrases.values().iterator(); i.hasNext() && ready > mMaxPhrases; ) {
+        Phrase p = i.next();
+        if(p.mState == STATE_READY && p != phrase) {
+          i.remove();
+          evicted.add(p.key);
+          ready--;
+        }
+      }
+    }
+    return evicted;
+  }
+
+  /**
+   * Record the interruption of the synthesis of a phrase, to synthesize it
+   * again next.
+   */
+  public void onSynthesisStopped(Phrase phrase) {
+    phrase.mState = STATE_PENDING;
+    mPending.addFirst(phrase);
+  }
+
+  private void trimPending() {
+    // Only keep the most recent generated phrases waiting to be synthesized
+    int pending = 0;
+    for(Iterator<Phrase> i = mPending.descendingIterator(); i.hasNext(); ) {
+      Phrase phrase = i.next();
+      if(!phrase.mFixed && ++pending > mMaxPhrases) {
+        i.remove();
+        mPhrases.remove(phrase.text);
+      }
+    }
+  }
+
+  private String nextKey() {
+    return String.format("[p%d]", ++mLastKey);
+  }
+
+  /**
+   * Record the latency between a request to speak a phrase and the start of
+   * its audio.
+   */
+  public void recordLatency(boolean hit, long latency) {
+    mLatency[hit ? 1 : 0] += latency;
+    mLatencyCount[hit ? 1 : 0]++;
+  }
+
+  /**
+   * Return the average latency of the phrases played from the cache or
+   * synthesized live, in milliseconds.
+   */
+  public long getAverageLatency(boolean hit) {
+    int count = mLatencyCount[hit ? 1 : 0];
+    return count != 0 ? mLatency[hit ? 1 : 0] / count : 0;
+  }
+
+  public int getRequestCount() {
+    return mRequestCount;
+  }
+
+  public int getHitCount() {
+    return mHitCount;
+  }
+
+  public float getHitRate() {
+    return mRequestCount != 0 ? (float)mHitCount / mRequestCount : 0.0f;
+  }
+}
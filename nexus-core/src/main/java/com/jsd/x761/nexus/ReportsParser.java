@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses crowd-sourced reports returned by a server into a list of report
+ * alerts relative to the vehicle location.
+ */
+public class ReportsParser {
+  private static final String TAG = "REPORTS_PARSER";
+
+  public static List<Alert> parse(String jsonString, LatLng location, float bearing) throws IOException {
+    return parse(new StringReader(jsonString), location, bearing);
+  }
+
+  public static List<Alert> parse(Reader reader, LatLng location, float bearing) throws IOException {
+    return parse(reader, location, bearing, Configuration.REPORTS_MAX_DISTANCE);
+  }
+
+  /**
+   * Parse reports from a stream, keeping reports up to the given distance
+   * in miles. Reports are read field by field, reports of irrelevant types
+   * are skipped as soon as their type is read and the alerts are built
+   * without materializing the reports.
+   */
+  public static List<Alert> parse(Reader reader, LatLng location, float bearing, float distance) throws IOException {
+    // Use a fast distance approximation to skip out of range reports
+    DistanceCalculator distanceCalculator = new DistanceCalculator(Configuration.FILTER_DISTANCE_MODE, location);
+    float maxDistance = Geospatial.toMeters(distance);
+
+    List<Alert> reports = new ArrayList<>();
+    JsonPullParser parser = new JsonPullParser(reader);
+    parser.beginObject();
+    while(parser.hasNext()) {
+      // Skip jams, users and any other collection returned by the server
+      if(!"alerts".equals(parser.nextName()) || parser.peek() != JsonPullParser.TOKEN_BEGIN_ARRAY) {
+        parser.skipValue();
+        continue;
+      }
+      parser.beginArray();
+      int n = 0;
+      while(parser.hasNext()) {
+        if(parser.peek() != JsonPullParser.TOKEN_BEGIN_OBJECT) {
+          parser.skipValue();
+          continue;
+        }
+        Alert report = parseReport(parser, location, bearing, distanceCalculator, maxDistance);
+        if(report != null) {
+          if(Configuration.DEBUG_INJECT_TEST_REPORTS != 0) {
+            if(n < Configuration.DEBUG_INJECT_TEST_REPORTS) {
+              reports.add(report);
+              n++;
+            }
+          }
+          else {
+            reports.add(report);
+          }
+        }
+      }
+      parser.endArray();
+    }
+    parser.endObject();
+    return reports;
+  }
+
+  private static Alert parseReport(
+    JsonPullParser parser, LatLng location, float bearing, DistanceCalculator distanceCalculator, float maxDistance) throws IOException {
+    String type = null;
+    String subType = "";
+    String city = "";
+    String street = "";
+    int thumbsUp = 0;
+    double latitude = 0.0;
+    double longitude = 0.0;
+    boolean hasLatitude = false;
+    boolean hasLongitude = false;
+
+    parser.beginObject();
+    while(parser.hasNext()) {
+      String name = parser.nextName();
+      if(name.equals("location") && parser.peek() == JsonPullParser.TOKEN_BEGIN_OBJECT) {
+        parser.beginObject();
+        while(parser.hasNext()) {
+          String coordinate = parser.nextName();
+          if(coordinate.equals("x") && isScalar(parser.peek())) {
+            longitude = parser.nextDouble();
+            hasLongitude = true;
+          }
+          else if(coordinate.equals("y") && isScalar(parser.peek())) {
+            latitude = parser.nextDouble();
+            hasLatitude = true;
+          }
+          else {
+            parser.skipValue();
+          }
+        }
+        parser.endObject();
+      }
+      else if(!isScalar(parser.peek())) {
+        parser.skipValue();
+      }
+      else if(name.equals("type")) {
+        // Only keep reports of relevant types, skip the rest of the other
+        // reports without reading it
+        type = parser.nextString();
+        Log.i(TAG, String.format("report type %s", type));
+        if(!"POLICE".equals(type) && !"ACCIDENT".equals(type)) {
+          while(parser.hasNext()) {
+            parser.skipValue();
+          }
+          parser.endObject();
+          return null;
+        }
+      }
+      else if(name.equals("subtype")) {
+        subType = parser.nextString();
+      }
+      else if(name.equals("city")) {
+        city = parser.nextString();
+      }
+      else if(name.equals("street")) {
+        street = parser.nextString();
+      }
+      else if(name.equals("nThumbsUp")) {
+        thumbsUp = (int)parser.nextDouble();
+      }
+      else {
+        parser.skipValue();
+      }
+    }
+    parser.endObject();
+
+    if(type == null) {
+      Log.e(TAG, "Report without a type");
+      return null;
+    }
+    if(Configuration.DEBUG_INJECT_TEST_REPORTS == 0 && hasLatitude && hasLongitude) {
+      // Skip reports out of range before computing their exact distance
+      // and bearing
+      if(!distanceCalculator.isWithinRange(latitude, longitude, maxDistance)) {
+        return null;
+      }
+    }
+    return Alert.fromReport(location, bearing, type, subType, city, street, thumbsUp, latitude, longitude);
+  }
+
+  private static boolean isScalar(int token) {
+    return token == JsonPullParser.TOKEN_STRING || token == JsonPullParser.TOKEN_NUMBER;
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+/**
+ * Plans the area of the crowd-sourced report queries. In lookahead mode the
+ * area covers a circle shifted forward along the vehicle bearing, from a
+ * short distance behind the vehicle to a lookahead distance growing with
+ * the vehicle speed, as reports behind the vehicle are soon out of range
+ * while reports ahead will be reached. The box of a circle doesn't depend
+ * on the bearing, unlike the box of a corridor along a diagonal bearing.
+ */
+public class ReportsQueryPlanner {
+  private static final String TAG = "REPORTS_QUERY_PLANNER";
+
+  /**
+   * Return the distance in meters up to which reports are fetched ahead of
+   * the vehicle, given its speed in m/s and the max distance of reports in
+   * meters.
+   */
+  public static float getLookaheadDistance(float speed, float distance) {
+    if(!Configuration.REPORTS_LOOKAHEAD || speed < Configuration.REPORTS_LOOKAHEAD_MIN_SPEED) {
+      return distance;
+    }
+    return Math.min(distance + speed * Configuration.REPORTS_LOOKAHEAD_TIMER / 1000.0f, distance * Configuration.REPORTS_LOOKAHEAD_MAX_FACTOR);
+  }
+
+  /**
+   * Return the box to query given the vehicle location, bearing in degrees
+   * and speed in m/s, and the max distance of reports in meters.
+   */
+  public static BoundingBox plan(LatLng location, float bearing, float speed, float distance) {
+    BoundingBox box;
+    if(!Configuration.REPORTS_LOOKAHEAD || speed < Configuration.REPORTS_LOOKAHEAD_MIN_SPEED) {
+      // A square centered on a stationary or slow vehicle
+      box = getSquare(location, distance);
+    }
+    else {
+      float ahead = getLookaheadDistance(speed, distance);
+      float behind = distance * Configuration.REPORTS_LOOKAHEAD_BEHIND_DISTANCE_FACTOR;
+      float radius = Math.max((ahead + behind) / 2, distance * Configuration.REPORTS_LOOKAHEAD_MIN_RADIUS_FACTOR);
+      box = getSquare(Geospatial.getDestination(location, ahead - radius, bearing), radius);
+    }
+    Log.i(TAG, String.format("reports query %s", box));
+    return box;
+  }
+
+  private static BoundingBox getSquare(LatLng center, float distance) {
+    LatLng bottom = Geospatial.getDestination(center, distance, 180f);
+    LatLng left = Geospatial.getDestination(center, distance, 270f);
+    LatLng top = Geospatial.getDestination(center, distance, 0f);
+    LatLng right = Geospatial.getDestination(center, distance, 90f);
+    return new BoundingBox(bottom.getLatitude(), left.getLongitude(), top.getLatitude(), right.getLongitude());
+  }
+}
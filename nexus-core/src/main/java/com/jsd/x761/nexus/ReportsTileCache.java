@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caches crowd-sourced reports in slippy map tiles at a fixed zoom level,
+ * with the time each tile was fetched. Consecutive query areas mostly
+ * overlap, so only the tiles newly entered or expired are fetched again and
+ * the reports of an area are assembled from the cached tiles. Tiles are
+ * evicted once older than their time to live. The cache isn't thread safe,
+ * it's only used from the reports fetch task executor.
+ */
+public class ReportsTileCache {
+  private static final String TAG = "REPORTS_TILE_CACHE";
+
+  // Margin in degrees to locate the tiles within a box of whole tiles
+  private static final double TILE_MARGIN = 1e-9;
+
+  private final int mTiles;
+  private final long mTimeToLive;
+  private final Map<Long, Tile> mTileMap = new HashMap<>();
+
+  private static class Tile {
+    private final long mTime;
+    private final List<Alert> mReports = new ArrayList<>();
+
+    private Tile(long time) {
+      mTime = time;
+    }
+  }
+
+  public ReportsTileCache(int zoom, long timeToLive) {
+    mTiles = 1 << zoom;
+    mTimeToLive = timeToLive;
+  }
+
+  /**
+   * Return the box covering the tiles of an area that are missing or
+   * expired at the given time, or null if all the tiles are cached.
+   */
+  public BoundingBox getMissingBox(BoundingBox area, long time) {
+    int minX = getTileX(area.getMinLongitude());
+    int maxX = getTileX(area.getMaxLongitude());
+    int minY = getTileY(area.getMaxLatitude());
+    int maxY = getTileY(area.getMinLatitude());
+    int missingMinX = Integer.MAX_VALUE;
+    int missingMaxX = Integer.MIN_VALUE;
+    int missingMinY = Integer.MAX_VALUE;
+    int missingMaxY = Integer.MIN_VALUE;
+    for(int x = minX; x <= maxX; x++) {
+      for(int y = minY; y <= maxY; y++) {
+        if(getTile(x, y, time) == null) {
+          missingMinX = Math.min(missingMinX, x);
+          missingMaxX = Math.max(missingMaxX, x);
+          missingMinY = Math.min(missingMinY, y);
+          missingMaxY = Math.max(missingMaxY, y);
+        }
+      }
+    }
+    if(missingMinX == Integer.MAX_VALUE) {
+      Log.i(TAG, String.format("all %d tiles cached", (maxX - minX + 1) * (maxY - minY + 1)));
+      return null;
+    }
+    BoundingBox box = new BoundingBox(
+      getTileLatitude(missingMaxY + 1), getTileLongitude(missingMinX), getTileLatitude(missingMinY), getTileLongitude(missingMaxX + 1));
+    Log.i(
+      TAG, String.format(
+        "%d of %d tiles to fetch in %s", (missingMaxX - missingMinX + 1) * (missingMaxY - missingMinY + 1), (maxX - minX + 1) * (maxY - minY + 1),
+        box));
+    return box;
+  }
+
+  /**
+   * Cache the reports fetched for a box returned by getMissingBox at the
+   * given time, replacing the tiles it covers.
+   */
+  public void put(BoundingBox box, List<Alert> reports, long time) {
+    int minX = getTileX(box.getMinLongitude() + TILE_MARGIN);
+    int maxX = getTileX(box.getMaxLongitude() - TILE_MARGIN);
+    int minY = getTileY(box.getMaxLatitude() - TILE_MARGIN);
+    int maxY = getTileY(box.getMinLatitude() + TILE_MARGIN);
+    for(int x = minX; x <= maxX; x++) {
+      for(int y = minY; y <= maxY; y++) {
+        mTileMap.put(getTileKey(x, y), new Tile(time));
+      }
+    }
+    for(Alert report : reports) {
+      int x = getTileX(report.longitude);
+      int y = getTileY(report.latitude);
+      if(x >= minX && x <= maxX && y >= minY && y <= maxY) {
+        mTileMap.get(getTileKey(x, y)).mReports.add(report);
+      }
+    }
+  }
+
+  /**
+   * Return the cached reports of the tiles covering an area at the given
+   * time.
+   */
+  public List<Alert> getReports(BoundingBox area, long time) {
+    List<Alert> reports = new ArrayList<>();
+    int minX = getTileX(area.getMinLongitude());
+    int maxX = getTileX(area.getMaxLongitude());
+    int minY = getTileY(area.getMaxLatitude());
+    int maxY = getTileY(area.getMinLatitude());
+    for(int x = minX; x <= maxX; x++) {
+      for(int y = minY; y <= maxY; y++) {
+        Tile tile = getTile(x, y, time);
+        if(tile != null) {
+          reports.addAll(tile.mReports);
+        }
+      }
+    }
+    return reports;
+  }
+
+  /**
+   * Evict the tiles expired at the given time.
+   */
+  public void evict(long time) {
+    Iterator<Tile> iterator = mTileMap.values().iterator();
+    while(iterator.hasNext()) {
+      if(isExpired(iterator.next(), time)) {
+        iterator.remove();
+      }
+    }
+  }
+
+  public int size() {
+    return mTileMap.size();
+  }
+
+  private Tile getTile(int x, int y, long time) {
+    Tile tile = mTileMap.get(getTileKey(x, y));
+    return tile != null && !isExpired(tile, time) ? tile : null;
+  }
+
+  private boolean isExpired(Tile tile, long time) {
+    return time - tile.mTime >= mTimeToLive;
+  }
+
+  private static long getTileKey(int x, int y) {
+    return ((long)x << 32) | (y & 0xffffffffL);
+  }
+
+  private int getTileX(double longitude) {
+    int x = (int)Math.floor((longitude + 180.0) / 360.0 * mTiles);
+    return Math.max(0, Math.min(x, mTiles - 1));
+  }
+
+  private int getTileY(double latitude) {
+    double phi = Math.toRadians(latitude);
+    int y = (int)Math.floor((1.0 - Math.log(Math.tan(phi) + 1.0 / Math.cos(phi)) / Math.PI) / 2.0 * mTiles);
+    return Math.max(0, Math.min(y, mTiles - 1));
+  }
+
+  private double getTileLongitude(int x) {
+    return x * 360.0 / mTiles - 180.0;
+  }
+
+  private double getTileLatitude(int y) {
+    return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1.0 - 2.0 * y / mTiles))));
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the last responses fetched for a few requests, with their ETag
+ * and the hash of their payload and the value parsed from them, to tell
+ * when a response hasn't changed and skip parsing it again. Requests are
+ * made conditional with If-None-Match when the server provided an ETag,
+ * otherwise the hash of the payload is compared. The rate of skipped
+ * responses is tracked as a metric.
+ */
+public class ResponseValidator<T> {
+  private static final String TAG = "RESPONSE_VALIDATOR";
+
+  private final Map<String, Entry<T>> mEntries;
+  private long mResponses;
+  private long mSkipped;
+
+  private static class Entry<T> {
+    private final String mETag;
+    private final long mHash;
+    private final T mValue;
+
+    private Entry(String eTag, long hash, T value) {
+      mETag = eTag;
+      mHash = hash;
+      mValue = value;
+    }
+  }
+
+  public ResponseValidator(int maxEntries) {
+    // Keep the most recently used entries
+    mEntries = new LinkedHashMap<String, Entry<T>>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry<T>> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  /**
+   * Return the headers to make a request conditional, empty if there's no
+   * ETag for it.
+   */
+  public synchronized Map<String, String> getRequestHeaders(String key) {
+    Entry<T> entry = mEntries.get(key);
+    if(entry == null || entry.mETag == null) {
+      return Collections.emptyMap();
+    }
+    return Collections.singletonMap("If-None-Match", entry.mETag);
+  }
+
+  /**
+   * Return the value parsed from the last response to a request the server
+   * answered as not modified, or null if it's not known anymore.
+   */
+  public synchronized T getNotModified(String key) {
+    mResponses++;
+    Entry<T> entry = mEntries.get(key);
+    if(entry == null) {
+      return null;
+    }
+    mSkipped++;
+    Log.i(TAG, String.format("%s not modified, skip rate %f", key, getSkipRate()));
+    return entry.mValue;
+  }
+
+  /**
+   * Return the value parsed from the last response to a request if the
+   * payload of the new response has the same hash, or null if it changed
+   * and needs to be parsed.
+   */
+  public synchronized T getUnchanged(String key, String eTag, long hash) {
+    mResponses++;
+    Entry<T> entry = mEntries.get(key);
+    if(entry == null || entry.mHash != hash) {
+      return null;
+    }
+    mSkipped++;
+    if(eTag != null && !eTag.equals(entry.mETag)) {
+      mEntries.put(key, new Entry<>(eTag, hash, entry.mValue));
+    }
+    Log.i(TAG, String.format("%s unchanged, skip rate %f", key, getSkipRate()));
+    return entry.mValue;
+  }
+
+  /**
+   * Remember the value parsed from a changed response.
+   */
+  public synchronized void put(String key, String eTag, long hash, T value) {
+    mEntries.put(key, new Entry<>(eTag, hash, value));
+  }
+
+  public synchronized long getResponseCount() {
+    return mResponses;
+  }
+
+  public synchronized long getSkippedCount() {
+    return mSkipped;
+  }
+
+  /**
+   * Return the fraction of responses that weren't parsed as they hadn't
+   * changed.
+   */
+  public synchronized float getSkipRate() {
+    return mResponses != 0 ? (float)mSkipped / mResponses : 0.0f;
+  }
+}
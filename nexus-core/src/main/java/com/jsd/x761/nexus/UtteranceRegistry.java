@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The completion callbacks of the utterances in flight, registered from the
+ * main thread and completed from the speech engine threads. Each callback
+ * runs exactly once, whether its utterance is done, fails, is stopped or
+ * times out.
+ */
+public class UtteranceRegistry {
+  private static final String TAG = "UTTERANCE_REGISTRY";
+
+  private static class Utterance {
+    final Runnable onDone;
+    final long time;
+
+    Utterance(Runnable onDone, long time) {
+      this.onDone = onDone;
+      this.time = time;
+    }
+  }
+
+  private final ConcurrentHashMap<String, Utterance> mUtterances = new ConcurrentHashMap<>();
+
+  public void register(String id, Runnable onDone, long time) {
+    mUtterances.put(id, new Utterance(onDone, time));
+  }
+
+  /**
+   * Complete an utterance, return false if it's unknown or was already
+   * completed.
+   */
+  public boolean complete(String id) {
+    Utterance utterance = mUtterances.remove(id);
+    if(utterance == null) {
+      return false;
+    }
+    utterance.onDone.run();
+    return true;
+  }
+
+  /**
+   * Complete the utterances registered for longer than a timeout, return
+   * their count.
+   */
+  public int expire(long time, long timeout) {
+    int count = 0;
+    for(Map.Entry<String, Utterance> entry : mUtterances.entrySet()) {
+      if(time - entry.getValue().time > timeout && complete(entry.getKey())) {
+        Log.i(TAG, String.format("utterance %s timed out", entry.getKey()));
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Complete all the utterances, return their count.
+   */
+  public int completeAll() {
+    int count = 0;
+    for(String id : mUtterances.keySet()) {
+      if(complete(id)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  public int size() {
+    return mUtterances.size();
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+/**
+ * The 64-bit xxHash of bytes, a fast non-cryptographic hash used to tell
+ * whether a response payload changed since the last time it was fetched.
+ */
+public class XXHash64 {
+  private static final long PRIME1 = 0x9E3779B185EBCA87L;
+  private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+  private static final long PRIME3 = 0x165667B19E3779F9L;
+  private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+  private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+  private XXHash64() {
+  }
+
+  public static long hash(byte[] bytes, int offset, int length, long seed) {
+    int end = offset + length;
+    int i = offset;
+    long hash;
+    if(length >= 32) {
+      long v1 = seed + PRIME1 + PRIME2;
+      long v2 = seed + PRIME2;
+      long v3 = seed;
+      long v4 = seed - PRIME1;
+      for(; i <= end - 32; i += 32) {
+        v1 = round(v1, getLong(bytes, i));
+        v2 = round(v2, getLong(bytes, i + 8));
+        v3 = round(v3, getLong(bytes, i + 16));
+        v4 = round(v4, getLong(bytes, i + 24));
+      }
+      hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+      hash = mergeRound(hash, v1);
+      hash = mergeRound(hash, v2);
+      hash = mergeRound(hash, v3);
+      hash = mergeRound(hash, v4);
+    }
+    else {
+      hash = seed + PRIME5;
+    }
+    hash += length;
+
+    for(; i <= end - 8; i += 8) {
+      hash ^= round(0, getLong(bytes, i));
+      hash = Long.rotateLeft(hash, 27) * PRIME1 + PRIME4;
+    }
+    if(i <= end - 4) {
+      hash ^= (getInt(bytes, i) & 0xffffffffL) * PRIME1;
+      hash = Long.rotateLeft(hash, 23) * PRIME2 + PRIME3;
+      i += 4;
+    }
+    for(; i < end; i++) {
+      hash ^= (bytes[i] & 0xffL) * PRIME5;
+      hash = Long.rotateLeft(hash, 11) * PRIME1;
+    }
+
+    hash ^= hash >>> 33;
+    hash *= PRIME2;
+    hash ^= hash >>> 29;
+    hash *= PRIME3;
+    hash ^= hash >>> 32;
+    return hash;
+  }
+
+  public static long hash(byte[] bytes) {
+    return hash(bytes, 0, bytes.length, 0);
+  }
+
+  private static long round(long acc, long input) {
+    acc += input * PRIME2;
+    acc = Long.rotateLeft(acc, 31);
+    return acc * PRIME1;
+  }
+
+  private static long mergeRound(long acc, long value) {
+    acc ^= round(0, value);
+    return acc * PRIME1 + PRIME4;
+  }
+
+  private static long getLong(byte[] bytes, int i) {
+    return (getInt(bytes, i) & 0xffffffffL) | ((long)getInt(bytes, i + 4) << 32);
+  }
+
+  private static int getInt(byte[] bytes, int i) {
+    return (bytes[i] & 0xff) | ((bytes[i + 1] & 0xff) << 8) | ((bytes[i + 2] & 0xff) << 16) | ((bytes[i + 3] & 0xff) << 24);
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import static com.jsd.x761.nexus.TestAlerts.VEHICLE;
+import static org.junit.Assert.assertEquals;
+
+import org.json.JSONArray;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Checks projecting aircraft positions between state vector updates.
+ */
+public class AircraftPredictorTest {
+  private static final String[] AIRCRAFT_INFO = {"a00137", "Bell", "H1T", "Sheriff"};
+  // Geospatial.getDestination uses a slightly smaller earth radius than
+  // Geospatial.getDistance
+  private static final float RADIUS_ERROR = 0.002f;
+
+  private static Alert getAircraft(String timePosition, String velocity, String track, String verticalRate) {
+    // A helicopter reported 2 km north of the vehicle
+    LatLng location = Geospatial.getDestination(VEHICLE, 2000.0f, 0.0f);
+    return Alert.fromAircraft(VEHICLE, 0.0f, new JSONArray(String.format(
+      "[\"a00137\",\"N123AB  \",\"United States\",%s,1700000010,%s,%s,300.0,false,%s,%s,%s,null,320.0,\"1200\",false,0]", timePosition,
+      location.getLongitude(), location.getLatitude(), velocity, track, verticalRate)), AIRCRAFT_INFO);
+  }
+
+  @Test
+  public void predict_projectsAlongTrack() {
+    // 120 knots due east, climbing at 2 m/s
+    Alert aircraft = getAircraft("1700000000", "61.73", "90.0", "2.0");
+    assertEquals(1700000000000L, aircraft.reportedTime);
+    AircraftPredictor.predict(aircraft, 1700000060000L);
+
+    LatLng reported = new LatLng(aircraft.reportedLatitude, aircraft.reportedLongitude);
+    LatLng projected = new LatLng(aircraft.latitude, aircraft.longitude);
+    assertEquals(61.73f * 60.0f, Geospatial.getDistance(reported, projected), 61.73f * 60.0f * RADIUS_ERROR);
+    assertEquals(90.0f, Geospatial.getBearing(reported, projected), 0.1f);
+    assertEquals(320.0f + 120.0f, aircraft.altitude, 0.01f);
+
+    // Projecting again starts from the reported position
+    AircraftPredictor.predict(aircraft, 1700000030000L);
+    assertEquals(
+      61.73f * 30.0f, Geospatial.getDistance(reported, new LatLng(aircraft.latitude, aircraft.longitude)), 61.73f * 30.0f * RADIUS_ERROR);
+  }
+
+  @Test
+  public void predict_capsProjectionTime() {
+    Alert aircraft = getAircraft("1700000000", "50.0", "180.0", "-5.0");
+    AircraftPredictor.predict(aircraft, 1700000000000L + Configuration.AIRCRAFTS_MAX_PREDICTION_TIME * 10);
+    LatLng reported = new LatLng(aircraft.reportedLatitude, aircraft.reportedLongitude);
+    float distance = 50.0f * Configuration.AIRCRAFTS_MAX_PREDICTION_TIME / 1000.0f;
+    assertEquals(distance, Geospatial.getDistance(reported, new LatLng(aircraft.latitude, aircraft.longitude)), distance * RADIUS_ERROR);
+    assertEquals(0.0f, aircraft.altitude, 0.0f);
+
+    // A position older than the update time isn't projected backwards
+    AircraftPredictor.predict(aircraft, 1699999000000L);
+    assertEquals(aircraft.reportedLatitude, aircraft.latitude, 0.0);
+    assertEquals(aircraft.reportedLongitude, aircraft.longitude, 0.0);
+  }
+
+  @Test
+  public void predict_keepsPositionWithoutMotion() {
+    Alert aircraft = getAircraft("null", "null", "null", "null");
+    assertEquals(1700000010000L, aircraft.reportedTime);
+    AircraftPredictor.predict(aircraft, 1700000060000L);
+    assertEquals(aircraft.reportedLatitude, aircraft.latitude, 0.0);
+    assertEquals(aircraft.reportedLongitude, aircraft.longitude, 0.0);
+    assertEquals(320.0f, aircraft.altitude, 0.0f);
+  }
+
+  @Test
+  public void fromAircrafts_locatesProjectedPositions() {
+    // Flying due south towards the vehicle for a minute
+    Alert aircraft = getAircraft("1700000000", "20.0", "180.0", "0.0");
+    List<Alert> aircrafts = Alert.fromAircrafts(VEHICLE, 0.0f, Collections.singletonList(aircraft), 1700000060000L);
+    assertEquals(Geospatial.toMiles(2000.0f - 1200.0f), aircrafts.get(0).distance, 0.01f);
+    assertEquals(12, aircrafts.get(0).bearing);
+    assertEquals(aircraft.reportedLatitude, aircrafts.get(0).reportedLatitude, 0.0);
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Checks loading and looking up aircrafts in the aircrafts database.
+ */
+public class AircraftsDatabaseTest {
+
+  private static final String CSV =
+    "a00137,Agusta Aerospace Corp,H2T,State Of New Jersey\n" + "a00195,Beech,L2T,State Of South Carolina\n" + "zzzzzz,Invalid,L1P,Nobody\n" +
+      "a00196,Beech,L2T,State Of New Jersey\n" + "a00195,Beech,L1P,Pinellas County\n" + "a00200,Rotorway,H1P\n";
+
+  private static AircraftsDatabase getAircraftsDatabase(String csv) throws IOException {
+    return new AircraftsDatabase(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  public void find_returnsAircraftInfo() throws IOException {
+    AircraftsDatabase aircraftsDatabase = getAircraftsDatabase(CSV);
+    assertEquals(4, aircraftsDatabase.size());
+    assertArrayEquals(
+      new String[] {"a00137", "Agusta Aerospace Corp", "H2T", "State Of New Jersey"},
+      aircraftsDatabase.getAircraftInfo(aircraftsDatabase.find("a00137")));
+    // The last row wins for a duplicate transponder
+    assertEquals("Pinellas County", aircraftsDatabase.getOwner(aircraftsDatabase.find("a00195")));
+    assertEquals("State Of New Jersey", aircraftsDatabase.getOwner(aircraftsDatabase.find("a00196")));
+    assertEquals("", aircraftsDatabase.getOwner(aircraftsDatabase.find("a00200")));
+    assertEquals(-1, aircraftsDatabase.find("a00138"));
+    assertEquals(-1, aircraftsDatabase.find("zzzzzz"));
+    assertEquals(-1, aircraftsDatabase.find(""));
+    assertEquals(-1, aircraftsDatabase.find("a001370"));
+    assertEquals(-1, new AircraftsDatabase().find("a00137"));
+  }
+
+  @Test
+  public void find_scalesToFullRegistry() throws IOException {
+    // About the size of the full FAA registry
+    Random random = new Random(761);
+    Map<Integer, String> owners = new HashMap<>();
+    StringBuilder csv = new StringBuilder();
+    while(owners.size() < 300000) {
+      int transponder = random.nextInt(0x1000000);
+      String owner = "Owner " + random.nextInt(5000);
+      owners.put(transponder, owner);
+      csv.append(AircraftsDatabase.toTransponderString(transponder)).append(",Manufacturer,L2J,").append(owner).append('\n');
+    }
+    AircraftsDatabase aircraftsDatabase = getAircraftsDatabase(csv.toString());
+    assertEquals(owners.size(), aircraftsDatabase.size());
+    for(int i = 0; i < 100000; i++) {
+      int transponder = random.nextInt(0x1000000);
+      int row = aircraftsDatabase.find(transponder);
+      String owner = owners.get(transponder);
+      if(owner == null) {
+        assertEquals(-1, row);
+      }
+      else {
+        assertEquals(owner, aircraftsDatabase.getOwner(row));
+      }
+    }
+    for(Map.Entry<Integer, String> entry : owners.entrySet()) {
+      assertEquals(entry.getValue(), aircraftsDatabase.getOwner(aircraftsDatabase.find(entry.getKey())));
+    }
+  }
+
+  @Test
+  public void map_loadsCompiledDatabase() throws IOException {
+    File file = File.createTempFile("interesting_aircrafts", ".bin");
+    file.deleteOnExit();
+    Files.write(file.toPath(), AircraftsDatabase.compile(new ByteArrayInputStream(CSV.getBytes(StandardCharsets.UTF_8))));
+    try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      AircraftsDatabase aircraftsDatabase = new AircraftsDatabase(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+      assertEquals(4, aircraftsDatabase.size());
+      assertArrayEquals(
+        new String[] {"a00195", "Beech", "L1P", "Pinellas County"}, aircraftsDatabase.getAircraftInfo(aircraftsDatabase.find("a00195")));
+      assertEquals(-1, aircraftsDatabase.find("a00138"));
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void load_rejectsOtherVersions() throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(AircraftsDatabase.compile(new ByteArrayInputStream(CSV.getBytes(StandardCharsets.UTF_8))));
+    buffer.putInt(4, AircraftsDatabase.VERSION + 1);
+    new AircraftsDatabase(buffer);
+  }
+
+  @Test(expected = IOException.class)
+  public void load_rejectsTruncatedDatabase() throws IOException {
+    byte[] bytes = AircraftsDatabase.compile(new ByteArrayInputStream(CSV.getBytes(StandardCharsets.UTF_8)));
+    new AircraftsDatabase(ByteBuffer.wrap(bytes, 0, bytes.length - 4));
+  }
+
+  @Test
+  public void compile_classifiesAircrafts() throws IOException {
+    AircraftsDatabase aircraftsDatabase = getAircraftsDatabase(
+      "a00001,BELL HELICOPTER,H1T,Sheriff\n" + "a00002,Cessna,L1P,Sheriff\n" + "a00003,Dji,H4E,Sheriff\n" + "a00004,Zeppelin,B1T,Sheriff\n" +
+        "a00005,,S1E,Sheriff\n");
+    int[] types = {AircraftsDatabase.AIRCRAFT_TYPE_HELICOPTER, AircraftsDatabase.AIRCRAFT_TYPE_AIRPLANE, AircraftsDatabase.AIRCRAFT_TYPE_DRONE,
+      AircraftsDatabase.AIRCRAFT_TYPE_AIRCRAFT, AircraftsDatabase.AIRCRAFT_TYPE_DRONE};
+    String[] manufacturerNames = {"Bell helicopter", "Cessna", "Dji", "Zeppelin", ""};
+    for(int i = 0; i < types.length; i++) {
+      int row = aircraftsDatabase.find(String.format("a0000%d", i + 1));
+      assertEquals(types[i], aircraftsDatabase.getAircraftType(row));
+      assertEquals(types[i], AircraftsDatabase.getAircraftType(aircraftsDatabase.getIcaoDescription(row)));
+      assertEquals(manufacturerNames[i], aircraftsDatabase.getManufacturerName(row));
+    }
+    assertEquals("BELL HELICOPTER", aircraftsDatabase.getManufacturer(aircraftsDatabase.find("a00001")));
+  }
+}
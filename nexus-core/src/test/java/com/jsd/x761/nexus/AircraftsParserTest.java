@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import static com.jsd.x761.nexus.TestAlerts.VEHICLE;
+import static org.junit.Assert.assertEquals;
+
+import org.json.JSONArray;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Checks parsing aircraft state vectors.
+ */
+public class AircraftsParserTest {
+  private static final float VEHICLE_BEARING = 45.0f;
+
+  private static String getStateVector(String transponder, LatLng location, boolean onGround) {
+    return String.format(
+      "[\"%s\",\"N123AB  \",\"United States\",1700000000,1700000000,%s,%s,1000.5,%b,120.25,90.75,0.5,null,1100.5,\"1200\",false,0]",
+      transponder, location.getLongitude(), location.getLatitude(), onGround);
+  }
+
+  @Test
+  public void parse_keepsInterestingAircraftsInRange() throws IOException {
+    AircraftsDatabase aircraftsDatabase = new AircraftsDatabase(new ByteArrayInputStream(
+      "a00137,Agusta Aerospace Corp,H2T,State Of New Jersey\na00195,Beech,L2T,State Of South Carolina\na00196,Airbus,H1T,Sheriff\n".getBytes(
+        StandardCharsets.UTF_8)));
+    String inRange = getStateVector("a00137", Geospatial.getDestination(VEHICLE, 2000.0f, 30.0f), false);
+    String onGround = getStateVector("a00195", Geospatial.getDestination(VEHICLE, 2000.0f, 30.0f), true);
+    String outOfRange = getStateVector("a00196", Geospatial.getDestination(VEHICLE, Geospatial.toMeters(Configuration.AIRCRAFTS_MAX_DISTANCE * 2), 30.0f), false);
+    String uninteresting = getStateVector("b00001", Geospatial.getDestination(VEHICLE, 1000.0f, 30.0f), false);
+    String json = String.format(
+      "{\"time\":1700000000,\"extra\":{\"states\":[1]},\"states\":[%s,%s,[],%s,%s]}", uninteresting, inRange, onGround, outOfRange);
+
+    List<Alert> aircrafts = AircraftsParser.parse(json, VEHICLE, VEHICLE_BEARING, aircraftsDatabase);
+    assertEquals(1, aircrafts.size());
+    Alert expected = Alert.fromAircraft(
+      VEHICLE, VEHICLE_BEARING, new JSONArray(inRange), aircraftsDatabase.getAircraftInfo(aircraftsDatabase.find("a00137")));
+    Alert aircraft = aircrafts.get(0);
+    assertEquals(expected.transponder, aircraft.transponder);
+    assertEquals(expected.callSign, aircraft.callSign);
+    assertEquals(expected.type, aircraft.type);
+    assertEquals(expected.owner, aircraft.owner);
+    assertEquals(expected.manufacturer, aircraft.manufacturer);
+    assertEquals(expected.latitude, aircraft.latitude, 0.0);
+    assertEquals(expected.longitude, aircraft.longitude, 0.0);
+    assertEquals(expected.altitude, aircraft.altitude, 0.0f);
+    assertEquals(expected.distance, aircraft.distance, 0.0f);
+    assertEquals(expected.bearing, aircraft.bearing);
+    assertEquals(expected.priority, aircraft.priority);
+  }
+
+  @Test
+  public void parse_acceptsNullStates() throws IOException {
+    List<Alert> aircrafts = AircraftsParser.parse("{\"time\":1700000000,\"states\":null}", VEHICLE, VEHICLE_BEARING, new AircraftsDatabase());
+    assertEquals(0, aircrafts.size());
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Checks scheduling polls of the aircrafts source within its credit budget.
+ */
+public class AircraftsPollSchedulerTest {
+  // Noon UTC, 12 hours before the credits are reset
+  private static final long NOON = 1700049600000L;
+  private static final long HALF_DAY = 12 * 60 * 60 * 1000;
+
+  @Test
+  public void getNextInterval_usesConfiguredIntervalsUntilKnowingCredits() {
+    assertEquals(Configuration.AIRCRAFTS_ANONYMOUS_CHECK_TIMER, new AircraftsPollScheduler(false).getNextInterval(0.0f, NOON));
+    AircraftsPollScheduler scheduler = new AircraftsPollScheduler(true);
+    scheduler.onResponse(200, 1, null, null, 0);
+    assertEquals(Configuration.AIRCRAFTS_AUTHENTICATED_CHECK_TIMER, scheduler.getNextInterval(0.0f, NOON));
+    assertEquals(-1, scheduler.getRemainingCredits());
+  }
+
+  @Test
+  public void getNextInterval_spreadsRemainingCredits() {
+    AircraftsPollScheduler scheduler = new AircraftsPollScheduler(false);
+    scheduler.onResponse(200, 1, "200", null, 0);
+    assertEquals(HALF_DAY / 200, scheduler.getNextInterval(0.0f, NOON));
+    assertEquals(HALF_DAY / 200, scheduler.getInterval());
+    assertEquals(200, scheduler.getRemainingCredits());
+
+    // Queries charged more credits
+    scheduler.onResponse(200, 2, "200", null, 0);
+    assertEquals(HALF_DAY / 100, scheduler.getNextInterval(0.0f, NOON));
+
+    // Plenty of credits left still keeps a minimum interval
+    scheduler.onResponse(200, 1, "100000", null, 0);
+    assertEquals(Configuration.AIRCRAFTS_MIN_CHECK_TIMER, scheduler.getNextInterval(0.0f, NOON));
+  }
+
+  @Test
+  public void getNextInterval_spendsCreditsWhereItMatters() {
+    AircraftsPollScheduler scheduler = new AircraftsPollScheduler(false);
+    long pacing = HALF_DAY / 200;
+
+    // Interesting aircrafts nearby and a fast vehicle
+    scheduler.onResponse(200, 1, "200", null, 2);
+    assertEquals(Math.round(pacing * Configuration.AIRCRAFTS_NEARBY_CHECK_FACTOR), scheduler.getNextInterval(0.0f, NOON));
+    assertEquals(
+      Math.round(pacing * Configuration.AIRCRAFTS_NEARBY_CHECK_FACTOR * Configuration.AIRCRAFTS_FAST_VEHICLE_CHECK_FACTOR),
+      scheduler.getNextInterval(Configuration.AIRCRAFTS_FAST_VEHICLE_SPEED, NOON));
+
+    // An area empty on the last few polls
+    for(int i = 0; i < Configuration.AIRCRAFTS_EMPTY_CHECK_COUNT - 1; i++) {
+      scheduler.onResponse(200, 1, "200", null, 0);
+      assertEquals(pacing, scheduler.getNextInterval(0.0f, NOON));
+    }
+    scheduler.onResponse(200, 1, "200", null, 0);
+    assertEquals(Math.round(pacing * Configuration.AIRCRAFTS_EMPTY_CHECK_FACTOR), scheduler.getNextInterval(0.0f, NOON));
+  }
+
+  @Test
+  public void getNextInterval_backsOffWhenRateLimited() {
+    AircraftsPollScheduler scheduler = new AircraftsPollScheduler(false);
+    scheduler.onResponse(AircraftsPollScheduler.HTTP_TOO_MANY_REQUESTS, 1, "0", "3600", 0);
+    assertEquals(3600000, scheduler.getNextInterval(0.0f, NOON));
+
+    // Without a retry delay, back off exponentially up to the max interval
+    scheduler = new AircraftsPollScheduler(true);
+    scheduler.onResponse(AircraftsPollScheduler.HTTP_TOO_MANY_REQUESTS, 1, null, null, 0);
+    assertEquals(Configuration.AIRCRAFTS_AUTHENTICATED_CHECK_TIMER * 2, scheduler.getNextInterval(0.0f, NOON));
+    scheduler.onResponse(AircraftsPollScheduler.HTTP_TOO_MANY_REQUESTS, 1, null, null, 0);
+    assertEquals(Configuration.AIRCRAFTS_AUTHENTICATED_CHECK_TIMER * 4, scheduler.getNextInterval(0.0f, NOON));
+    for(int i = 0; i < 20; i++) {
+      scheduler.onResponse(AircraftsPollScheduler.HTTP_TOO_MANY_REQUESTS, 1, null, null, 0);
+    }
+    assertEquals(Configuration.AIRCRAFTS_MAX_CHECK_TIMER, scheduler.getNextInterval(0.0f, NOON));
+
+    // And recover on the next successful poll
+    scheduler.onResponse(200, 1, "200", null, 0);
+    assertEquals(HALF_DAY / 200, scheduler.getNextInterval(0.0f, NOON));
+
+    // Out of credits, wait for them to be reset
+    scheduler.onResponse(200, 1, "0", null, 0);
+    assertEquals(Configuration.AIRCRAFTS_MAX_CHECK_TIMER, scheduler.getNextInterval(0.0f, NOON));
+    assertEquals(60000, scheduler.getNextInterval(0.0f, NOON + HALF_DAY - 60000));
+  }
+}
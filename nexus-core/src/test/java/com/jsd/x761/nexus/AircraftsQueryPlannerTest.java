@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import static com.jsd.x761.nexus.TestAlerts.VEHICLE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Checks planning the area of aircraft state vector queries.
+ */
+public class AircraftsQueryPlannerTest {
+  private static final float DISTANCE = Geospatial.toMeters(5.0f);
+  // A distance whose full region just exceeds the cheapest credit tier
+  private static final float LARGE_DISTANCE = Geospatial.toMeters(160.0f);
+
+  private static BoundingBox getSquare(float distance) {
+    LatLng bottom = Geospatial.getDestination(VEHICLE, distance, 180f);
+    LatLng left = Geospatial.getDestination(VEHICLE, distance, 270f);
+    LatLng top = Geospatial.getDestination(VEHICLE, distance, 0f);
+    LatLng right = Geospatial.getDestination(VEHICLE, distance, 90f);
+    return new BoundingBox(bottom.getLatitude(), left.getLongitude(), top.getLatitude(), right.getLongitude());
+  }
+
+  private static void assertCovers(BoundingBox box, float distance, float bearing, float range) {
+    for(float angle = bearing - range; angle <= bearing + range; angle += 1.0f) {
+      LatLng point = Geospatial.getDestination(VEHICLE, distance, angle);
+      assertTrue(String.format("%s at %f", point, angle), box.contains(point.getLatitude(), point.getLongitude()));
+    }
+  }
+
+  @Test
+  public void plan_coversFullRangeInCheapestCreditTier() {
+    // The whole range around a moving or stationary vehicle, like the
+    // range filter of the aircrafts
+    for(float speed : new float[] {0.0f, 20.0f}) {
+      BoundingBox box = AircraftsQueryPlanner.plan(VEHICLE, 45.0f, speed, DISTANCE);
+      assertCovers(box, DISTANCE, 0.0f, 180.0f);
+      assertEquals(1, AircraftsQueryPlanner.getCreditTier(box));
+    }
+    assertEquals(1, AircraftsQueryPlanner.getCreditTier(getSquare(LARGE_DISTANCE * 0.9f)));
+    assertEquals(2, AircraftsQueryPlanner.getCreditTier(getSquare(LARGE_DISTANCE)));
+  }
+
+  @Test
+  public void plan_skewsBoxAheadOfMovingVehicle() {
+    BoundingBox box = AircraftsQueryPlanner.plan(VEHICLE, 0.0f, 20.0f, LARGE_DISTANCE);
+    // The full distance ahead and on the sides, less behind
+    assertCovers(box, LARGE_DISTANCE, 0.0f, 90.0f);
+    assertCovers(box, LARGE_DISTANCE * Configuration.AIRCRAFTS_QUERY_BEHIND_DISTANCE_FACTOR, 180.0f, 90.0f);
+    BoundingBox square = getSquare(LARGE_DISTANCE);
+    assertTrue(box.getMinLatitude() > square.getMinLatitude());
+    assertEquals(square.getMaxLatitude(), box.getMaxLatitude(), (square.getMaxLatitude() - VEHICLE.getLatitude()) * 0.01);
+    assertTrue(box.getArea() < square.getArea());
+    assertEquals(1, AircraftsQueryPlanner.getCreditTier(box));
+
+    // Any bearing
+    box = AircraftsQueryPlanner.plan(VEHICLE, 135.0f, 20.0f, LARGE_DISTANCE);
+    assertCovers(box, LARGE_DISTANCE, 135.0f, 90.0f);
+    assertTrue(box.getArea() < square.getArea());
+  }
+
+  @Test
+  public void plan_shrinksBoxAroundStationaryVehicle() {
+    BoundingBox box = AircraftsQueryPlanner.plan(VEHICLE, 0.0f, 0.0f, LARGE_DISTANCE);
+    float distance = LARGE_DISTANCE * Configuration.AIRCRAFTS_QUERY_STATIONARY_DISTANCE_FACTOR;
+    assertCovers(box, distance, 0.0f, 180.0f);
+    assertEquals(getSquare(distance).getArea(), box.getArea(), getSquare(distance).getArea() * 0.02);
+  }
+
+  @Test
+  public void plan_staysInCheapestCreditTier() {
+    BoundingBox box = AircraftsQueryPlanner.plan(VEHICLE, 0.0f, 20.0f, Geospatial.toMeters(500.0f));
+    assertEquals(3, AircraftsQueryPlanner.getCreditTier(getSquare(Geospatial.toMeters(500.0f))));
+    assertEquals(1, AircraftsQueryPlanner.getCreditTier(box));
+    assertTrue(box.getArea() > 20.0);
+  }
+
+  @Test
+  public void getCreditTier_matchesAreas() {
+    assertEquals(1, AircraftsQueryPlanner.getCreditTier(new BoundingBox(0.0, 0.0, 5.0, 5.0)));
+    assertEquals(2, AircraftsQueryPlanner.getCreditTier(new BoundingBox(0.0, 0.0, 10.0, 10.0)));
+    assertEquals(3, AircraftsQueryPlanner.getCreditTier(new BoundingBox(0.0, 0.0, 10.0, 40.0)));
+    assertEquals(4, AircraftsQueryPlanner.getCreditTier(new BoundingBox(0.0, 0.0, 20.0, 21.0)));
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Checks rendering the display and speech text of alerts and only
+ * rendering it again when its inputs change.
+ */
+public class AlertTextTest {
+  private static Alert getReport() {
+    Alert report = TestAlerts.report("POLICE", "University Ave", TestAlerts.VEHICLE);
+    report.subType = "POLICE_HIDING";
+    report.distance = 1.53f;
+    report.bearing = 2;
+    report.announced = 1;
+    return report;
+  }
+
+  @Test
+  public void get_rendersText() {
+    AlertText text = AlertText.get(getReport());
+    assertEquals("Speed Trap", text.typeText);
+    assertEquals("hidden on University Ave", text.bandOrLocationText);
+    assertEquals("1.5 mile", text.frequencyOrDistanceText);
+    assertEquals("2 o'clock", text.bearingText);
+    assertEquals("Speed Trap at 2 o'clock 1.5 mile away hidden on University Ave", text.speech);
+
+    Alert radar = Alert.fromDS1Alert("KA", Alert.ALERT_DIRECTION_FRONT, 5, 34.700f, false);
+    text = AlertText.get(radar);
+    assertEquals("Radar", text.typeText);
+    assertEquals("Ka band", text.bandOrLocationText);
+    assertEquals("34.7 GHz", text.frequencyOrDistanceText);
+    assertEquals("12 o'clock", text.bearingText);
+    assertEquals("K A band 34.7 Radar", text.speech);
+
+    Alert aircraft = new Alert();
+    aircraft.alertClass = Alert.ALERT_CLASS_AIRCRAFT;
+    aircraft.type = "Helicopter";
+    aircraft.manufacturer = "Bell";
+    aircraft.owner = "";
+    aircraft.distance = 2.04f;
+    aircraft.bearing = 11;
+    aircraft.announced = 2;
+    text = AlertText.get(aircraft);
+    assertEquals("Bell Helicopter", text.typeText);
+    assertEquals("unidentified", text.bandOrLocationText);
+    assertEquals("2 miles", text.frequencyOrDistanceText);
+    assertEquals("Unidentified Bell Helicopter now at 11 o'clock 2 miles away", text.speech);
+  }
+
+  @Test
+  public void get_onlyRendersChangedInputs() {
+    Alert report = getReport();
+    AlertText text = AlertText.get(report);
+
+    // Moving within the same tenth of a mile or announcing again as the
+    // first time doesn't render the text again, nor do copies
+    report.distance = 1.47f;
+    assertSame(text, AlertText.get(report));
+    assertSame(text, AlertText.get(report.copy()));
+    report.announced = 0;
+    assertSame(text, AlertText.get(report));
+
+    report.distance = 1.44f;
+    AlertText closer = AlertText.get(report);
+    assertNotSame(text, closer);
+    assertEquals("1.4 mile", closer.frequencyOrDistanceText);
+    assertSame(text.bandOrLocationText, closer.bandOrLocationText);
+
+    report.bearing = 3;
+    assertEquals("3 o'clock", AlertText.get(report).bearingText);
+    report.announced = 2;
+    assertEquals("Speed Trap now at 3 o'clock 1.4 mile away hidden on University Ave", AlertText.get(report).speech);
+  }
+
+  @Test
+  public void getRadarPhrases_coversRadarSpeech() {
+    List<String> phrases = AlertText.getRadarPhrases();
+    for(Alert alert : new Alert[] {
+      Alert.fromDS1Alert("KA", Alert.ALERT_DIRECTION_FRONT, 5, 34.700f, false),
+      Alert.fromDS1Alert("K", Alert.ALERT_DIRECTION_FRONT, 3, 24.150f, false),
+      Alert.fromDS1Alert("X", Alert.ALERT_DIRECTION_FRONT, 3, 10.525f, false),
+      Alert.fromDS1Alert("MRCD", Alert.ALERT_DIRECTION_FRONT, 3, 0.0f, false),
+      Alert.fromDS1Alert("Laser", Alert.ALERT_DIRECTION_FRONT, 3, 0.0f, false)}) {
+      assertTrue(AlertText.get(alert).speech, phrases.contains(AlertText.get(alert).speech));
+    }
+    assertEquals(phrases.size(), new HashSet<>(phrases).size());
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import static com.jsd.x761.nexus.TestAlerts.VEHICLE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Checks identifying live alerts across snapshots and telling which parts
+ * of their display changed.
+ */
+public class AlertsDiffTest {
+  @Test
+  public void liveAlerts_keepTheirId() {
+    LiveAlerts liveAlerts = new LiveAlerts();
+    List<Alert> reports = new ArrayList<>();
+    reports.add(TestAlerts.report("POLICE", "University Ave", 1.0f, 90.0f));
+    reports.add(TestAlerts.report("ACCIDENT", "Lytton Ave", 1.8f, 90.0f));
+    AlertsSnapshot first = liveAlerts.setReports(Alert.fromReports(VEHICLE, 0.0f, reports));
+    long police = first.getReportAlerts().get(0).id;
+    long accident = first.getReportAlerts().get(1).id;
+    assertTrue(police != 0 && accident != 0);
+    assertNotEquals(police, accident);
+
+    // The same reports located from elsewhere keep their id, a new report
+    // gets a new one
+    reports.add(TestAlerts.report("HAZARD", "Hamilton Ave", 1.5f, 90.0f));
+    LatLng closer = Geospatial.getDestination(VEHICLE, Geospatial.toMeters(0.2f), 90.0f);
+    AlertsSnapshot second = liveAlerts.setReports(Alert.fromReports(closer, 0.0f, reports));
+    assertEquals(3, second.getReportAlerts().size());
+    for(Alert report : second.getReportAlerts()) {
+      if(report.type.equals("POLICE")) {
+        assertEquals(police, report.id);
+      }
+      else if(report.type.equals("ACCIDENT")) {
+        assertEquals(accident, report.id);
+      }
+      else {
+        assertTrue(report.id > Math.max(police, accident));
+      }
+    }
+
+    Alert alert = Alert.fromDS1Alert("KA", Alert.ALERT_DIRECTION_FRONT, 5, 34.700f, false);
+    long radar = liveAlerts.setRadarAlerts(Collections.singletonList(alert)).getRadarAlerts().get(0).id;
+    Alert repeat = Alert.fromDS1Alert("KA", Alert.ALERT_DIRECTION_FRONT, 6, 34.700f, false);
+    assertEquals(radar, liveAlerts.setRadarAlerts(Collections.singletonList(repeat)).getRadarAlerts().get(0).id);
+  }
+
+  @Test
+  public void getChanges_onlyReportsChangedParts() {
+    Alert report = Alert.fromReports(VEHICLE, 0.0f, Collections.singletonList(TestAlerts.report("POLICE", "University Ave", 1.0f, 90.0f))).get(0);
+    Alert same = report.copy();
+    assertTrue(AlertsDiff.isSameAlert(report, same));
+    assertEquals(0, AlertsDiff.getChanges(report, same));
+
+    // Moving closer changes the distance and strength, not the bearing
+    Alert closer = report.copy();
+    closer.distance = 0.5f;
+    assertEquals(AlertsDiff.CHANGE_DISTANCE | AlertsDiff.CHANGE_STRENGTH, AlertsDiff.getChanges(report, closer));
+
+    Alert turned = report.copy();
+    turned.bearing = (report.bearing % 12) + 1;
+    assertEquals(AlertsDiff.CHANGE_BEARING, AlertsDiff.getChanges(report, turned));
+
+    Alert changed = closer.copy();
+    changed.type = "ACCIDENT";
+    assertEquals(AlertsDiff.CHANGE_ALL, AlertsDiff.getChanges(report, changed));
+
+    // The strength of a radar alert is its intensity
+    Alert alert = Alert.fromDS1Alert("KA", Alert.ALERT_DIRECTION_FRONT, 5, 34.700f, false);
+    Alert stronger = alert.copy();
+    stronger.intensity = alert.intensity + 10.0f;
+    assertEquals(AlertsDiff.CHANGE_STRENGTH, AlertsDiff.getChanges(alert, stronger));
+  }
+}
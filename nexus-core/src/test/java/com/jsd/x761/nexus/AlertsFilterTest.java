@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks the filtering of lists of alerts.
+ */
+public class AlertsFilterTest {
+
+  private static List<Alert> getReports(Random random, LatLng center, int count, float miles) {
+    String[] types = {"POLICE", "ACCIDENT"};
+    List<Alert> reports = new ArrayList<>();
+    for(int i = 0; i < count; i++) {
+      LatLng target;
+      if(i > 0 && random.nextInt(3) == 0) {
+        // Cluster reports around the duplicate distance of a previous report
+        Alert near = reports.get(random.nextInt(reports.size()));
+        float distance = Geospatial.toMeters(Configuration.REPORTS_DUPLICATE_DISTANCE) * random.nextFloat() * 2.0f;
+        target = Geospatial.getDestination(new LatLng(near.latitude, near.longitude), distance, random.nextFloat() * 360.0f);
+      }
+      else {
+        target = Geospatial.getDestination(center, random.nextFloat() * Geospatial.toMeters(miles), random.nextFloat() * 360.0f);
+      }
+      reports.add(TestAlerts.report(types[random.nextInt(types.length)], "", target));
+    }
+    return reports;
+  }
+
+  private static void assertSameReports(List<Alert> expected, List<Alert> actual) {
+    assertEquals(expected.size(), actual.size());
+    for(int i = 0; i < expected.size(); i++) {
+      assertSame(expected.get(i), actual.get(i));
+    }
+  }
+
+  @Test
+  public void uniqueReports_matchPairwiseScan() {
+    Random random = new Random(761);
+    for(double latitude = -85; latitude <= 85; latitude += 5) {
+      LatLng center = new LatLng(latitude, random.nextDouble() * 360 - 180);
+      for(int count : new int[] {1, 50, 200, 1000}) {
+        List<Alert> reports = getReports(random, center, count, 2.0f);
+        assertSameReports(AlertsFilter.getUniqueReportsPairwise(reports), AlertsFilter.getUniqueReports(reports));
+      }
+    }
+  }
+
+  @Test
+  public void uniqueReports_matchPairwiseScanAcrossAntimeridian() {
+    Random random = new Random(761);
+    List<Alert> reports = getReports(random, new LatLng(64.0, 179.999), 500, 0.5f);
+    assertSameReports(AlertsFilter.getUniqueReportsPairwise(reports), AlertsFilter.getUniqueReports(reports));
+  }
+
+  @Test
+  public void uniqueReports_keepFirstReport() {
+    Alert first = TestAlerts.report("POLICE", "", TestAlerts.VEHICLE);
+    Alert second = TestAlerts.report("POLICE", "", new LatLng(37.4420, -122.1431));
+    List<Alert> reports = new ArrayList<>();
+    reports.add(first);
+    reports.add(second);
+
+    List<Alert> uniqueReports = AlertsFilter.getUniqueReports(reports);
+    assertEquals(1, uniqueReports.size());
+    assertSame(first, uniqueReports.get(0));
+  }
+
+  @Test
+  public void sameReports_ignoreVehicleLocation() {
+    List<Alert> reports = getReports(new Random(761), TestAlerts.VEHICLE, 50, 2.0f);
+    List<Alert> relocatedReports = Alert.fromReports(new LatLng(37.4519, -122.1530), 90.0f, reports);
+    assertTrue(AlertsFilter.isSameReports(reports, relocatedReports));
+
+    List<Alert> changedReports = Alert.fromReports(TestAlerts.VEHICLE, 0.0f, reports);
+    changedReports.get(10).thumbsUp++;
+    assertFalse(AlertsFilter.isSameReports(reports, changedReports));
+    assertFalse(AlertsFilter.isSameReports(reports, reports.subList(1, reports.size())));
+  }
+}
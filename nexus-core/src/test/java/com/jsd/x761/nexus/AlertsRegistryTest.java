@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks the matching of new alerts with live alerts.
+ */
+public class AlertsRegistryTest {
+
+  private static Alert getReport(double latitude, double longitude, String city, String street) {
+    Alert report = TestAlerts.report("POLICE", street, new LatLng(latitude, longitude));
+    report.city = city;
+    return report;
+  }
+
+  @Test
+  public void get_matchesSameReport() {
+    Random random = new Random(761);
+    String[] cities = {"Palo Alto", "Palo", ""};
+    String[] streets = {"Alto University Ave", "University Ave", ""};
+    List<Alert> reports = new ArrayList<>();
+    for(int i = 0; i < 200; i++) {
+      reports.add(getReport(
+        37.44 + random.nextInt(4) * 0.001, -122.14 + random.nextInt(4) * 0.001, cities[random.nextInt(cities.length)],
+        streets[random.nextInt(streets.length)]));
+    }
+    List<Alert> liveReports = reports.subList(0, 100);
+    AlertsRegistry registry = new AlertsRegistry();
+    registry.setAlerts(liveReports);
+
+    for(Alert report : reports.subList(100, 200)) {
+      Alert expected = null;
+      for(Alert liveReport : liveReports) {
+        if(report.isSameReport(liveReport)) {
+          expected = liveReport;
+          break;
+        }
+      }
+      assertSame(expected, registry.get(report));
+    }
+  }
+
+  @Test
+  public void get_matchesSameAircraft() {
+    AlertsRegistry registry = new AlertsRegistry();
+    Alert aircraft = TestAlerts.aircraft("a1b2c3");
+    registry.setAlerts(Arrays.asList(aircraft, TestAlerts.aircraft("a1b2c3"), TestAlerts.aircraft("c3b2a1")));
+    assertEquals(2, registry.size());
+    assertSame(aircraft, registry.get(TestAlerts.aircraft("a1b2c3")));
+    assertNull(registry.get(TestAlerts.aircraft("000000")));
+  }
+
+  @Test
+  public void get_matchesRepeatingDS1Alert() {
+    AlertsRegistry registry = new AlertsRegistry();
+    Alert ka = Alert.fromDS1Alert("KA", Alert.ALERT_DIRECTION_FRONT, 3, 34.7f, false);
+    Alert laser = Alert.fromDS1Alert("Laser", Alert.ALERT_DIRECTION_FRONT, 3, 0.0f, false);
+    registry.setAlerts(Arrays.asList(ka, laser));
+    assertSame(ka, registry.get(Alert.fromDS1Alert("KA", Alert.ALERT_DIRECTION_BACK, 1, 34.7f, false)));
+    assertSame(laser, registry.get(Alert.fromDS1Alert("Laser", Alert.ALERT_DIRECTION_SIDE, 1, 0.0f, false)));
+    assertNull(registry.get(Alert.fromDS1Alert("KA", Alert.ALERT_DIRECTION_FRONT, 3, 35.5f, false)));
+    assertNull(registry.get(Alert.fromDS1Alert("K", Alert.ALERT_DIRECTION_FRONT, 3, 34.7f, false)));
+  }
+}
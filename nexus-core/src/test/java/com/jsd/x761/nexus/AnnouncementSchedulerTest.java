@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Checks scheduling the announcements of alerts by priority, coalescing,
+ * dropping and preempting them.
+ */
+public class AnnouncementSchedulerTest {
+  private long mLastId;
+
+  private Alert getAlert(String type) {
+    Alert alert = Alert.fromDS1Alert(type, Alert.ALERT_DIRECTION_FRONT, 5, type.equals("KA") ? 34.700f : 24.150f, false);
+    alert.id = ++mLastId;
+    return alert;
+  }
+
+  private Alert getAircraft() {
+    Alert aircraft = TestAlerts.aircraft("a1b2c3");
+    aircraft.id = ++mLastId;
+    return aircraft;
+  }
+
+  @Test
+  public void next_playsByPriorityAndDropsStale() {
+    AnnouncementScheduler scheduler = new AnnouncementScheduler();
+    int[] done = {0};
+    Runnable onDone = () -> done[0]++;
+    Alert aircraft = getAircraft();
+    Alert k = getAlert("K");
+    Alert ka = getAlert("KA");
+    assertFalse(scheduler.add(aircraft, true, true, onDone, 0));
+    assertFalse(scheduler.add(k, true, true, onDone, 0));
+    assertFalse(scheduler.add(ka, true, true, onDone, 0));
+    assertEquals(3, scheduler.getQueueDepth());
+
+    AnnouncementScheduler.Announcement first = scheduler.next(100);
+    assertSame(ka, first.getAlert());
+    assertEquals(AnnouncementScheduler.PRIORITY_URGENT, first.priority);
+    // Only one announcement plays at a time
+    assertNull(scheduler.next(100));
+    scheduler.onDone(first);
+    assertEquals(1, done[0]);
+
+    // The K band alert waited longer than its budget and is dropped, the
+    // aircraft is still within its budget
+    long time = Configuration.AUDIO_RADAR_ANNOUNCE_BUDGET + 1;
+    AnnouncementScheduler.Announcement second = scheduler.next(time);
+    assertSame(aircraft, second.getAlert());
+    assertEquals(2, done[0]);
+    assertEquals(1, scheduler.getDroppedCount());
+    scheduler.onDone(second);
+    assertEquals(3, done[0]);
+    assertTrue(scheduler.isIdle());
+
+    assertEquals(2, scheduler.getAnnounceCount());
+    assertEquals(time, scheduler.getMaxDelay());
+    assertEquals((100 + time) / 2, scheduler.getAverageDelay());
+  }
+
+  @Test
+  public void add_coalescesAndPreempts() {
+    AnnouncementScheduler scheduler = new AnnouncementScheduler();
+    int[] done = {0};
+    Runnable onDone = () -> done[0]++;
+    Alert aircraft = getAircraft();
+    Alert report = TestAlerts.report("POLICE", "University Ave", 1.0f, 0.0f);
+    report.id = ++mLastId;
+    scheduler.add(aircraft, true, true, onDone, 0);
+    AnnouncementScheduler.Announcement current = scheduler.next(0);
+
+    // A newer update of a waiting alert replaces it
+    scheduler.add(report, false, true, onDone, 0);
+    Alert newReport = report.copy();
+    assertFalse(scheduler.add(newReport, true, false, onDone, 10));
+    assertEquals(1, scheduler.getQueueDepth());
+    assertEquals(1, scheduler.getCoalescedCount());
+
+    // An urgent alert preempts the aircraft in progress, only once
+    assertTrue(scheduler.add(getAlert("Laser"), true, true, onDone, 20));
+    assertFalse(scheduler.add(getAlert("KA"), true, true, onDone, 20));
+    assertTrue(current.isPreempted());
+    assertEquals(1, scheduler.getPreemptedCount());
+    scheduler.onDone(current);
+
+    AnnouncementScheduler.Announcement laser = scheduler.next(30);
+    assertEquals(Alert.ALERT_CLASS_LASER, laser.getAlert().alertClass);
+    assertFalse(laser.isPreempted());
+    scheduler.onDone(laser);
+    scheduler.onDone(scheduler.next(30));
+
+    AnnouncementScheduler.Announcement coalesced = scheduler.next(30);
+    assertSame(newReport, coalesced.getAlert());
+    assertTrue(coalesced.hasEarcon());
+    assertTrue(coalesced.hasSpeech());
+    scheduler.onDone(coalesced);
+
+    // Each added announcement ran its onDone task
+    assertEquals(5, done[0]);
+    assertTrue(scheduler.isIdle());
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Checks picking the earcons of alerts and reading the duration of their
+ * clips.
+ */
+public class EarconsTest {
+  private static byte[] getClip(int sampleRate, int dataSize) {
+    ByteBuffer clip = ByteBuffer.allocate(12 + 24 + 14 + 8 + dataSize).order(ByteOrder.LITTLE_ENDIAN);
+    clip.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(clip.capacity() - 8).put("WAVE".getBytes(StandardCharsets.US_ASCII));
+    clip.put("fmt ".getBytes(StandardCharsets.US_ASCII)).putInt(16).putShort((short)1).putShort((short)1);
+    clip.putInt(sampleRate).putInt(sampleRate * 2).putShort((short)2).putShort((short)16);
+    // An odd sized chunk before the data is padded
+    clip.put("LIST".getBytes(StandardCharsets.US_ASCII)).putInt(5).put(new byte[6]);
+    clip.put("data".getBytes(StandardCharsets.US_ASCII)).putInt(dataSize);
+    return clip.array();
+  }
+
+  @Test
+  public void getDuration_readsClip() throws IOException {
+    assertEquals(137, Earcons.getDuration(new ByteArrayInputStream(getClip(16000, 2200 * 2))));
+    assertEquals(1000, Earcons.getDuration(new ByteArrayInputStream(getClip(44100, 88200))));
+
+    byte[] clip = getClip(16000, 100);
+    try {
+      Earcons.getDuration(new ByteArrayInputStream(Arrays.copyOf(clip, 30)));
+      fail();
+    }
+    catch(IOException e) {
+    }
+    clip[0] = 'X';
+    try {
+      Earcons.getDuration(new ByteArrayInputStream(clip));
+      fail();
+    }
+    catch(IOException e) {
+    }
+  }
+
+  @Test
+  public void getEarcon_urgentForLaserAndKa() {
+    Alert ka = Alert.fromDS1Alert("KA", Alert.ALERT_DIRECTION_FRONT, 5, 34.700f, false);
+    Alert k = Alert.fromDS1Alert("K", Alert.ALERT_DIRECTION_FRONT, 5, 24.150f, false);
+    Alert laser = Alert.fromDS1Alert("Laser", Alert.ALERT_DIRECTION_FRONT, 5, 0.0f, false);
+    assertEquals("[s3]", Earcons.getEarcon(ka));
+    assertEquals("[s4]", Earcons.getEarcon(k));
+    assertEquals("[s5]", Earcons.getEarcon(laser));
+    assertTrue(Earcons.isUrgent(ka));
+    assertTrue(Earcons.isUrgent(laser));
+    assertFalse(Earcons.isUrgent(k));
+
+    Alert camera = new Alert();
+    camera.alertClass = Alert.ALERT_CLASS_SPEED_CAM;
+    assertTrue(Arrays.asList(Earcons.EARCONS).contains(Earcons.getEarcon(camera)));
+  }
+}
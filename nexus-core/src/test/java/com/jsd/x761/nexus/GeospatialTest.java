@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Checks the geospatial computations.
+ */
+public class GeospatialTest {
+
+  @Test
+  public void batchDistancesAndBearings_matchSingleComputations() {
+    Random random = new Random(761);
+    for(double latitude = -80; latitude <= 80; latitude += 10) {
+      LatLng from = new LatLng(latitude, random.nextDouble() * 360 - 180);
+      int count = 100;
+      double[] latitudes = new double[count];
+      double[] longitudes = new double[count];
+      for(int i = 0; i < count; i++) {
+        LatLng to = Geospatial.getDestination(from, random.nextFloat() * 10000.0f, random.nextFloat() * 360.0f);
+        latitudes[i] = to.getLatitude();
+        longitudes[i] = to.getLongitude();
+      }
+      float[] distances = new float[count];
+      float[] bearings = new float[count];
+      Geospatial.getDistancesAndBearings(from, latitudes, longitudes, count, distances, bearings);
+
+      for(int i = 0; i < count; i++) {
+        LatLng to = new LatLng(latitudes[i], longitudes[i]);
+        assertEquals(Geospatial.getDistance(from, to), distances[i], 0.01f);
+        assertEquals(Geospatial.getBearing(from, to), bearings[i], 0.001f);
+      }
+    }
+  }
+
+  @Test
+  public void distanceModes_stayWithinErrorBounds() {
+    int[] modes = {Geospatial.DISTANCE_MODE_HAVERSINE, Geospatial.DISTANCE_MODE_EQUIRECTANGULAR, Geospatial.DISTANCE_MODE_TANGENT_PLANE};
+    // Documented relative error bounds within 10 and 50 miles, at 45 and
+    // 80 degrees of latitude
+    double[][] bounds45 = {{1e-6, 1e-6}, {2e-5, 4e-4}, {3e-3, 1.3e-2}};
+    double[][] bounds80 = {{1e-6, 1e-6}, {3e-4, 6e-3}, {1.5e-2, 7.5e-2}};
+    for(int m = 0; m < modes.length; m++) {
+      for(int d = 0; d < 2; d++) {
+        float meters = Geospatial.toMeters(d == 0 ? 10.0f : 50.0f);
+        assertTrue(Geospatial.getDistanceError(modes[m], 45, meters) / meters <= bounds45[m][d] + 1e-6);
+        assertTrue(Geospatial.getDistanceError(modes[m], 80, meters) / meters <= bounds80[m][d] + 1e-6);
+      }
+    }
+    Random random = new Random(761);
+    for(double latitude = -80; latitude <= 80; latitude += 5) {
+      for(int m = 0; m < modes.length; m++) {
+        int mode = modes[m];
+        for(int i = 0; i < 500; i++) {
+          LatLng from = new LatLng(latitude, random.nextDouble() * 360 - 180);
+          float miles = i % 2 == 0 ? 10.0f : 50.0f;
+          float meters = 1.0f + random.nextFloat() * Geospatial.toMeters(miles);
+          LatLng to = Geospatial.getDestination(from, meters, random.nextFloat() * 360.0f);
+
+          float exact = Geospatial.getDistance(Geospatial.DISTANCE_MODE_HAVERSINE, from.getLatitude(), from.getLongitude(), to.getLatitude(), to.getLongitude());
+          float distance = Geospatial.getDistance(mode, from.getLatitude(), from.getLongitude(), to.getLatitude(), to.getLongitude());
+          float error = Math.abs(distance - exact);
+          assertTrue(
+            String.format("mode %d lat %f distance %f error %f", mode, latitude, exact, error),
+            error <= Geospatial.getDistanceError(mode, latitude, exact));
+          assertTrue(
+            String.format("mode %d lat %f distance %f relative error %f", mode, latitude, exact, error / exact),
+            error / exact <= (Math.abs(latitude) <= 45 ? bounds45 : bounds80)[m][miles == 10.0f ? 0 : 1]);
+
+          DistanceCalculator distanceCalculator = new DistanceCalculator(mode, from);
+          assertEquals(distance, distanceCalculator.getDistance(to.getLatitude(), to.getLongitude()), 0.001f);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void haversine_matchesLawOfCosines() {
+    Random random = new Random(761);
+    for(double latitude = -80; latitude <= 80; latitude += 5) {
+      LatLng from = new LatLng(latitude, random.nextDouble() * 360 - 180);
+      LatLng to = Geospatial.getDestination(from, random.nextFloat() * 100000.0f, random.nextFloat() * 360.0f);
+      float haversine = Geospatial.getDistance(Geospatial.DISTANCE_MODE_HAVERSINE, from.getLatitude(), from.getLongitude(), to.getLatitude(), to.getLongitude());
+      assertEquals(Geospatial.getDistance(from, to), haversine, 0.05f);
+    }
+  }
+
+  @Test
+  public void distanceModes_handleAntimeridian() {
+    LatLng from = new LatLng(51.0, 179.99);
+    LatLng to = Geospatial.getDestination(from, 5000.0f, 90.0f);
+    assertTrue(to.getLongitude() < 0);
+    for(int mode = Geospatial.DISTANCE_MODE_HAVERSINE; mode <= Geospatial.DISTANCE_MODE_TANGENT_PLANE; mode++) {
+      assertEquals(Geospatial.getDistance(from, to), Geospatial.getDistance(mode, from.getLatitude(), from.getLongitude(), to.getLatitude(), to.getLongitude()), 5.0f);
+    }
+  }
+
+  @Test
+  public void isWithinRange_neverRejectsTargetsInRange() {
+    Random random = new Random(761);
+    float range = Geospatial.toMeters(Configuration.AIRCRAFTS_MAX_DISTANCE);
+    for(double latitude = -80; latitude <= 80; latitude += 5) {
+      LatLng from = new LatLng(latitude, random.nextDouble() * 360 - 180);
+      DistanceCalculator distanceCalculator = new DistanceCalculator(Geospatial.DISTANCE_MODE_TANGENT_PLANE, from);
+      for(int i = 0; i < 1000; i++) {
+        // Targets close to the range boundary
+        LatLng to = Geospatial.getDestination(from, range * (0.99f + random.nextFloat() * 0.02f), random.nextFloat() * 360.0f);
+        if(Geospatial.getDistance(from, to) <= range) {
+          assertTrue(distanceCalculator.isWithinRange(to.getLatitude(), to.getLongitude(), range));
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Checks the shared HTTP client against a local server.
+ */
+public class HttpClientTest {
+  private static final String BODY = "{\"alerts\":[" + String.join(",", Collections.nCopies(200, "{\"type\":\"POLICE\"}")) + "]}";
+
+  private HttpServer mServer;
+  private final Set<Integer> mClientPorts = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger mActive = new AtomicInteger();
+  private final AtomicInteger mMaxActive = new AtomicInteger();
+
+  @Before
+  public void setup() throws IOException {
+    mServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    mServer.setExecutor(Executors.newCachedThreadPool());
+    mServer.createContext("/body", exchange -> {
+      mClientPorts.add(exchange.getRemoteAddress().getPort());
+      byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+      String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+      if(acceptEncoding != null && acceptEncoding.contains("gzip")) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try(GZIPOutputStream outputStream = new GZIPOutputStream(compressed)) {
+          outputStream.write(body);
+        }
+        body = compressed.toByteArray();
+        exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+      }
+      String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+      exchange.getResponseHeaders().set("X-Authorization", authorization != null ? authorization : "none");
+      send(exchange, 200, body);
+    });
+    mServer.createContext("/slow", exchange -> {
+      int active = mActive.incrementAndGet();
+      mMaxActive.accumulateAndGet(active, Math::max);
+      try {
+        Thread.sleep(50);
+      }
+      catch(InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      mActive.decrementAndGet();
+      send(exchange, 200, new byte[] {'o', 'k'});
+    });
+    mServer.createContext("/missing", exchange -> send(exchange, 404, "missing".getBytes(StandardCharsets.UTF_8)));
+    mServer.start();
+  }
+
+  @After
+  public void teardown() {
+    mServer.stop(0);
+  }
+
+  private static void send(HttpExchange exchange, int responseCode, byte[] body) throws IOException {
+    exchange.sendResponseHeaders(responseCode, exchange.getRequestMethod().equals("HEAD") ? -1 : body.length);
+    try(OutputStream outputStream = exchange.getResponseBody()) {
+      if(!exchange.getRequestMethod().equals("HEAD")) {
+        outputStream.write(body);
+      }
+    }
+  }
+
+  private URL getURL(String path) throws IOException {
+    return new URL(String.format("http://localhost:%d%s", mServer.getAddress().getPort(), path));
+  }
+
+  private static String read(InputStream inputStream) throws IOException {
+    return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void get_decodesCompressedBody() throws IOException {
+    HttpClient client = new HttpClient(5000, 2);
+    try(HttpResponse response = client.get(getURL("/body"), Collections.singletonMap("Authorization", "Basic dGVzdA=="), 5000)) {
+      assertEquals(200, response.getResponseCode());
+      assertEquals("Basic dGVzdA==", response.getHeaderField("X-Authorization"));
+      assertEquals(BODY, read(response.getInputStream()));
+    }
+    assertEquals(1, client.getRequestCount());
+    assertEquals(BODY.length(), client.getDecodedBytes());
+    assertTrue(client.getBytes() < client.getDecodedBytes() / 4);
+  }
+
+  @Test
+  public void get_reusesConnections() throws IOException {
+    HttpClient client = new HttpClient(5000, 2);
+    for(int i = 0; i < 5; i++) {
+      try(HttpResponse response = client.get(getURL("/body"), null, 5000)) {
+        assertEquals(BODY, read(response.getInputStream()));
+      }
+    }
+    assertEquals(5, client.getRequestCount());
+    assertEquals(1, mClientPorts.size());
+    for(int phase = 0; phase < HttpClient.PHASES; phase++) {
+      assertTrue(client.getAverageLatency(phase) >= 0.0f);
+    }
+  }
+
+  @Test
+  public void request_readsErrorBody() throws IOException {
+    HttpClient client = new HttpClient(5000, 2);
+    try(HttpResponse response = client.get(getURL("/missing"), null, 5000)) {
+      assertEquals(404, response.getResponseCode());
+      assertEquals("missing", read(response.getInputStream()));
+    }
+    try(HttpResponse response = client.head(getURL("/body"), 5000)) {
+      assertEquals(200, response.getResponseCode());
+    }
+    try(HttpResponse response = client.head(getURL("/missing"), 5000)) {
+      assertEquals(404, response.getResponseCode());
+      assertNull(response.getInputStream());
+    }
+    assertEquals(3, client.getRequestCount());
+  }
+
+  @Test
+  public void get_limitsConnectionsPerHost() throws Exception {
+    HttpClient client = new HttpClient(5000, 2);
+    CountDownLatch done = new CountDownLatch(6);
+    AtomicInteger failures = new AtomicInteger();
+    for(int i = 0; i < 6; i++) {
+      new Thread(() -> {
+        try(HttpResponse response = client.get(getURL("/slow"), null, 5000)) {
+          read(response.getInputStream());
+        }
+        catch(IOException e) {
+          failures.incrementAndGet();
+        }
+        done.countDown();
+      }).start();
+    }
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    assertEquals(0, failures.get());
+    assertEquals(6, client.getRequestCount());
+    assertTrue(mMaxActive.get() <= 2);
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * Checks the streaming JSON parser.
+ */
+public class JsonPullParserTest {
+
+  @Test
+  public void parser_readsTokens() throws IOException {
+    JsonPullParser parser = new JsonPullParser(new StringReader(
+      " { \"a\" : [1, -2.5e3, \"x\\\"y\\u0041\\n\", true, false, null], \"b\": {}, \"c\": [] } "));
+    parser.beginObject();
+    assertEquals("a", parser.nextName());
+    parser.beginArray();
+    assertEquals(1.0, parser.nextDouble(), 0.0);
+    assertEquals("-2.5e3", parser.nextString());
+    assertEquals("x\"yA\n", parser.nextString());
+    assertTrue(parser.nextBoolean());
+    assertFalse(parser.nextBoolean());
+    assertEquals(JsonPullParser.TOKEN_NULL, parser.peek());
+    parser.nextNull();
+    assertFalse(parser.hasNext());
+    parser.endArray();
+    assertEquals("b", parser.nextName());
+    parser.beginObject();
+    parser.endObject();
+    assertEquals("c", parser.nextName());
+    parser.beginArray();
+    parser.endArray();
+    parser.endObject();
+    assertEquals(JsonPullParser.TOKEN_END_DOCUMENT, parser.peek());
+  }
+
+  @Test
+  public void skipValue_skipsNestedValues() throws IOException {
+    JsonPullParser parser = new JsonPullParser(new StringReader(
+      "{\"skip\": {\"x\": [1, {\"y\": \"]}\"}, [[]]], \"z\": null}, \"keep\": 42, \"last\": \"v\"}"));
+    parser.beginObject();
+    assertEquals("skip", parser.nextName());
+    parser.skipValue();
+    assertEquals("keep", parser.nextName());
+    assertEquals(42.0, parser.nextDouble(), 0.0);
+    parser.skipValue();
+    assertFalse(parser.hasNext());
+    parser.endObject();
+  }
+
+  @Test
+  public void nextRawValue_returnsValueText() throws IOException {
+    String[] values = {"{\"a\":[1,2.5,\"b\\\"c\"],\"d\":null}", "[true, false, [ ]]", "\"e\\u0041\"", "-12.5E-3", "true", "false", "null"};
+    JsonPullParser parser = new JsonPullParser(new StringReader("[" + String.join(", ", values) + "]"));
+    parser.beginArray();
+    for(String value : values) {
+      assertEquals(value, parser.nextRawValue());
+    }
+    parser.endArray();
+  }
+
+  @Test
+  public void nextRawValue_matchesJSONTree() throws IOException {
+    String json = "{\"a\":[1,2.5,\"b\\\"c\"],\"d\":null,\"e\":{\"f\":[{},[]]}}";
+    JsonPullParser parser = new JsonPullParser(new StringReader(json));
+    assertEquals(new JSONObject(json).toString(), new JSONObject(parser.nextRawValue()).toString());
+
+    String array = "[\"abc123\",null,1.5,true]";
+    parser = new JsonPullParser(new StringReader(array));
+    assertEquals(new JSONArray(array).toString(), new JSONArray(parser.nextRawValue()).toString());
+  }
+
+  @Test(expected = IOException.class)
+  public void parser_rejectsTruncatedDocument() throws IOException {
+    JsonPullParser parser = new JsonPullParser(new StringReader("{\"states\": [[\"abc"));
+    parser.beginObject();
+    parser.nextName();
+    parser.skipValue();
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import static com.jsd.x761.nexus.TestAlerts.VEHICLE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Checks reconciling updates with the live alerts and publishing snapshots
+ * of them.
+ */
+public class LiveAlertsTest {
+  private static List<Alert> getReports() {
+    List<Alert> reports = new ArrayList<>();
+    for(int i = 0; i < 3; i++) {
+      reports.add(TestAlerts.report("POLICE", "University Ave", 0.5f + i * 0.5f, 0.0f));
+    }
+    return reports;
+  }
+
+  @Test
+  public void setReports_announcesOnceUntilCloser() {
+    LiveAlerts liveAlerts = new LiveAlerts();
+    List<Alert> reports = getReports();
+    AlertsSnapshot first = liveAlerts.setReports(Alert.fromReports(VEHICLE, 0.0f, reports));
+    assertEquals(3, first.getReportAlerts().size());
+    assertEquals(first.getReportAlerts(), first.getAnnounces());
+    assertEquals(first.getReportAlerts(), first.getItems());
+
+    // The same reports located again aren't announced again
+    AlertsSnapshot second = liveAlerts.setReports(Alert.fromReports(VEHICLE, 0.0f, liveAlerts.getReports()));
+    assertEquals(3, second.getReportAlerts().size());
+    assertEquals(0, second.getAnnounces().size());
+
+    // The reports are announced again once significantly closer
+    LatLng closer = Geospatial.getDestination(VEHICLE, Geospatial.toMeters(0.3f), 0.0f);
+    AlertsSnapshot third = liveAlerts.setReports(Alert.fromReports(closer, 0.0f, liveAlerts.getReports()));
+    assertEquals(3, third.getAnnounces().size());
+    for(int i = 0; i < 3; i++) {
+      Alert report = third.getReportAlerts().get(i);
+      assertSame(report, third.getAnnounces().get(i));
+      assertEquals(2, report.announced);
+
+      // Earlier snapshots are left unchanged
+      assertEquals(1, first.getReportAlerts().get(i).announced);
+      assertNotSame(report, first.getReportAlerts().get(i));
+    }
+  }
+
+  @Test
+  public void setRadarAlerts_sharesOtherAlerts() {
+    LiveAlerts liveAlerts = new LiveAlerts();
+    AlertsSnapshot reports = liveAlerts.setReports(Alert.fromReports(VEHICLE, 0.0f, getReports()));
+
+    Alert muted = Alert.fromDS1Alert("K", Alert.ALERT_DIRECTION_FRONT, 3, 24.150f, true);
+    Alert alert = Alert.fromDS1Alert("KA", Alert.ALERT_DIRECTION_FRONT, 5, 34.700f, false);
+    List<Alert> alerts = new ArrayList<>();
+    alerts.add(muted);
+    alerts.add(alert);
+    AlertsSnapshot radar = liveAlerts.setRadarAlerts(alerts);
+    assertSame(reports.getReportAlerts(), radar.getReportAlerts());
+    assertEquals(2, radar.getRadarAlerts().size());
+    assertEquals(1, radar.getAnnounces().size());
+    assertEquals(1, radar.getAnnounces().get(0).announced);
+    assertEquals(5, radar.getItems().size());
+    assertSame(radar.getRadarAlerts().get(0), radar.getItems().get(0));
+
+    // A repeating alert is announced again
+    Alert repeat = Alert.fromDS1Alert("KA", Alert.ALERT_DIRECTION_FRONT, 6, 34.700f, false);
+    AlertsSnapshot repeated = liveAlerts.setRadarAlerts(Collections.singletonList(repeat));
+    assertEquals(2, repeated.getAnnounces().get(0).announced);
+
+    AlertsSnapshot cleared = liveAlerts.setRadarAlerts(new ArrayList<>());
+    assertEquals(0, cleared.getRadarAlerts().size());
+    assertEquals(3, cleared.getItems().size());
+    try {
+      cleared.getItems().clear();
+      fail();
+    }
+    catch(UnsupportedOperationException e) {
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Checks telling network reachability from the platform and the fetches.
+ */
+public class NetworkReachabilityTest {
+  private static final long PROBE_TIMER = 60000;
+
+  private static NetworkReachability newReachability() {
+    return new NetworkReachability(2, PROBE_TIMER);
+  }
+
+  @Test
+  public void reachability_followsPlatformWhenFetchesAgree() {
+    NetworkReachability reachability = newReachability();
+    reachability.onNetworkChanged(true, true, 0);
+    assertTrue(reachability.isConnected());
+    reachability.onFetchSucceeded(1000);
+    assertTrue(reachability.isConnected());
+    assertFalse(reachability.shouldProbe(1000));
+
+    // A single failed fetch isn't enough to disagree
+    reachability.onFetchFailed(2000);
+    assertTrue(reachability.isConnected());
+    assertFalse(reachability.shouldProbe(2000));
+
+    reachability.onNetworkChanged(false, false, 3000);
+    assertFalse(reachability.isConnected());
+    assertFalse(reachability.shouldProbe(3000));
+    reachability.onNetworkChanged(true, true, 4000);
+    assertTrue(reachability.isConnected());
+  }
+
+  @Test
+  public void reachability_probesWhenFetchesFail() {
+    NetworkReachability reachability = newReachability();
+    reachability.onNetworkChanged(true, true, 0);
+    reachability.onFetchFailed(1000);
+    reachability.onFetchFailed(2000);
+
+    // Keeps the last state until a probe settles it
+    assertTrue(reachability.isConnected());
+    assertTrue(reachability.shouldProbe(2000));
+    reachability.onProbe(false, 3000);
+    assertFalse(reachability.isConnected());
+    assertFalse(reachability.shouldProbe(3000 + PROBE_TIMER - 1));
+    assertTrue(reachability.shouldProbe(3000 + PROBE_TIMER));
+    reachability.onProbe(true, 3000 + PROBE_TIMER);
+    assertTrue(reachability.isConnected());
+
+    // A successful fetch ends the disagreement
+    reachability.onFetchSucceeded(70000);
+    assertTrue(reachability.isConnected());
+    assertFalse(reachability.isDisagreeing());
+    assertFalse(reachability.shouldProbe(70000 + PROBE_TIMER));
+  }
+
+  @Test
+  public void reachability_probesUnvalidatedNetwork() {
+    NetworkReachability reachability = newReachability();
+    reachability.onNetworkChanged(true, false, 0);
+    assertFalse(reachability.isConnected());
+    assertTrue(reachability.shouldProbe(0));
+    reachability.onProbe(true, 1000);
+    assertTrue(reachability.isConnected());
+
+    // The fetches keep the network connected without validation
+    reachability.onFetchSucceeded(2000);
+    assertTrue(reachability.isConnected());
+    reachability.onFetchFailed(3000);
+    reachability.onFetchFailed(4000);
+    assertFalse(reachability.isConnected());
+    assertFalse(reachability.isDisagreeing());
+  }
+}
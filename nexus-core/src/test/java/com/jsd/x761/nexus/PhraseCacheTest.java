@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Checks synthesizing speech phrases ahead of time and keeping the most
+ * recently used generated phrases.
+ */
+public class PhraseCacheTest {
+  @Test
+  public void get_hitsOnceSynthesized() {
+    PhraseCache phraseCache = new PhraseCache(2);
+    phraseCache.addFixedPhrases(Arrays.asList("Radar detector is on", "K A band 34.7 Radar"));
+    assertNull(phraseCache.get("Speed Trap at 2 o'clock 1 mile away on University Ave"));
+
+    // Fixed phrases are synthesized first
+    PhraseCache.Phrase first = phraseCache.nextSynthesis();
+    assertEquals("Radar detector is on", first.text);
+    assertEquals(Collections.emptyList(), phraseCache.onSynthesized(first, true));
+    assertEquals(first.key, phraseCache.get("Radar detector is on"));
+    assertEquals("K A band 34.7 Radar", phraseCache.nextSynthesis().text);
+    PhraseCache.Phrase report = phraseCache.nextSynthesis();
+    phraseCache.onSynthesisStopped(report);
+    assertSame(report, phraseCache.nextSynthesis());
+    assertEquals("Speed Trap at 2 o'clock 1 mile away on University Ave", report.text);
+    assertNull(phraseCache.nextSynthesis());
+    phraseCache.onSynthesized(report, true);
+    assertEquals(report.key, phraseCache.get(report.text));
+
+    assertEquals(3, phraseCache.getRequestCount());
+    assertEquals(2, phraseCache.getHitCount());
+    phraseCache.recordLatency(true, 10);
+    phraseCache.recordLatency(true, 20);
+    phraseCache.recordLatency(false, 300);
+    assertEquals(15, phraseCache.getAverageLatency(true));
+    assertEquals(300, phraseCache.getAverageLatency(false));
+  }
+
+  private static PhraseCache.Phrase synthesize(PhraseCache phraseCache, String text, List<String> evicted) {
+    assertNull(phraseCache.get(text));
+    PhraseCache.Phrase phrase = phraseCache.nextSynthesis();
+    assertEquals(text, phrase.text);
+    evicted.addAll(phraseCache.onSynthesized(phrase, true));
+    return phrase;
+  }
+
+  @Test
+  public void onSynthesized_evictsLeastRecentlyUsed() {
+    PhraseCache phraseCache = new PhraseCache(2);
+    List<String> evicted = new ArrayList<>();
+    PhraseCache.Phrase hazard = synthesize(phraseCache, "Hazard 1 mile away", evicted);
+    PhraseCache.Phrase accident = synthesize(phraseCache, "Accident 1 mile away", evicted);
+    assertTrue(evicted.isEmpty());
+
+    // Using the first phrase again evicts the second one instead
+    assertEquals(hazard.key, phraseCache.get(hazard.text));
+    PhraseCache.Phrase trap = synthesize(phraseCache, "Speed Trap 1 mile away", evicted);
+    assertEquals(Collections.singletonList(accident.key), evicted);
+    assertEquals(hazard.key, phraseCache.get(hazard.text));
+    assertEquals(trap.key, phraseCache.get(trap.text));
+
+    // A failed synthesis is attempted again the next time it's spoken
+    assertNull(phraseCache.get(accident.text));
+    PhraseCache.Phrase retry = phraseCache.nextSynthesis();
+    assertEquals(accident.text, retry.text);
+    phraseCache.onSynthesized(retry, false);
+    assertNull(phraseCache.nextSynthesis());
+    assertNull(phraseCache.get(accident.text));
+    assertEquals(accident.text, phraseCache.nextSynthesis().text);
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import static com.jsd.x761.nexus.TestAlerts.VEHICLE;
+import static org.junit.Assert.assertEquals;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Checks parsing crowd-sourced reports.
+ */
+public class ReportsParserTest {
+  private static final float VEHICLE_BEARING = 45.0f;
+
+  private static String getReport(String type, LatLng location, boolean typeFirst) {
+    String fields = String.format(
+      "\"city\":\"East Palo Alto, CA\",\"confidence\":1,\"location\":{\"x\":%s,\"y\":%s},\"magvar\":90,\"nThumbsUp\":3," +
+        "\"street\":\"to University Ave\",\"subtype\":\"POLICE_VISIBLE\",\"pubMillis\":[1,{\"a\":\"}\"}],\"uuid\":\"abc\"",
+      location.getLongitude(), location.getLatitude());
+    if(typeFirst) {
+      return String.format("{\"type\":\"%s\",%s}", type, fields);
+    }
+    return String.format("{%s,\"type\":\"%s\"}", fields, type);
+  }
+
+  private static void assertSameReport(Alert expected, Alert report) {
+    assertEquals(expected.alertClass, report.alertClass);
+    assertEquals(expected.type, report.type);
+    assertEquals(expected.subType, report.subType);
+    assertEquals(expected.city, report.city);
+    assertEquals(expected.street, report.street);
+    assertEquals(expected.thumbsUp, report.thumbsUp);
+    assertEquals(expected.latitude, report.latitude, 0.0);
+    assertEquals(expected.longitude, report.longitude, 0.0);
+    assertEquals(expected.distance, report.distance, 0.0f);
+    assertEquals(expected.bearing, report.bearing);
+    assertEquals(expected.priority, report.priority);
+  }
+
+  @Test
+  public void parse_keepsRelevantReportsInRange() throws IOException {
+    LatLng near = Geospatial.getDestination(VEHICLE, 1000.0f, 120.0f);
+    LatLng far = Geospatial.getDestination(VEHICLE, Geospatial.toMeters(Configuration.REPORTS_MAX_DISTANCE * 2), 120.0f);
+    String police = getReport("POLICE", near, false);
+    String accident = getReport("ACCIDENT", near, true);
+    String json = String.format(
+      "{\"jams\":[{\"type\":\"POLICE\"}],\"alerts\":[%s,%s,%s,%s,%s,{\"city\":\"Palo Alto\"}],\"users\":[]}", getReport("HAZARD", near, false),
+      police, getReport("JAM", near, true), accident, getReport("POLICE", far, true));
+
+    List<Alert> reports = ReportsParser.parse(json, VEHICLE, VEHICLE_BEARING);
+    assertEquals(2, reports.size());
+    assertSameReport(Alert.fromReport(VEHICLE, VEHICLE_BEARING, new JSONObject(police)), reports.get(0));
+    assertSameReport(Alert.fromReport(VEHICLE, VEHICLE_BEARING, new JSONObject(accident)), reports.get(1));
+    assertEquals("East Palo Alto", reports.get(0).city);
+    assertEquals("University Ave", reports.get(0).street);
+  }
+
+  @Test
+  public void parse_acceptsMissingAlerts() throws IOException {
+    assertEquals(0, ReportsParser.parse("{\"jams\":[],\"users\":[]}", VEHICLE, VEHICLE_BEARING).size());
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import static com.jsd.x761.nexus.TestAlerts.VEHICLE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Checks planning the area of crowd-sourced report queries.
+ */
+public class ReportsQueryPlannerTest {
+  private static final float DISTANCE = Geospatial.toMeters(2.0f);
+
+  private static boolean contains(BoundingBox box, LatLng point) {
+    return box.contains(point.getLatitude(), point.getLongitude());
+  }
+
+  @Test
+  public void plan_centersSquareOnSlowVehicle() {
+    BoundingBox box = ReportsQueryPlanner.plan(VEHICLE, 45.0f, 0.0f, DISTANCE);
+    for(int bearing = 0; bearing < 360; bearing += 15) {
+      assertTrue(contains(box, Geospatial.getDestination(VEHICLE, DISTANCE * 0.99f, bearing)));
+    }
+    assertEquals(DISTANCE, ReportsQueryPlanner.getLookaheadDistance(0.0f, DISTANCE), 0.0f);
+  }
+
+  @Test
+  public void plan_looksAheadOfMovingVehicle() {
+    double square = ReportsQueryPlanner.plan(VEHICLE, 0.0f, 0.0f, DISTANCE).getArea();
+    for(float speed : new float[] {Configuration.REPORTS_LOOKAHEAD_MIN_SPEED, 20.0f, 40.0f}) {
+      float lookahead = ReportsQueryPlanner.getLookaheadDistance(speed, DISTANCE);
+      assertEquals(
+        Math.min(DISTANCE + speed * Configuration.REPORTS_LOOKAHEAD_TIMER / 1000.0f, DISTANCE * Configuration.REPORTS_LOOKAHEAD_MAX_FACTOR),
+        lookahead, 0.01f);
+
+      for(float bearing : new float[] {0.0f, 30.0f, 45.0f, 100.0f, 225.0f}) {
+        // Covers the lookahead distance ahead and a shorter distance
+        // behind, with a smaller box
+        BoundingBox box = ReportsQueryPlanner.plan(VEHICLE, bearing, speed, DISTANCE);
+        assertTrue(contains(box, Geospatial.getDestination(VEHICLE, lookahead * 0.99f, bearing)));
+        assertTrue(contains(box, Geospatial.getDestination(VEHICLE, DISTANCE * Configuration.REPORTS_LOOKAHEAD_BEHIND_DISTANCE_FACTOR * 0.99f, bearing + 180.0f)));
+        assertFalse(contains(box, Geospatial.getDestination(VEHICLE, DISTANCE, bearing + 180.0f)));
+        assertTrue(String.format("speed %f bearing %f", speed, bearing), box.getArea() < square * 0.8);
+      }
+    }
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import static com.jsd.x761.nexus.TestAlerts.VEHICLE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks caching crowd-sourced reports in tiles.
+ */
+public class ReportsTileCacheTest {
+  private static final float DISTANCE = Geospatial.toMeters(2.0f);
+  private static final long TTL = 180000;
+
+  private static boolean covers(BoundingBox box, BoundingBox area) {
+    return box.getMinLatitude() <= area.getMinLatitude() && box.getMinLongitude() <= area.getMinLongitude() &&
+      box.getMaxLatitude() >= area.getMaxLatitude() && box.getMaxLongitude() >= area.getMaxLongitude();
+  }
+
+  @Test
+  public void getReports_assemblesCachedTiles() {
+    ReportsTileCache cache = new ReportsTileCache(13, TTL);
+    BoundingBox area = ReportsQueryPlanner.plan(VEHICLE, 0.0f, 0.0f, DISTANCE);
+    BoundingBox box = cache.getMissingBox(area, 0);
+    assertNotNull(box);
+    assertTrue(covers(box, area));
+
+    List<Alert> reports = new ArrayList<>();
+    reports.add(TestAlerts.report("POLICE", "", VEHICLE));
+    reports.add(TestAlerts.report("POLICE", "", Geospatial.getDestination(VEHICLE, DISTANCE * 0.9f, 45.0f)));
+    // Outside of the fetched tiles
+    reports.add(TestAlerts.report("POLICE", "", Geospatial.getDestination(VEHICLE, DISTANCE * 4.0f, 0.0f)));
+    cache.put(box, reports, 0);
+    assertNull(cache.getMissingBox(area, 1000));
+    assertEquals(2, cache.getReports(area, 1000).size());
+    assertEquals(1, cache.getReports(new BoundingBox(VEHICLE.getLatitude(), VEHICLE.getLongitude(), VEHICLE.getLatitude(), VEHICLE.getLongitude()), 1000).size());
+  }
+
+  @Test
+  public void getMissingBox_onlyCoversNewTiles() {
+    ReportsTileCache cache = new ReportsTileCache(13, TTL);
+    BoundingBox area = ReportsQueryPlanner.plan(VEHICLE, 0.0f, 0.0f, DISTANCE);
+    BoundingBox box = cache.getMissingBox(area, 0);
+    cache.put(box, new ArrayList<>(), 0);
+
+    // Moving north only fetches the tiles newly entered
+    BoundingBox northArea = ReportsQueryPlanner.plan(Geospatial.getDestination(VEHICLE, DISTANCE, 0.0f), 0.0f, 0.0f, DISTANCE);
+    BoundingBox northBox = cache.getMissingBox(northArea, 1000);
+    assertNotNull(northBox);
+    assertEquals(box.getMaxLatitude(), northBox.getMinLatitude(), 1e-9);
+    assertTrue(northBox.getArea() < box.getArea());
+    cache.put(northBox, new ArrayList<>(), 1000);
+    assertNull(cache.getMissingBox(northArea, 2000));
+    assertNull(cache.getMissingBox(area, 2000));
+  }
+
+  @Test
+  public void evict_removesExpiredTiles() {
+    ReportsTileCache cache = new ReportsTileCache(13, TTL);
+    BoundingBox area = ReportsQueryPlanner.plan(VEHICLE, 0.0f, 0.0f, DISTANCE);
+    List<Alert> reports = new ArrayList<>();
+    reports.add(TestAlerts.report("POLICE", "", VEHICLE));
+    cache.put(cache.getMissingBox(area, 0), reports, 0);
+    int size = cache.size();
+    assertTrue(size > 0);
+
+    // Expired tiles are fetched again and not assembled anymore
+    assertNotNull(cache.getMissingBox(area, TTL));
+    assertEquals(0, cache.getReports(area, TTL).size());
+    cache.evict(TTL - 1);
+    assertEquals(size, cache.size());
+    cache.evict(TTL);
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void getMissingBox_cutsFetchesWhileDriving() {
+    // Drive north at highway speed, checking for reports as often as the
+    // app does
+    ReportsTileCache cache = new ReportsTileCache(Configuration.REPORTS_TILE_ZOOM, Configuration.REPORTS_TILE_TIME_TO_LIVE);
+    int fetches = 0;
+    double fetchedArea = 0.0;
+    double area = 0.0;
+    int checks = 50;
+    for(int i = 0; i < checks; i++) {
+      long time = i * Configuration.REPORTS_CHECK_TIMER;
+      LatLng location = Geospatial.getDestination(VEHICLE, 30.0f * time / 1000.0f, 0.0f);
+      BoundingBox query = ReportsQueryPlanner.plan(location, 0.0f, 30.0f, DISTANCE);
+      area += query.getArea();
+      cache.evict(time);
+      BoundingBox box = cache.getMissingBox(query, time);
+      if(box != null) {
+        fetches++;
+        fetchedArea += box.getArea();
+        cache.put(box, new ArrayList<>(), time);
+      }
+    }
+    assertTrue(String.format("%d fetches", fetches), fetches < checks / 2);
+    assertTrue(String.format("%f fetched area of %f", fetchedArea, area), fetchedArea < area);
+  }
+}
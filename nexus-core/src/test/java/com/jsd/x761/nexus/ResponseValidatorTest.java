@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+/**
+ * Checks telling unchanged responses apart to skip parsing them.
+ */
+public class ResponseValidatorTest {
+
+  @Test
+  public void validator_skipsUnchangedResponses() {
+    ResponseValidator<String> validator = new ResponseValidator<>(2);
+    assertTrue(validator.getRequestHeaders("a").isEmpty());
+    assertNull(validator.getUnchanged("a", null, 1));
+    validator.put("a", null, 1, "a1");
+
+    // Without an ETag the payload hash tells whether it changed
+    assertTrue(validator.getRequestHeaders("a").isEmpty());
+    assertSame("a1", validator.getUnchanged("a", null, 1));
+    assertNull(validator.getUnchanged("a", null, 2));
+    validator.put("a", "\"v2\"", 2, "a2");
+
+    // With an ETag the request is conditional
+    assertEquals(Collections.singletonMap("If-None-Match", "\"v2\""), validator.getRequestHeaders("a"));
+    assertSame("a2", validator.getNotModified("a"));
+    assertEquals(4, validator.getResponseCount());
+    assertEquals(2, validator.getSkippedCount());
+    assertEquals(0.5f, validator.getSkipRate(), 0.0001f);
+  }
+
+  @Test
+  public void validator_evictsLeastRecentlyUsed() {
+    ResponseValidator<String> validator = new ResponseValidator<>(2);
+    validator.put("a", "\"a\"", 1, "a");
+    validator.put("b", "\"b\"", 2, "b");
+    assertSame("a", validator.getUnchanged("a", "\"a\"", 1));
+    validator.put("c", "\"c\"", 3, "c");
+    assertSame("a", validator.getNotModified("a"));
+    assertNull(validator.getNotModified("b"));
+    assertSame("c", validator.getNotModified("c"));
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+/**
+ * Alerts and locations shared by the tests.
+ */
+final class TestAlerts {
+  static final LatLng VEHICLE = new LatLng(37.4419, -122.1430);
+
+  private TestAlerts() {
+  }
+
+  static Alert report(String type, String street, LatLng location) {
+    Alert report = new Alert();
+    report.alertClass = Alert.ALERT_CLASS_REPORT;
+    report.type = type;
+    report.street = street;
+    report.latitude = location.getLatitude();
+    report.longitude = location.getLongitude();
+    return report;
+  }
+
+  /**
+   * Return a report at a distance in miles and a bearing in degrees from
+   * the vehicle.
+   */
+  static Alert report(String type, String street, float distance, float bearing) {
+    return report(type, street, Geospatial.getDestination(VEHICLE, Geospatial.toMeters(distance), bearing));
+  }
+
+  static Alert aircraft(String transponder) {
+    Alert aircraft = new Alert();
+    aircraft.alertClass = Alert.ALERT_CLASS_AIRCRAFT;
+    aircraft.transponder = transponder;
+    return aircraft;
+  }
+}
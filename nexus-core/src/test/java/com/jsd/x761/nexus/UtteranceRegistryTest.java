@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Checks completing utterances exactly once and always releasing the audio
+ * focus, including under many concurrent announcements.
+ */
+public class UtteranceRegistryTest {
+  private static class TestAudioFocus implements AudioFocusCounter.AudioFocus {
+    final AtomicBoolean focused = new AtomicBoolean();
+    final AtomicInteger requests = new AtomicInteger();
+    final AtomicInteger errors = new AtomicInteger();
+
+    @Override
+    public void request() {
+      requests.incrementAndGet();
+      if(!focused.compareAndSet(false, true)) {
+        errors.incrementAndGet();
+      }
+    }
+
+    @Override
+    public void abandon() {
+      if(!focused.compareAndSet(true, false)) {
+        errors.incrementAndGet();
+      }
+    }
+  }
+
+  @Test
+  public void complete_runsOnce() {
+    UtteranceRegistry registry = new UtteranceRegistry();
+    TestAudioFocus audioFocus = new TestAudioFocus();
+    AudioFocusCounter audioFocusCounter = new AudioFocusCounter(audioFocus);
+    AtomicInteger done = new AtomicInteger();
+    for(int i = 0; i < 3; i++) {
+      long lease = audioFocusCounter.acquire(i * 1000);
+      registry.register(Integer.toString(i), () -> {
+        done.incrementAndGet();
+        audioFocusCounter.release(lease);
+      }, i * 1000);
+    }
+    assertTrue(audioFocus.focused.get());
+    assertEquals(1, audioFocus.requests.get());
+
+    // An utterance done then failing only completes once
+    assertTrue(registry.complete("0"));
+    assertFalse(registry.complete("0"));
+    assertFalse(registry.complete("unknown"));
+    assertEquals(1, registry.expire(2500, 1000));
+    assertEquals(2, done.get());
+    assertTrue(audioFocus.focused.get());
+    assertEquals(1, registry.completeAll());
+    assertEquals(3, done.get());
+    assertEquals(0, registry.size());
+    assertFalse(audioFocus.focused.get());
+    assertEquals(0, audioFocus.errors.get());
+
+    // Leases held too long expire and a lease only releases once
+    long lease = audioFocusCounter.acquire(0);
+    assertEquals(1, audioFocusCounter.expire(20000, 10000));
+    assertFalse(audioFocusCounter.release(lease));
+    assertEquals(0, audioFocusCounter.getCount());
+    assertFalse(audioFocusCounter.isFocused());
+  }
+
+  @Test
+  public void stress_alwaysReleasesFocus() throws Exception {
+    int threads = 8;
+    int announcements = 2000;
+    UtteranceRegistry registry = new UtteranceRegistry();
+    TestAudioFocus audioFocus = new TestAudioFocus();
+    AudioFocusCounter audioFocusCounter = new AudioFocusCounter(audioFocus);
+    AtomicIntegerArray done = new AtomicIntegerArray(threads * announcements);
+    AtomicInteger time = new AtomicInteger();
+
+    // Announce from several threads while the speech engine completes the
+    // utterances from other threads, once, twice as done then failed, or
+    // never, leaving them to time out or be stopped
+    ExecutorService announcers = Executors.newFixedThreadPool(threads);
+    ExecutorService engine = Executors.newFixedThreadPool(4);
+    AtomicBoolean running = new AtomicBoolean(true);
+    Thread watchdog = new Thread(() -> {
+      while(running.get()) {
+        registry.expire(time.get(), 50);
+        audioFocusCounter.expire(time.get(), 10000);
+        Thread.yield();
+      }
+    });
+    watchdog.start();
+    List<Future<?>> futures = new ArrayList<>();
+    for(int t = 0; t < threads; t++) {
+      int thread = t;
+      futures.add(announcers.submit(() -> {
+        Random random = new Random(761 + thread);
+        for(int i = 0; i < announcements; i++) {
+          int index = thread * announcements + i;
+          String id = Integer.toString(index);
+          long lease = audioFocusCounter.acquire(time.get());
+          registry.register(id, () -> {
+            done.incrementAndGet(index);
+            audioFocusCounter.release(lease);
+          }, time.incrementAndGet());
+          int outcome = random.nextInt(4);
+          if(outcome == 0) {
+            engine.execute(() -> registry.complete(id));
+          }
+          else if(outcome == 1) {
+            engine.execute(() -> {
+              registry.complete(id);
+              registry.complete(id);
+            });
+          }
+          else if(outcome == 2) {
+            registry.complete(id);
+          }
+        }
+      }));
+    }
+    for(Future<?> future : futures) {
+      future.get();
+    }
+    announcers.shutdown();
+    engine.shutdown();
+    assertTrue(engine.awaitTermination(30, TimeUnit.SECONDS));
+    running.set(false);
+    watchdog.join();
+
+    // Stop the remaining utterances
+    registry.completeAll();
+    for(int i = 0; i < done.length(); i++) {
+      assertEquals(1, done.get(i));
+    }
+    assertEquals(0, registry.size());
+    assertEquals(0, audioFocusCounter.getCount());
+    assertFalse(audioFocusCounter.isFocused());
+    assertFalse(audioFocus.focused.get());
+    assertEquals(0, audioFocus.errors.get());
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2023 jsdx761
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.jsd.x761.nexus;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Checks the 64-bit xxHash against the reference implementation.
+ */
+public class XXHash64Test {
+  private static long hash(String string, long seed) {
+    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+    return XXHash64.hash(bytes, 0, bytes.length, seed);
+  }
+
+  @Test
+  public void hash_matchesReference() {
+    assertEquals(0xef46db3751d8e999L, hash("", 0));
+    assertEquals(0xd24ec4f1a98c6e5bL, hash("a", 0));
+    assertEquals(0x44bc2cf5ad770999L, hash("abc", 0));
+    assertEquals(0x6183e3477e5be62aL, hash("abc", 761));
+    assertEquals(0xfbcea83c8a378bf1L, hash("Nobody inspects the spammish repetition", 0));
+
+    byte[] bytes = new byte[1027];
+    for(int i = 0; i < 1024; i++) {
+      bytes[i] = (byte)i;
+    }
+    bytes[1024] = 'x';
+    bytes[1025] = 'y';
+    bytes[1026] = 'z';
+    assertEquals(0xe146cb31b65bc21aL, XXHash64.hash(bytes));
+    assertEquals(0xa8160ea2d82fb59dL, XXHash64.hash(bytes, 0, 100, 761));
+
+    // Hashes a range in place
+    byte[] shifted = new byte[bytes.length + 5];
+    System.arraycopy(bytes, 0, shifted, 5, bytes.length);
+    assertEquals(0xe146cb31b65bc21aL, XXHash64.hash(shifted, 5, bytes.length, 0));
+  }
+}